@@ -16,18 +16,25 @@
 
 package org.cloudfoundry.reactor;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import io.netty.handler.codec.http.HttpHeaders;
 import org.cloudfoundry.reactor.util.JsonCodec;
 import org.cloudfoundry.reactor.util.Operator;
 import org.cloudfoundry.reactor.util.OperatorContext;
 import org.cloudfoundry.reactor.util.UserAgent;
 import org.immutables.value.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -36,12 +43,22 @@ import java.util.regex.Pattern;
  */
 abstract class AbstractRootProvider implements RootProvider {
 
+    private static final Duration DEFAULT_PERSISTENCE_DURATION = Duration.ofDays(1);
+
     private static final int DEFAULT_PORT = 443;
 
     private static final Pattern HOSTNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9-.]+$");
 
+    private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client");
+
+    private static final TypeReference<Map<String, String>> PAYLOAD_TYPE = new TypeReference<Map<String, String>>() {
+
+    };
+
     private static final int UNDEFINED_PORT = -1;
 
+    private final ConcurrentMap<String, Payload> payloads = new ConcurrentHashMap<>();
+
     @Value.Check
     public final void checkForValidApiHost() {
         Matcher matcher = HOSTNAME_PATTERN.matcher(getApiHost());
@@ -52,7 +69,7 @@ abstract class AbstractRootProvider implements RootProvider {
     }
 
     public Mono<Operator> createOperator(ConnectionContext connectionContext) {
-        HttpClient httpClient = connectionContext.getHttpClient();
+        HttpClient httpClient = connectionContext.getHttpClient(Endpoint.CLOUD_CONTROLLER);
         return getRoot(connectionContext)
             .map(root -> OperatorContext.of(connectionContext, root))
             .map(operatorContext -> new Operator(operatorContext, httpClient))
@@ -119,11 +136,63 @@ abstract class AbstractRootProvider implements RootProvider {
      */
     abstract Optional<Boolean> getSecure();
 
+    /**
+     * Returns a payload from the {@link StateStore} of a connection, if one is configured and the payload has been stored, revalidating it in the background.  Otherwise returns the payload as
+     * requested, storing it for later use.  Payloads, including those revalidated in the background, are held in memory for the same time-to-live so that the store is only read once per
+     * payload.
+     *
+     * @param name              the name of the payload
+     * @param connectionContext the connection context
+     * @param payload           the request for the payload
+     * @return the payload
+     */
+    final Mono<Map<String, String>> persistent(String name, ConnectionContext connectionContext, Mono<Map<String, String>> payload) {
+        return connectionContext.getStateStore()
+            .map(stateStore -> {
+                String key = String.format("%s:%s", name, getRoot().toUriString());
+                Duration timeToLive = connectionContext.getCacheDuration().orElse(DEFAULT_PERSISTENCE_DURATION);
+
+                Mono<Map<String, String>> stored = payload
+                    .doOnNext(value -> this.payloads.put(key, new Payload(value, timeToLive)))
+                    .delayUntil(value -> Mono.fromCallable(() -> connectionContext.getObjectMapper().writeValueAsString(value))
+                        .flatMap(serialized -> stateStore.put(key, serialized, timeToLive))
+                        .doOnError(t -> LOGGER.warn("Unable to store {} payload", name, t))
+                        .onErrorResume(t -> Mono.empty()));
+
+                return Mono.defer(() -> Mono.justOrEmpty(getPayload(key)))
+                    .switchIfEmpty(stateStore.get(key)
+                        .flatMap(serialized -> Mono.fromCallable(() -> connectionContext.getObjectMapper().<Map<String, String>>readValue(serialized, PAYLOAD_TYPE)))
+                        .doOnError(t -> LOGGER.warn("Unable to read stored {} payload", name, t))
+                        .onErrorResume(t -> Mono.empty())
+                        .doOnNext(value -> {
+                            this.payloads.putIfAbsent(key, new Payload(value, timeToLive));
+                            revalidate(name, stored);
+                        })
+                        .switchIfEmpty(stored));
+            })
+            .orElse(payload);
+    }
+
     private void addHeaders(HttpHeaders httpHeaders) {
         UserAgent.setUserAgent(httpHeaders);
         JsonCodec.setDecodeHeaders(httpHeaders);
     }
 
+    private Map<String, String> getPayload(String key) {
+        Payload payload = this.payloads.get(key);
+
+        if (payload == null) {
+            return null;
+        }
+
+        if (payload.expiration - System.nanoTime() <= 0) {
+            this.payloads.remove(key, payload);
+            return null;
+        }
+
+        return payload.value;
+    }
+
     private String getScheme() {
         if (getSecure().orElse(true)) {
             return "https";
@@ -132,8 +201,28 @@ abstract class AbstractRootProvider implements RootProvider {
         }
     }
 
+    private void revalidate(String name, Mono<Map<String, String>> stored) {
+        stored
+            .doOnError(t -> LOGGER.warn("Unable to revalidate stored {} payload", name, t))
+            .onErrorResume(t -> Mono.empty())
+            .subscribe();
+    }
+
     private Mono<Void> trust(String host, int port, ConnectionContext connectionContext) {
         return connectionContext.trust(host, port);
     }
 
+    private static final class Payload {
+
+        private final long expiration;
+
+        private final Map<String, String> value;
+
+        private Payload(Map<String, String> value, Duration timeToLive) {
+            this.expiration = System.nanoTime() + timeToLive.toNanos();
+            this.value = value;
+        }
+
+    }
+
 }
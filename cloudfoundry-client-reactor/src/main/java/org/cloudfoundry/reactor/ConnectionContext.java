@@ -17,6 +17,13 @@
 package org.cloudfoundry.reactor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cloudfoundry.reactor.util.ConcurrencyLimiter;
+import org.cloudfoundry.reactor.util.RequestCoalescer;
+import org.cloudfoundry.reactor.util.RequestHedger;
+import org.cloudfoundry.reactor.util.RequestScheduler;
+import org.cloudfoundry.reactor.util.ResponseCache;
+import org.cloudfoundry.reactor.util.RetryBudget;
+import org.cloudfoundry.reactor.util.TimeoutCounter;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 
@@ -33,11 +40,27 @@ public interface ConnectionContext {
      */
     Optional<Duration> getCacheDuration();
 
+    /**
+     * The (optional) {@link ConcurrencyLimiter} used to adaptively limit the number of concurrent requests to the Cloud Controller
+     */
+    default Optional<ConcurrencyLimiter> getConcurrencyLimiter() {
+        return Optional.empty();
+    }
+
     /**
      * The {@link HttpClient} to use
      */
     HttpClient getHttpClient();
 
+    /**
+     * The {@link HttpClient} to use for an endpoint
+     *
+     * @param endpoint the endpoint being communicated with
+     */
+    default HttpClient getHttpClient(Endpoint endpoint) {
+        return getHttpClient();
+    }
+
     /**
      * The number of retries after an unsuccessful request
      */
@@ -48,11 +71,87 @@ public interface ConnectionContext {
      */
     ObjectMapper getObjectMapper();
 
+    /**
+     * The (optional) {@link RequestCoalescer} used to share identical, concurrent {@code GET} requests
+     */
+    default Optional<RequestCoalescer> getRequestCoalescer() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link RequestHedger} used to hedge slow {@code GET} requests to the Cloud Controller whose responses are decoded into a single value
+     */
+    default Optional<RequestHedger> getRequestHedger() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link RequestScheduler} used to share capacity between request priority classes for an endpoint
+     *
+     * @param endpoint the endpoint being communicated with
+     */
+    default Optional<RequestScheduler> getRequestScheduler(Endpoint endpoint) {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link ResponseCache} used to cache responses for stable resources
+     */
+    default Optional<ResponseCache> getResponseCache() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) maximum time to wait for the response from an endpoint, and then between the elements of a streamed response body
+     *
+     * @param endpoint the endpoint being communicated with
+     */
+    default Optional<Duration> getResponseTimeout(Endpoint endpoint) {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link RetryBudget} shared by all retries of transient failures. Without a budget, retries are only limited by their {@link RetryConfiguration}.
+     */
+    default Optional<RetryBudget> getRetryBudget() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link RetryConfiguration} used to retry transient failures of idempotent requests to an endpoint
+     *
+     * @param endpoint the endpoint being communicated with
+     */
+    default Optional<RetryConfiguration> getRetryConfiguration(Endpoint endpoint) {
+        return Optional.empty();
+    }
+
     /**
      * The {@link RootProvider} to use
      */
     RootProvider getRootProvider();
 
+    /**
+     * The (optional) {@link StateStore} used to persist the payload of the API root and refresh tokens between JVMs
+     */
+    default Optional<StateStore> getStateStore() {
+        return Optional.empty();
+    }
+
+    /**
+     * Whether JSON response payloads should be parsed as they are received, rather than aggregated into a single array before parsing
+     */
+    default Boolean getStreamingJsonDecode() {
+        return false;
+    }
+
+    /**
+     * The (optional) {@link TimeoutCounter} that counts requests failing because of deadlines and response timeouts
+     */
+    default Optional<TimeoutCounter> getTimeoutCounter() {
+        return Optional.empty();
+    }
+
     /**
      * Attempt to explicitly trust the TLS certificate of an endpoint.  Implementations can choose whether any actual trusting will happen.
      *
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A {@link StateStore} that stores each value in its own file in a directory, encrypted with AES-GCM using a key derived from a password.  Files are named by a digest of their key, and are
+ * replaced atomically.  Values that cannot be decrypted, for example because the password has changed, are treated as absent.
+ */
+public final class EncryptedFileStateStore implements StateStore {
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+
+    private static final int ITERATIONS = 65_536;
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int KEY_LENGTH = 256;
+
+    private static final String SALT_FILE = "salt";
+
+    private static final int SALT_LENGTH = 16;
+
+    private static final int TAG_LENGTH = 128;
+
+    private final Path directory;
+
+    private final char[] password;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private SecretKey secretKey;
+
+    /**
+     * Creates a new instance
+     *
+     * @param directory the directory to store values in
+     * @param password  the password to derive the encryption key from
+     */
+    public EncryptedFileStateStore(Path directory, char[] password) {
+        this.directory = directory;
+        this.password = password.clone();
+    }
+
+    @Override
+    public Mono<String> get(String key) {
+        return Mono
+            .fromCallable(() -> read(key))
+            .subscribeOn(Schedulers.elastic());
+    }
+
+    @Override
+    public Mono<Void> put(String key, String value, Duration timeToLive) {
+        return Mono
+            .fromCallable(() -> {
+                write(key, value, System.currentTimeMillis() + timeToLive.toMillis());
+                return key;
+            })
+            .subscribeOn(Schedulers.elastic())
+            .then();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+
+        return sb.toString();
+    }
+
+    private Cipher getCipher(int mode, String key, byte[] iv) throws GeneralSecurityException, IOException {
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(mode, getSecretKey(), new GCMParameterSpec(TAG_LENGTH, iv));
+        cipher.updateAAD(key.getBytes(StandardCharsets.UTF_8));
+
+        return cipher;
+    }
+
+    private Path getFile(String key) throws GeneralSecurityException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        return this.directory.resolve(String.format("%s.state", toHex(digest)));
+    }
+
+    private byte[] getSalt() throws IOException {
+        Path file = this.directory.resolve(SALT_FILE);
+
+        if (Files.exists(file)) {
+            return Files.readAllBytes(file);
+        }
+
+        byte[] salt = new byte[SALT_LENGTH];
+        this.random.nextBytes(salt);
+
+        Files.createDirectories(this.directory);
+
+        try {
+            Files.write(file, salt, CREATE_NEW, WRITE);
+            return salt;
+        } catch (FileAlreadyExistsException e) {
+            return Files.readAllBytes(file);
+        }
+    }
+
+    private synchronized SecretKey getSecretKey() throws GeneralSecurityException, IOException {
+        if (this.secretKey == null) {
+            PBEKeySpec keySpec = new PBEKeySpec(this.password, getSalt(), ITERATIONS, KEY_LENGTH);
+
+            try {
+                byte[] encoded = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(keySpec).getEncoded();
+                this.secretKey = new SecretKeySpec(encoded, "AES");
+            } finally {
+                keySpec.clearPassword();
+            }
+        }
+
+        return this.secretKey;
+    }
+
+    private String read(String key) throws GeneralSecurityException, IOException {
+        Path file = getFile(key);
+
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        byte[] contents = Files.readAllBytes(file);
+        if (contents.length <= IV_LENGTH) {
+            return null;
+        }
+
+        ByteBuffer plaintext;
+        try {
+            Cipher cipher = getCipher(Cipher.DECRYPT_MODE, key, Arrays.copyOf(contents, IV_LENGTH));
+            plaintext = ByteBuffer.wrap(cipher.doFinal(contents, IV_LENGTH, contents.length - IV_LENGTH));
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+
+        if (plaintext.getLong() < System.currentTimeMillis()) {
+            Files.deleteIfExists(file);
+            return null;
+        }
+
+        return StandardCharsets.UTF_8.decode(plaintext).toString();
+    }
+
+    private void write(String key, String value, long expiration) throws GeneralSecurityException, IOException {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        byte[] plaintext = ByteBuffer.allocate(Long.BYTES + encoded.length)
+            .putLong(expiration)
+            .put(encoded)
+            .array();
+
+        byte[] iv = new byte[IV_LENGTH];
+        this.random.nextBytes(iv);
+        byte[] ciphertext = getCipher(Cipher.ENCRYPT_MODE, key, iv).doFinal(plaintext);
+
+        Files.createDirectories(this.directory);
+        Path candidate = Files.createTempFile(this.directory, "state", ".tmp");
+        Files.write(candidate, ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array());
+        Files.move(candidate, getFile(key), ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+/**
+ * The endpoints that a {@link ConnectionContext} communicates with
+ */
+public enum Endpoint {
+
+    /**
+     * The Cloud Controller, including the API root
+     */
+    CLOUD_CONTROLLER,
+
+    /**
+     * Doppler
+     */
+    DOPPLER,
+
+    /**
+     * The networking API
+     */
+    NETWORKING,
+
+    /**
+     * The routing API
+     */
+    ROUTING,
+
+    /**
+     * The UAA
+     */
+    UAA
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * A store for state, like the payload of the API root and refresh tokens, that should outlive a single JVM so that a restarted client can avoid renegotiating it
+ */
+public interface StateStore {
+
+    /**
+     * Returns a stored value
+     *
+     * @param key the key of the value
+     * @return the value, or empty if no value is stored or the stored value has expired
+     */
+    Mono<String> get(String key);
+
+    /**
+     * Stores a value
+     *
+     * @param key        the key of the value
+     * @param value      the value
+     * @param timeToLive the duration after which the value expires
+     * @return completion when the value has been stored
+     */
+    Mono<Void> put(String key, String value, Duration timeToLive);
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import org.immutables.value.Value;
+import reactor.netty.Connection;
+import reactor.netty.ConnectionObserver;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool configuration.  Idle and lifetime eviction are applied by observing the connections of the {@link HttpClient} using the pool.  Connections are
+ * evicted once released, never while in use.
+ */
+@Value.Immutable
+abstract class _ConnectionPoolConfiguration {
+
+    private static final AttributeKey<Long> CONNECTED = AttributeKey.valueOf("cloudfoundry-client.connected");
+
+    private static final AttributeKey<Long> RELEASED = AttributeKey.valueOf("cloudfoundry-client.released");
+
+    public ConnectionProvider create(String name) {
+        return getPendingAcquireTimeout()
+            .map(pendingAcquireTimeout -> ConnectionProvider.fixed(name, getMaximumConnections(), pendingAcquireTimeout.toMillis()))
+            .orElseGet(() -> ConnectionProvider.fixed(name, getMaximumConnections()));
+    }
+
+    /**
+     * The maximum number of connections in the pool. Defaults to {@link ConnectionProvider#DEFAULT_POOL_MAX_CONNECTIONS}.
+     */
+    @Value.Default
+    public Integer getMaximumConnections() {
+        return ConnectionProvider.DEFAULT_POOL_MAX_CONNECTIONS;
+    }
+
+    HttpClient configure(HttpClient httpClient) {
+        if (getMaximumIdleTime().isPresent() || getMaximumLifeTime().isPresent()) {
+            return httpClient.observe(this::evict);
+        }
+
+        return httpClient;
+    }
+
+    /**
+     * The time after which an idle connection is closed
+     */
+    abstract Optional<Duration> getMaximumIdleTime();
+
+    /**
+     * The time after which a connection is closed once it is released, regardless of use
+     */
+    abstract Optional<Duration> getMaximumLifeTime();
+
+    /**
+     * The time a request waits to acquire a connection before failing
+     */
+    abstract Optional<Duration> getPendingAcquireTimeout();
+
+    private void evict(Connection connection, ConnectionObserver.State state) {
+        Channel channel = connection.channel();
+        long now = System.nanoTime();
+
+        if (state == ConnectionObserver.State.CONNECTED) {
+            channel.attr(CONNECTED).set(now);
+        } else if (state == ConnectionObserver.State.ACQUIRED) {
+            channel.attr(RELEASED).set(null);
+        } else if (state == ConnectionObserver.State.RELEASED) {
+            channel.attr(RELEASED).set(now);
+
+            long eviction = Long.MAX_VALUE;
+            if (getMaximumIdleTime().isPresent()) {
+                eviction = Math.min(eviction, getMaximumIdleTime().get().toNanos());
+            }
+            if (getMaximumLifeTime().isPresent() && channel.attr(CONNECTED).get() != null) {
+                eviction = Math.min(eviction, channel.attr(CONNECTED).get() + getMaximumLifeTime().get().toNanos() - now);
+            }
+
+            if (eviction <= 0) {
+                channel.close();
+            } else if (eviction != Long.MAX_VALUE) {
+                channel.eventLoop().schedule(() -> {
+                    if (Long.valueOf(now).equals(channel.attr(RELEASED).get())) {
+                        channel.close();
+                    }
+                }, eviction, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+}
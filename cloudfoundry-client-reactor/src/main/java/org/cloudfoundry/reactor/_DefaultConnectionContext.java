@@ -25,13 +25,24 @@ import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.SslContextBuilder;
 import org.cloudfoundry.Nullable;
 import org.cloudfoundry.reactor.util.ByteBufAllocatorMetricProviderWrapper;
+import org.cloudfoundry.reactor.util.ConcurrencyLimiter;
+import org.cloudfoundry.reactor.util.ConnectionPoolMonitor;
 import org.cloudfoundry.reactor.util.DefaultSslCertificateTruster;
+import org.cloudfoundry.reactor.util.Priority;
+import org.cloudfoundry.reactor.util.RequestCoalescer;
+import org.cloudfoundry.reactor.util.RequestHedger;
+import org.cloudfoundry.reactor.util.RequestScheduler;
+import org.cloudfoundry.reactor.util.ResponseCache;
+import org.cloudfoundry.reactor.util.RetryBudget;
 import org.cloudfoundry.reactor.util.SslCertificateTruster;
 import org.cloudfoundry.reactor.util.StaticTrustManagerFactory;
+import org.cloudfoundry.reactor.util.TimeoutCounter;
 import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.HttpResources;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.resources.ConnectionProvider;
 import reactor.netty.resources.LoopResources;
@@ -47,8 +58,12 @@ import javax.management.ObjectName;
 import javax.net.ssl.TrustManagerFactory;
 import java.lang.management.ManagementFactory;
 import java.time.Duration;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
 import static io.netty.channel.ChannelOption.CONNECT_TIMEOUT_MILLIS;
@@ -62,6 +77,10 @@ import static io.netty.channel.ChannelOption.SO_SNDBUF;
 @Value.Immutable
 abstract class _DefaultConnectionContext implements ConnectionContext {
 
+    private static final String DEFAULT_POOL = "default";
+
+    private static final String HTTP2_POOL = "h2";
+
     private static final int DEFAULT_PORT = 443;
 
     private static final int SEND_RECEIVE_BUFFER_SIZE = 10 * 1024 * 1024;
@@ -74,22 +93,29 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
     @PreDestroy
     public final void dispose() {
         getConnectionProvider().ifPresent(ConnectionProvider::dispose);
+        getHttp2ConnectionProvider().ifPresent(ConnectionProvider::dispose);
+        getEndpointConnectionProviders().values().forEach(ConnectionProvider::dispose);
         getThreadPool().dispose();
 
-        try {
-            ObjectName name = getByteBufAllocatorObjectName();
-
-            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
-                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
-            }
-        } catch (JMException e) {
-            this.logger.error("Unable to register ByteBufAllocator MBean", e);
-        }
+        unregisterMBean("ByteBufAllocator");
+        getConcurrencyLimiter().ifPresent(concurrencyLimiter -> unregisterMBean("ConcurrencyLimiter"));
+        unregisterMBean(getConnectionPoolType(DEFAULT_POOL));
+        getConnectionPoolMonitors().keySet().forEach(endpoint -> unregisterMBean(getConnectionPoolType(getPoolName(endpoint))));
+        getHttp2ConnectionProvider().ifPresent(connectionProvider -> unregisterMBean(getConnectionPoolType(HTTP2_POOL)));
+        getRequestCoalescer().ifPresent(requestCoalescer -> unregisterMBean("RequestCoalescer"));
+        getRequestHedger().ifPresent(requestHedger -> unregisterMBean("RequestHedger"));
+        getRequestSchedulers().forEach((endpoint, requestScheduler) -> requestScheduler.getPriorityClasses().keySet().forEach(priority -> unregisterMBean(getPriorityClassType(endpoint, priority))));
+        getResponseCache().ifPresent(responseCache -> unregisterMBean("ResponseCache"));
+        getRetryBudget().ifPresent(retryBudget -> unregisterMBean("RetryBudget"));
+        getTimeoutCounter().ifPresent(timeoutCounter -> unregisterMBean("Timeouts"));
     }
 
     @Override
     public abstract Optional<Duration> getCacheDuration();
 
+    @Override
+    public abstract Optional<ConcurrencyLimiter> getConcurrencyLimiter();
+
     /**
      * The number of connections to use when processing requests and responses. Setting this to {@code null} disables connection pooling.
      */
@@ -99,12 +125,24 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         return ConnectionProvider.DEFAULT_POOL_MAX_CONNECTIONS;
     }
 
+    /**
+     * The number of connections shared by endpoints using HTTP/2 that do not have a dedicated connection pool.  Each connection multiplexes as many concurrent streams as the server allows.
+     */
+    @Value.Default
+    public Integer getHttp2ConnectionPoolSize() {
+        return ConnectionProvider.DEFAULT_POOL_MAX_CONNECTIONS;
+    }
+
     @Override
     @Value.Default
     public HttpClient getHttpClient() {
-        return createHttpClient().compress(true)
-            .tcpConfiguration(this::configureTcpClient)
-            .secure(this::configureSsl);
+        return getConnectionPoolMonitor().monitor(configureHttpClient(HttpClient.create(getConnectionPoolMonitor().monitor(getConnectionProvider().orElseGet(HttpResources::get)))));
+    }
+
+    @Override
+    public HttpClient getHttpClient(Endpoint endpoint) {
+        return Optional.ofNullable(getEndpointHttpClients().get(endpoint))
+            .orElseGet(this::getHttpClient);
     }
 
     @Override
@@ -126,6 +164,44 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         return objectMapper;
     }
 
+    @Override
+    public abstract Optional<RequestCoalescer> getRequestCoalescer();
+
+    @Override
+    public abstract Optional<RequestHedger> getRequestHedger();
+
+    @Override
+    public Optional<RequestScheduler> getRequestScheduler(Endpoint endpoint) {
+        return Optional.ofNullable(getRequestSchedulers().get(endpoint));
+    }
+
+    @Override
+    public abstract Optional<ResponseCache> getResponseCache();
+
+    @Override
+    public Optional<Duration> getResponseTimeout(Endpoint endpoint) {
+        return Optional.ofNullable(getResponseTimeouts().get(endpoint));
+    }
+
+    /**
+     * The {@link RetryBudget} shared by all retries, present only if a retry configuration or retry override is set
+     */
+    @Override
+    @Value.Derived
+    public Optional<RetryBudget> getRetryBudget() {
+        if (!getRetryConfiguration().isPresent() && getRetryOverrides().isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new RetryBudget());
+    }
+
+    @Override
+    public Optional<RetryConfiguration> getRetryConfiguration(Endpoint endpoint) {
+        Optional<RetryConfiguration> retryOverride = Optional.ofNullable(getRetryOverrides().get(endpoint));
+        return retryOverride.isPresent() ? retryOverride : getRetryConfiguration();
+    }
+
     @Override
     @Value.Default
     public RootProvider getRootProvider() {
@@ -137,6 +213,15 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
             .build();
     }
 
+    @Override
+    public abstract Optional<StateStore> getStateStore();
+
+    @Override
+    @Value.Default
+    public Boolean getStreamingJsonDecode() {
+        return false;
+    }
+
     /**
      * The number of worker threads to use when processing requests and responses
      */
@@ -145,6 +230,15 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         return LoopResources.DEFAULT_IO_WORKER_COUNT;
     }
 
+    /**
+     * The {@link TimeoutCounter} that counts requests failing because of deadlines and response timeouts
+     */
+    @Override
+    @Value.Derived
+    public Optional<TimeoutCounter> getTimeoutCounter() {
+        return Optional.of(new TimeoutCounter());
+    }
+
     @Override
     public Mono<Void> trust(String host, int port) {
         return getSslCertificateTruster()
@@ -152,6 +246,13 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
             .orElse(Mono.empty());
     }
 
+    @Value.Check
+    void checkHttp2Endpoints() {
+        if (getHttp2Endpoints().contains(Endpoint.DOPPLER)) {
+            throw new IllegalStateException("Cannot build DefaultConnectionContext, Doppler websockets require HTTP/1.1 and cannot be included in http2Endpoints");
+        }
+    }
+
     /**
      * The hostname of the API root. Typically something like {@code api.run.pivotal.io}.
      */
@@ -162,12 +263,72 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
      */
     abstract Optional<Duration> getConnectTimeout();
 
+    @Value.Derived
+    ConnectionPoolMonitor getConnectionPoolMonitor() {
+        return new ConnectionPoolMonitor();
+    }
+
+    @Value.Derived
+    Map<Endpoint, ConnectionPoolMonitor> getConnectionPoolMonitors() {
+        Map<Endpoint, ConnectionPoolMonitor> connectionPoolMonitors = new EnumMap<>(Endpoint.class);
+        getConnectionPools().keySet().forEach(endpoint -> connectionPoolMonitors.put(endpoint, new ConnectionPoolMonitor()));
+        return connectionPoolMonitors;
+    }
+
+    /**
+     * Connection pools dedicated to endpoints. Endpoints without a dedicated connection pool share the default connection pool, sized by {@link #getConnectionPoolSize()}.
+     */
+    abstract Map<Endpoint, ConnectionPoolConfiguration> getConnectionPools();
+
     @Value.Derived
     Optional<ConnectionProvider> getConnectionProvider() {
         return Optional.ofNullable(getConnectionPoolSize())
             .map(connectionPoolSize -> ConnectionProvider.fixed("cloudfoundry-client", connectionPoolSize));
     }
 
+    @Value.Derived
+    Map<Endpoint, ConnectionProvider> getEndpointConnectionProviders() {
+        Map<Endpoint, ConnectionProvider> connectionProviders = new EnumMap<>(Endpoint.class);
+        getConnectionPools().forEach((endpoint, configuration) -> connectionProviders.put(endpoint, configuration.create(String.format("cloudfoundry-client-%s", getPoolName(endpoint)))));
+        return connectionProviders;
+    }
+
+    @Value.Derived
+    Map<Endpoint, HttpClient> getEndpointHttpClients() {
+        Map<Endpoint, HttpClient> httpClients = new EnumMap<>(Endpoint.class);
+
+        getEndpointConnectionProviders().forEach((endpoint, connectionProvider) ->
+            httpClients.put(endpoint, getConnectionPoolMonitors().get(endpoint).monitor(getConnectionPools().get(endpoint)
+                .configure(configureHttpClient(HttpClient.create(getConnectionPoolMonitors().get(endpoint).monitor(connectionProvider)), endpoint)))));
+
+        getHttp2ConnectionProvider().ifPresent(connectionProvider -> getHttp2Endpoints().stream()
+            .filter(endpoint -> !httpClients.containsKey(endpoint))
+            .forEach(endpoint -> httpClients.put(endpoint, getHttp2ConnectionPoolMonitor()
+                .monitor(configureHttpClient(HttpClient.create(getHttp2ConnectionPoolMonitor().monitor(connectionProvider)), endpoint)))));
+
+        return httpClients;
+    }
+
+    @Value.Derived
+    ConnectionPoolMonitor getHttp2ConnectionPoolMonitor() {
+        return new ConnectionPoolMonitor();
+    }
+
+    @Value.Derived
+    Optional<ConnectionProvider> getHttp2ConnectionProvider() {
+        if (!isHttp2Enabled() || getHttp2Endpoints().stream().allMatch(getConnectionPools()::containsKey)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(ConnectionProvider.fixed("cloudfoundry-client-h2", getHttp2ConnectionPoolSize()));
+    }
+
+    /**
+     * The endpoints to communicate with using HTTP/2. HTTP/2 is negotiated over TLS using ALPN, falling back to HTTP/1.1 if the endpoint does not support it.  Endpoints with a dedicated connection
+     * pool use it for HTTP/2; others share a pool sized by {@link #getHttp2ConnectionPoolSize()}.  {@link Endpoint#DOPPLER} cannot use HTTP/2, as its websocket connections require HTTP/1.1.
+     */
+    abstract Set<Endpoint> getHttp2Endpoints();
+
     /**
      * The {@code SO_KEEPALIVE} value
      */
@@ -188,6 +349,35 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
      */
     abstract Optional<ProxyConfiguration> getProxyConfiguration();
 
+    @Value.Derived
+    Map<Endpoint, RequestScheduler> getRequestSchedulers() {
+        Map<Endpoint, RequestScheduler> requestSchedulers = new EnumMap<>(Endpoint.class);
+        getScheduledEndpoints().forEach(endpoint -> requestSchedulers.put(endpoint, new RequestScheduler(getSchedulerCapacity(endpoint))));
+        return requestSchedulers;
+    }
+
+    /**
+     * The maximum time to wait for the response from endpoints, and then between the elements of a streamed response body.  A response that keeps arriving is not cut off; use a {@link
+     * org.cloudfoundry.reactor.util.Deadline} to bound the total time of a request.  Endpoints without a response timeout wait indefinitely, unless a deadline applies.
+     */
+    abstract Map<Endpoint, Duration> getResponseTimeouts();
+
+    /**
+     * The (optional) configuration used to retry transient failures of idempotent requests to endpoints without a retry override
+     */
+    abstract Optional<RetryConfiguration> getRetryConfiguration();
+
+    /**
+     * Retry configurations that override {@link #getRetryConfiguration()} for endpoints
+     */
+    abstract Map<Endpoint, RetryConfiguration> getRetryOverrides();
+
+    /**
+     * The endpoints whose requests are scheduled by {@link Priority}.  Each endpoint has its own {@link RequestScheduler}, whose capacity is the size of the connection pool the endpoint uses.
+     * Requests for tokens and for the API root are not scheduled, so that a scheduled request waiting for a token cannot hold capacity that the token request needs.
+     */
+    abstract Set<Endpoint> getScheduledEndpoints();
+
     /**
      * Whether the connection to the root API should be secure (i.e. using HTTPS). Defaults to {@code true}.
      */
@@ -229,18 +419,62 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
 
     @PostConstruct
     void monitorByteBufAllocator() {
-        try {
-            ObjectName name = getByteBufAllocatorObjectName();
+        registerMBean("ByteBufAllocator", new ByteBufAllocatorMetricProviderWrapper(PooledByteBufAllocator.DEFAULT));
+    }
 
-            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
-                this.logger.warn("MBean '{}' is already registered and will be removed. You should only have a single DefaultConnectionContext per endpoint.", name);
-                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
-            }
+    @PostConstruct
+    void monitorConcurrencyLimiter() {
+        getConcurrencyLimiter().ifPresent(concurrencyLimiter -> registerMBean("ConcurrencyLimiter", concurrencyLimiter));
+    }
 
-            ManagementFactory.getPlatformMBeanServer().registerMBean(new ByteBufAllocatorMetricProviderWrapper(PooledByteBufAllocator.DEFAULT), name);
-        } catch (JMException e) {
-            this.logger.error("Unable to register ByteBufAllocator MBean", e);
-        }
+    @PostConstruct
+    void monitorConnectionPools() {
+        registerMBean(getConnectionPoolType(DEFAULT_POOL), getConnectionPoolMonitor());
+        getConnectionPoolMonitors().forEach((endpoint, connectionPoolMonitor) -> registerMBean(getConnectionPoolType(getPoolName(endpoint)), connectionPoolMonitor));
+        getHttp2ConnectionProvider().ifPresent(connectionProvider -> registerMBean(getConnectionPoolType(HTTP2_POOL), getHttp2ConnectionPoolMonitor()));
+    }
+
+    @PostConstruct
+    void monitorRequestCoalescer() {
+        getRequestCoalescer().ifPresent(requestCoalescer -> registerMBean("RequestCoalescer", requestCoalescer));
+    }
+
+    @PostConstruct
+    void monitorRequestHedger() {
+        getRequestHedger().ifPresent(requestHedger -> registerMBean("RequestHedger", requestHedger));
+    }
+
+    @PostConstruct
+    void monitorRequestScheduler() {
+        getRequestSchedulers().forEach((endpoint, requestScheduler) -> requestScheduler.getPriorityClasses()
+            .forEach((priority, priorityClass) -> registerMBean(getPriorityClassType(endpoint, priority), priorityClass)));
+    }
+
+    @PostConstruct
+    void monitorResponseCache() {
+        getResponseCache().ifPresent(responseCache -> registerMBean("ResponseCache", responseCache));
+    }
+
+    @PostConstruct
+    void monitorRetryBudget() {
+        getRetryBudget().ifPresent(retryBudget -> registerMBean("RetryBudget", retryBudget));
+    }
+
+    @PostConstruct
+    void monitorTimeouts() {
+        getTimeoutCounter().ifPresent(timeoutCounter -> registerMBean("Timeouts", timeoutCounter));
+    }
+
+    private static String getConnectionPoolType(String poolName) {
+        return String.format("ConnectionPool,pool=%s", poolName);
+    }
+
+    private static String getPoolName(Endpoint endpoint) {
+        return endpoint.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    private static String getPriorityClassType(Endpoint endpoint, Priority priority) {
+        return String.format("RequestScheduler,pool=%s,priority=%s", getPoolName(endpoint), priority.name().toLowerCase(Locale.ENGLISH));
     }
 
     private TcpClient configureConnectTimeout(TcpClient tcpClient) {
@@ -249,6 +483,27 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
             .orElse(tcpClient);
     }
 
+    private void configureHttp2Ssl(SslProvider.SslContextSpec ssl) {
+        configureSsl(ssl, DefaultConfigurationType.H2);
+    }
+
+    private HttpClient configureHttpClient(HttpClient httpClient) {
+        return httpClient.compress(true)
+            .tcpConfiguration(this::configureTcpClient)
+            .secure(this::configureSsl);
+    }
+
+    private HttpClient configureHttpClient(HttpClient httpClient, Endpoint endpoint) {
+        if (!isHttp2Enabled() || !getHttp2Endpoints().contains(endpoint)) {
+            return configureHttpClient(httpClient);
+        }
+
+        return httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+            .compress(true)
+            .tcpConfiguration(this::configureTcpClient)
+            .secure(this::configureHttp2Ssl);
+    }
+
     private TcpClient configureKeepAlive(TcpClient tcpClient) {
         return getKeepAlive()
             .map(keepAlive -> tcpClient.option(SO_KEEPALIVE, keepAlive))
@@ -262,7 +517,11 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
     }
 
     private void configureSsl(SslProvider.SslContextSpec ssl) {
-        SslProvider.Builder builder = ssl.sslContext(createSslContextBuilder()).defaultConfiguration(DefaultConfigurationType.TCP);
+        configureSsl(ssl, DefaultConfigurationType.TCP);
+    }
+
+    private void configureSsl(SslProvider.SslContextSpec ssl, DefaultConfigurationType configurationType) {
+        SslProvider.Builder builder = ssl.sslContext(createSslContextBuilder()).defaultConfiguration(configurationType);
 
         getSslCloseNotifyReadTimeout().ifPresent(builder::closeNotifyReadTimeout);
         getSslHandshakeTimeout().ifPresent(builder::handshakeTimeout);
@@ -280,12 +539,6 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         return configureConnectTimeout(tcpClient);
     }
 
-    private HttpClient createHttpClient() {
-        return getConnectionProvider()
-            .map(HttpClient::create)
-            .orElse(HttpClient.create());
-    }
-
     private SslContextBuilder createSslContextBuilder() {
         SslContextBuilder sslContextBuilder = SslContextBuilder.forClient();
 
@@ -300,8 +553,51 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         return new StaticTrustManagerFactory(sslCertificateTruster);
     }
 
-    private ObjectName getByteBufAllocatorObjectName() throws MalformedObjectNameException {
-        return ObjectName.getInstance(String.format("org.cloudfoundry.reactor:type=ByteBufAllocator,endpoint=%s/%d", getApiHost(), getPort().orElse(DEFAULT_PORT)));
+    private ObjectName getObjectName(String type) throws MalformedObjectNameException {
+        return ObjectName.getInstance(String.format("org.cloudfoundry.reactor:type=%s,endpoint=%s/%d", type, getApiHost(), getPort().orElse(DEFAULT_PORT)));
+    }
+
+    private int getSchedulerCapacity(Endpoint endpoint) {
+        if (getConnectionPools().containsKey(endpoint)) {
+            return getConnectionPools().get(endpoint).getMaximumConnections();
+        }
+
+        if (getHttp2ConnectionProvider().isPresent() && getHttp2Endpoints().contains(endpoint)) {
+            return getHttp2ConnectionPoolSize();
+        }
+
+        return Optional.ofNullable(getConnectionPoolSize()).orElse(ConnectionProvider.DEFAULT_POOL_MAX_CONNECTIONS);
+    }
+
+    private boolean isHttp2Enabled() {
+        return getSecure().orElse(true);
+    }
+
+    private void registerMBean(String type, Object mBean) {
+        try {
+            ObjectName name = getObjectName(type);
+
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                this.logger.warn("MBean '{}' is already registered and will be removed. You should only have a single DefaultConnectionContext per endpoint.", name);
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mBean, name);
+        } catch (JMException e) {
+            this.logger.error("Unable to register {} MBean", type, e);
+        }
+    }
+
+    private void unregisterMBean(String type) {
+        try {
+            ObjectName name = getObjectName(type);
+
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            this.logger.error("Unable to unregister {} MBean", type, e);
+        }
     }
 
 }
@@ -54,13 +54,13 @@ abstract class _InfoPayloadRootProvider extends AbstractRootProvider {
     @SuppressWarnings("unchecked")
     @Value.Derived
     private Mono<Map<String, String>> getInfo(ConnectionContext connectionContext) {
-        return createOperator(connectionContext)
+        return persistent("info", connectionContext, createOperator(connectionContext)
             .flatMap(operator -> operator.get()
                 .uri(this::buildInfoUri)
                 .response()
                 .parseBody(Map.class))
             .map(payload -> (Map<String, String>) payload)
-            .switchIfEmpty(Mono.error(new IllegalArgumentException("Info endpoint does not contain a payload")))
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Info endpoint does not contain a payload"))))
             .checkpoint();
     }
 
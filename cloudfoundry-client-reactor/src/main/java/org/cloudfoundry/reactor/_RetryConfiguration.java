@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.immutables.value.Value;
+
+import java.time.Duration;
+
+/**
+ * Configuration for retrying idempotent ({@code GET}, {@code PUT}, and {@code DELETE}) requests that fail with a connection error or a {@code 502}, {@code 503}, or {@code 504} response
+ */
+@Value.Immutable
+abstract class _RetryConfiguration {
+
+    /**
+     * The maximum delay between retries. Defaults to 5 seconds.
+     */
+    @Value.Default
+    public Duration getMaximumBackoff() {
+        return Duration.ofSeconds(5);
+    }
+
+    /**
+     * The maximum number of retries of a request. Defaults to 3.
+     */
+    @Value.Default
+    public Integer getMaximumRetries() {
+        return 3;
+    }
+
+    /**
+     * The delay before the first retry, doubling for each subsequent retry, before jitter is applied. Defaults to 100 milliseconds.
+     */
+    @Value.Default
+    public Duration getMinimumBackoff() {
+        return Duration.ofMillis(100);
+    }
+
+}
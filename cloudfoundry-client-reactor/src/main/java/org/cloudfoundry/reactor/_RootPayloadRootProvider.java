@@ -54,14 +54,14 @@ abstract class _RootPayloadRootProvider extends AbstractRootProvider {
     @SuppressWarnings("unchecked")
     @Value.Derived
     private Mono<Map<String, String>> getPayload(ConnectionContext connectionContext) {
-        return createOperator(connectionContext)
+        return persistent("root", connectionContext, createOperator(connectionContext)
             .flatMap(operator -> operator.get()
                 .uri(Function.identity())
                 .response()
                 .parseBody(Map.class))
             .map(payload -> (Map<String, Map<String, Map<String, String>>>) payload)
             .map(this::processPayload)
-            .switchIfEmpty(Mono.error(new IllegalArgumentException("Root endpoint does not contain a payload")))
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Root endpoint does not contain a payload"))))
             .checkpoint();
     }
 
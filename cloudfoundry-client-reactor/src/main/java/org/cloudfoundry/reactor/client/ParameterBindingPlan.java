@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import org.cloudfoundry.reactor.util.AnnotationUtils;
+import reactor.core.Exceptions;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * A per-class cache of the getters annotated with a given parameter annotation.  The getters of each class are discovered, sorted by name, and bound to {@link MethodHandle}s once, so that
+ * subsequent requests of the same type can be bound without reflection.
+ *
+ * @param <A> the type of the parameter annotation
+ */
+public final class ParameterBindingPlan<A extends Annotation> extends ClassValue<List<ParameterBindingPlan.Binding<A>>> {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<A> annotationType;
+
+    public ParameterBindingPlan(Class<A> annotationType) {
+        this.annotationType = annotationType;
+    }
+
+    @Override
+    protected List<Binding<A>> computeValue(Class<?> type) {
+        return Collections.unmodifiableList(Arrays.stream(type.getMethods())
+            .sorted(MethodNameComparator.INSTANCE)
+            .map(this::toBinding)
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collect(Collectors.toList()));
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private Optional<Binding<A>> toBinding(Method method) {
+        if (method.getParameterCount() != 0) {
+            return Optional.empty();
+        }
+
+        return AnnotationUtils.findAnnotation(method, this.annotationType)
+            .map(annotation -> new Binding<>(annotation, unreflect(method)));
+    }
+
+    /**
+     * An annotated getter bound to a {@link MethodHandle}
+     *
+     * @param <A> the type of the parameter annotation
+     */
+    public static final class Binding<A extends Annotation> {
+
+        private final A annotation;
+
+        private final MethodHandle getter;
+
+        private Binding(A annotation, MethodHandle getter) {
+            this.annotation = annotation;
+            this.getter = getter;
+        }
+
+        /**
+         * Returns the parameter annotation of the getter
+         */
+        public A getAnnotation() {
+            return this.annotation;
+        }
+
+        /**
+         * Invokes the getter on an instance
+         *
+         * @param instance the instance to invoke the getter on
+         * @return the value returned by the getter, if any
+         */
+        public Optional<Object> getValue(Object instance) {
+            try {
+                return Optional.ofNullable((Object) this.getter.invokeExact(instance));
+            } catch (Throwable t) {
+                throw Exceptions.propagate(t);
+            }
+        }
+
+    }
+
+}
@@ -17,15 +17,9 @@
 package org.cloudfoundry.reactor.client;
 
 import org.cloudfoundry.QueryParameter;
-import org.cloudfoundry.reactor.util.AnnotationUtils;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.Exceptions;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -34,6 +28,8 @@ import java.util.stream.Collectors;
  */
 public final class QueryBuilder {
 
+    private static final ParameterBindingPlan<QueryParameter> PLAN = new ParameterBindingPlan<>(QueryParameter.class);
+
     private QueryBuilder() {
     }
 
@@ -44,22 +40,13 @@ public final class QueryBuilder {
      * @param instance the instance to inspect and invoke
      */
     public static void augment(UriComponentsBuilder builder, Object instance) {
-        Arrays.stream(instance.getClass().getMethods())
-            .sorted(MethodNameComparator.INSTANCE)
-            .forEach(processMethod(builder, instance));
-    }
-
-    private static Optional<Object> getValue(Method method, Object instance) {
-        try {
-            return Optional.ofNullable(method.invoke(instance));
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw Exceptions.propagate(e);
-        }
+        PLAN.get(instance.getClass())
+            .forEach(processBinding(builder, instance));
     }
 
-    private static Consumer<QueryParameter> processAnnotation(UriComponentsBuilder builder, Method method, Object instance) {
-        return queryParameter -> getValue(method, instance)
-            .ifPresent(processValue(builder, queryParameter));
+    private static Consumer<ParameterBindingPlan.Binding<QueryParameter>> processBinding(UriComponentsBuilder builder, Object instance) {
+        return binding -> binding.getValue(instance)
+            .ifPresent(processValue(builder, binding.getAnnotation()));
     }
 
     private static void processCollection(UriComponentsBuilder builder, QueryParameter queryParameter, Object value) {
@@ -69,11 +56,6 @@ public final class QueryBuilder {
                 .collect(Collectors.joining(queryParameter.delimiter())));
     }
 
-    private static Consumer<Method> processMethod(UriComponentsBuilder builder, Object instance) {
-        return method -> AnnotationUtils.findAnnotation(method, QueryParameter.class)
-            .ifPresent(processAnnotation(builder, method, instance));
-    }
-
     private static void processValue(UriComponentsBuilder builder, String name, String value) {
         builder.queryParam(name, value);
     }
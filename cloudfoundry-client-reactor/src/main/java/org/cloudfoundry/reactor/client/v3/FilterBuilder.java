@@ -17,21 +17,17 @@
 package org.cloudfoundry.reactor.client.v3;
 
 import org.cloudfoundry.client.v3.FilterParameter;
-import org.cloudfoundry.reactor.client.MethodNameComparator;
-import org.cloudfoundry.reactor.util.AnnotationUtils;
+import org.cloudfoundry.reactor.client.ParameterBindingPlan;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.Exceptions;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 final class FilterBuilder {
 
+    private static final ParameterBindingPlan<FilterParameter> PLAN = new ParameterBindingPlan<>(FilterParameter.class);
+
     private FilterBuilder() {
     }
 
@@ -42,22 +38,13 @@ final class FilterBuilder {
      * @param instance the instance to inspect and invoke
      */
     public static void augment(UriComponentsBuilder builder, Object instance) {
-        Arrays.stream(instance.getClass().getMethods())
-            .sorted(MethodNameComparator.INSTANCE)
-            .forEach(processMethod(builder, instance));
-    }
-
-    private static Optional<Object> getValue(Method method, Object instance) {
-        try {
-            return Optional.ofNullable(method.invoke(instance));
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw Exceptions.propagate(e);
-        }
+        PLAN.get(instance.getClass())
+            .forEach(processBinding(builder, instance));
     }
 
-    private static Consumer<FilterParameter> processAnnotation(UriComponentsBuilder builder, Method method, Object instance) {
-        return filterParameter -> getValue(method, instance)
-            .ifPresent(processValue(builder, filterParameter));
+    private static Consumer<ParameterBindingPlan.Binding<FilterParameter>> processBinding(UriComponentsBuilder builder, Object instance) {
+        return binding -> binding.getValue(instance)
+            .ifPresent(processValue(builder, binding.getAnnotation()));
     }
 
     private static void processCollection(UriComponentsBuilder builder, String name, Object value) {
@@ -67,11 +54,6 @@ final class FilterBuilder {
                 .collect(Collectors.toList()));
     }
 
-    private static Consumer<Method> processMethod(UriComponentsBuilder builder, Object instance) {
-        return method -> AnnotationUtils.findAnnotation(method, FilterParameter.class)
-            .ifPresent(processAnnotation(builder, method, instance));
-    }
-
     private static void processValue(UriComponentsBuilder builder, String name, Collection<String> collection) {
         String value = String.join(",", collection);
         if (!value.isEmpty()) {
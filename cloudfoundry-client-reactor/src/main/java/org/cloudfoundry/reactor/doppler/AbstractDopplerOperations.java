@@ -16,8 +16,10 @@
 
 package org.cloudfoundry.reactor.doppler;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.Endpoint;
 import org.cloudfoundry.reactor.TokenProvider;
 import org.cloudfoundry.reactor.util.AbstractReactorOperations;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -26,14 +28,15 @@ import reactor.core.publisher.Mono;
 import reactor.netty.ByteBufFlux;
 import reactor.netty.http.client.HttpClientResponse;
 
-import java.io.InputStream;
+import java.time.Duration;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 abstract class AbstractDopplerOperations extends AbstractReactorOperations {
 
     AbstractDopplerOperations(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider, Map<String, String> requestTags) {
-        super(connectionContext, root, tokenProvider, requestTags);
+        super(connectionContext, Endpoint.DOPPLER, root, tokenProvider, requestTags);
     }
 
     final <T> Flux<T> get(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Function<HttpClientResponse, ChannelHandler> channelHandlerBuilder,
@@ -45,10 +48,17 @@ abstract class AbstractDopplerOperations extends AbstractReactorOperations {
             .parseBodyToFlux(responseWithBody -> bodyTransformer.apply(responseWithBody.getBody())));
     }
 
-    final Flux<InputStream> ws(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
+    final <T> Flux<T> ws(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Predicate<ByteBuf> frameFilter, Function<ByteBuf, T> frameDecoder) {
         return createOperator().flatMapMany(operator -> operator.websocket()
             .uri(uriTransformer)
-            .get());
+            .get(frameFilter, frameDecoder));
+    }
+
+    final <T> Flux<T> ws(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Predicate<ByteBuf> frameFilter, Function<ByteBuf, T> frameDecoder, Duration keepAliveInterval,
+                         Duration idleTimeout) {
+        return createOperator().flatMapMany(operator -> operator.websocket()
+            .uri(uriTransformer)
+            .get(frameFilter, frameDecoder, keepAliveInterval, idleTimeout));
     }
 
 }
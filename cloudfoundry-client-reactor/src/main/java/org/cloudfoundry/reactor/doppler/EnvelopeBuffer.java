@@ -0,0 +1,189 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import org.cloudfoundry.Nullable;
+import org.cloudfoundry.doppler.OverflowPolicy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import javax.management.ObjectName;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded buffer between a Doppler stream and a slower consumer.  The stream is read as fast as it arrives, so that the connection is not throttled, and envelopes that arrive while the buffer is
+ * full are handled according to an {@link OverflowPolicy}.  Sampling is by the raw event type of each envelope, so that envelopes with a missing, unknown, or malformed event type are dropped
+ * rather than failing the stream.
+ */
+final class EnvelopeBuffer implements EnvelopeBufferMXBean {
+
+    private final Queue<LazyEnvelope> buffer = new ArrayDeque<>();
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Map<Long, Long> sampleCounts = new HashMap<>();
+
+    private final String stream;
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private boolean done;
+
+    private long dropped;
+
+    private long emitted;
+
+    private Throwable error;
+
+    private Optional<ObjectName> name = Optional.empty();
+
+    EnvelopeBuffer(OverflowPolicy overflowPolicy, String stream) {
+        this.overflowPolicy = overflowPolicy;
+        this.stream = stream;
+    }
+
+    @Override
+    public synchronized int getBuffered() {
+        return this.buffer.size();
+    }
+
+    @Override
+    public synchronized long getDropped() {
+        return this.dropped;
+    }
+
+    @Override
+    public synchronized long getEmitted() {
+        return this.emitted;
+    }
+
+    Flux<LazyEnvelope> buffer(Flux<LazyEnvelope> source) {
+        return Flux.create(sink -> {
+            sink.onRequest(n -> drain(sink));
+            sink.onDispose(source
+                .subscribe(envelope -> {
+                    offer(envelope);
+                    drain(sink);
+                }, t -> {
+                    terminate(t);
+                    drain(sink);
+                }, () -> {
+                    terminate(null);
+                    drain(sink);
+                }));
+        });
+    }
+
+    void register() {
+        this.name = DopplerMBeans.register("EnvelopeBuffer", this.stream, this);
+    }
+
+    void unregister() {
+        DopplerMBeans.unregister(this.name);
+    }
+
+    @Nullable
+    private static Long getEventTypeValue(LazyEnvelope envelope) {
+        try {
+            return envelope.getEventTypeValue();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void drain(FluxSink<LazyEnvelope> sink) {
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+
+        do {
+            while (sink.requestedFromDownstream() > 0) {
+                LazyEnvelope envelope = poll();
+
+                if (envelope == null) {
+                    break;
+                }
+
+                sink.next(envelope);
+            }
+
+            synchronized (this) {
+                if (this.done && this.buffer.isEmpty()) {
+                    if (this.error != null) {
+                        sink.error(this.error);
+                    } else {
+                        sink.complete();
+                    }
+                    return;
+                }
+            }
+
+            missed = this.wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private synchronized void offer(LazyEnvelope envelope) {
+        if (this.buffer.size() >= this.overflowPolicy.getBufferSize()) {
+            switch (this.overflowPolicy.getStrategy()) {
+                case DROP_NEWEST:
+                    this.dropped++;
+                    return;
+                case DROP_OLDEST:
+                    this.buffer.remove();
+                    this.dropped++;
+                    break;
+                case SAMPLE:
+                    this.dropped++;
+
+                    Long eventType = getEventTypeValue(envelope);
+                    if (eventType == null || this.sampleCounts.merge(eventType, 1L, Long::sum) % this.overflowPolicy.getSampleRate() != 0) {
+                        return;
+                    }
+
+                    this.buffer.remove();
+                    break;
+                default:
+                    throw new IllegalStateException(String.format("Unknown overflow strategy: %s", this.overflowPolicy.getStrategy()));
+            }
+        }
+
+        this.buffer.add(envelope);
+    }
+
+    private synchronized LazyEnvelope poll() {
+        LazyEnvelope envelope = this.buffer.poll();
+
+        if (envelope != null) {
+            this.emitted++;
+        }
+
+        return envelope;
+    }
+
+    private synchronized void terminate(Throwable error) {
+        this.done = true;
+        this.error = error;
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+public interface EnvelopeBufferMXBean {
+
+    /**
+     * Returns the number of envelopes currently buffered
+     */
+    int getBuffered();
+
+    /**
+     * Returns the number of envelopes dropped because the buffer was full
+     */
+    long getDropped();
+
+    /**
+     * Returns the number of envelopes emitted to the consumer
+     */
+    long getEmitted();
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.cloudfoundry.Nullable;
+import org.cloudfoundry.doppler.EnvelopeFilter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.cloudfoundry.reactor.doppler.LazyEnvelope.CONTAINER_METRIC;
+import static org.cloudfoundry.reactor.doppler.LazyEnvelope.EVENT_TYPE;
+import static org.cloudfoundry.reactor.doppler.LazyEnvelope.HTTP_START_STOP;
+import static org.cloudfoundry.reactor.doppler.LazyEnvelope.LOG_MESSAGE;
+import static org.cloudfoundry.reactor.doppler.LazyEnvelope.ORIGIN;
+import static org.cloudfoundry.reactor.doppler.LazyEnvelope.TAGS;
+import static org.cloudfoundry.reactor.doppler.LazyEnvelope.TAG_KEY;
+import static org.cloudfoundry.reactor.doppler.LazyEnvelope.TAG_VALUE;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.WIRE_TYPE_LENGTH_DELIMITED;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.WIRE_TYPE_VARINT;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.getFieldNumber;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.getVarint;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.getVarintLength;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.getWireType;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.skipField;
+
+/**
+ * Evaluates an {@link EnvelopeFilter} against an encoded envelope without decoding it.  Fields are read at absolute indexes, so evaluating a frame neither modifies it nor allocates.
+ */
+final class EnvelopeFilterMatcher implements Predicate<ByteBuf> {
+
+    private static final int CONTAINER_METRIC_APPLICATION_ID = 1;
+
+    private static final int HTTP_START_STOP_APPLICATION_ID = 12;
+
+    private static final int LOG_MESSAGE_APPLICATION_ID = 4;
+
+    private static final int UUID_HIGH = 2;
+
+    private static final int UUID_LOW = 1;
+
+    private final List<ByteBuf> applicationIds;
+
+    private final List<long[]> applicationUuids;
+
+    private final boolean[] eventTypes;
+
+    private final List<ByteBuf> origins;
+
+    private final List<ByteBuf[]> tags;
+
+    EnvelopeFilterMatcher(EnvelopeFilter filter) {
+        this.applicationIds = filter.getApplicationIds().stream()
+            .map(EnvelopeFilterMatcher::encode)
+            .collect(Collectors.toList());
+
+        this.applicationUuids = filter.getApplicationIds().stream()
+            .filter(EnvelopeFilterMatcher::isUuid)
+            .map(UUID::fromString)
+            .map(uuid -> new long[]{Long.reverseBytes(uuid.getMostSignificantBits()), Long.reverseBytes(uuid.getLeastSignificantBits())})
+            .collect(Collectors.toList());
+
+        if (filter.getEventTypes().isEmpty()) {
+            this.eventTypes = null;
+        } else {
+            this.eventTypes = new boolean[filter.getEventTypes().stream().mapToInt(LazyEnvelope::toEventTypeValue).max().getAsInt() + 1];
+            filter.getEventTypes().forEach(eventType -> this.eventTypes[LazyEnvelope.toEventTypeValue(eventType)] = true);
+        }
+
+        this.origins = filter.getOrigins().stream()
+            .map(EnvelopeFilterMatcher::encode)
+            .collect(Collectors.toList());
+
+        this.tags = filter.getTags().entrySet().stream()
+            .map(entry -> new ByteBuf[]{encode(entry.getKey()), encode(entry.getValue())})
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean test(ByteBuf frame) {
+        boolean applicationIdMatched = this.applicationIds.isEmpty();
+        boolean eventTypeMatched = this.eventTypes == null;
+        boolean originMatched = this.origins.isEmpty();
+        int tagsMatched = 0;
+
+        int index = frame.readerIndex();
+        int end = frame.writerIndex();
+
+        while (index < end) {
+            long tag = getVarint(frame, index);
+            index += getVarintLength(frame, index);
+
+            int fieldNumber = getFieldNumber(tag);
+            int wireType = getWireType(tag);
+
+            if (fieldNumber == EVENT_TYPE && wireType == WIRE_TYPE_VARINT) {
+                long eventType = getVarint(frame, index);
+                index += getVarintLength(frame, index);
+
+                if (this.eventTypes != null && (eventType < 0 || eventType >= this.eventTypes.length || !this.eventTypes[(int) eventType])) {
+                    return false;
+                }
+
+                eventTypeMatched = true;
+            } else if (wireType == WIRE_TYPE_LENGTH_DELIMITED) {
+                int length = (int) getVarint(frame, index);
+                index += getVarintLength(frame, index);
+
+                if (fieldNumber == ORIGIN && !this.origins.isEmpty()) {
+                    if (!contains(this.origins, frame, index, length)) {
+                        return false;
+                    }
+
+                    originMatched = true;
+                } else if (fieldNumber == TAGS && !this.tags.isEmpty() && matchesTag(frame, index, index + length)) {
+                    tagsMatched++;
+                } else if (!applicationIdMatched) {
+                    applicationIdMatched = matchesApplicationId(fieldNumber, frame, index, index + length);
+                }
+
+                index += length;
+            } else {
+                index = skipField(frame, index, wireType);
+            }
+        }
+
+        return applicationIdMatched && eventTypeMatched && originMatched && tagsMatched >= this.tags.size();
+    }
+
+    /**
+     * Returns a predicate for a filter, accepting every envelope if there is no filter
+     */
+    static Predicate<ByteBuf> of(@Nullable EnvelopeFilter filter) {
+        if (filter == null) {
+            return frame -> true;
+        }
+
+        return new EnvelopeFilterMatcher(filter);
+    }
+
+    private static boolean contains(List<ByteBuf> candidates, ByteBuf buffer, int offset, int length) {
+        for (ByteBuf candidate : candidates) {
+            if (equals(candidate, buffer, offset, length)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static ByteBuf encode(String s) {
+        return Unpooled.wrappedBuffer(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean equals(ByteBuf expected, ByteBuf buffer, int offset, int length) {
+        return expected.readableBytes() == length && (length == 0 || ByteBufUtil.equals(expected, expected.readerIndex(), buffer, offset, length));
+    }
+
+    private static boolean isUuid(String s) {
+        try {
+            UUID.fromString(s);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean matchesApplicationId(int fieldNumber, ByteBuf frame, int index, int end) {
+        int applicationIdField;
+
+        if (fieldNumber == LOG_MESSAGE) {
+            applicationIdField = LOG_MESSAGE_APPLICATION_ID;
+        } else if (fieldNumber == CONTAINER_METRIC) {
+            applicationIdField = CONTAINER_METRIC_APPLICATION_ID;
+        } else if (fieldNumber == HTTP_START_STOP) {
+            applicationIdField = HTTP_START_STOP_APPLICATION_ID;
+        } else {
+            return false;
+        }
+
+        while (index < end) {
+            long tag = getVarint(frame, index);
+            index += getVarintLength(frame, index);
+
+            int wireType = getWireType(tag);
+
+            if (getFieldNumber(tag) != applicationIdField || wireType != WIRE_TYPE_LENGTH_DELIMITED) {
+                index = skipField(frame, index, wireType);
+                continue;
+            }
+
+            int length = (int) getVarint(frame, index);
+            index += getVarintLength(frame, index);
+
+            if (fieldNumber == HTTP_START_STOP) {
+                return matchesApplicationUuid(frame, index, index + length);
+            }
+
+            return contains(this.applicationIds, frame, index, length);
+        }
+
+        return false;
+    }
+
+    private boolean matchesApplicationUuid(ByteBuf frame, int index, int end) {
+        long high = 0;
+        long low = 0;
+
+        while (index < end) {
+            long tag = getVarint(frame, index);
+            index += getVarintLength(frame, index);
+
+            int fieldNumber = getFieldNumber(tag);
+            int wireType = getWireType(tag);
+
+            if (fieldNumber == UUID_LOW && wireType == WIRE_TYPE_VARINT) {
+                low = getVarint(frame, index);
+            } else if (fieldNumber == UUID_HIGH && wireType == WIRE_TYPE_VARINT) {
+                high = getVarint(frame, index);
+            }
+
+            index = skipField(frame, index, wireType);
+        }
+
+        for (long[] candidate : this.applicationUuids) {
+            if (candidate[0] == low && candidate[1] == high) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean matchesTag(ByteBuf frame, int index, int end) {
+        int keyLength = 0;
+        int keyOffset = 0;
+        int valueLength = 0;
+        int valueOffset = 0;
+
+        while (index < end) {
+            long tag = getVarint(frame, index);
+            index += getVarintLength(frame, index);
+
+            int fieldNumber = getFieldNumber(tag);
+            int wireType = getWireType(tag);
+
+            if (wireType == WIRE_TYPE_LENGTH_DELIMITED && fieldNumber == TAG_KEY) {
+                keyLength = (int) getVarint(frame, index);
+                keyOffset = index + getVarintLength(frame, index);
+            } else if (wireType == WIRE_TYPE_LENGTH_DELIMITED && fieldNumber == TAG_VALUE) {
+                valueLength = (int) getVarint(frame, index);
+                valueOffset = index + getVarintLength(frame, index);
+            }
+
+            index = skipField(frame, index, wireType);
+        }
+
+        for (ByteBuf[] candidate : this.tags) {
+            if (equals(candidate[0], frame, keyOffset, keyLength) && equals(candidate[1], frame, valueOffset, valueLength)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import com.squareup.wire.ProtoAdapter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import org.cloudfoundry.Nullable;
+import org.cloudfoundry.doppler.ContainerMetric;
+import org.cloudfoundry.doppler.CounterEvent;
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.Error;
+import org.cloudfoundry.doppler.EventType;
+import org.cloudfoundry.doppler.HttpStartStop;
+import org.cloudfoundry.doppler.LogMessage;
+import org.cloudfoundry.doppler.ValueMetric;
+import reactor.core.Exceptions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.WIRE_TYPE_LENGTH_DELIMITED;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.WIRE_TYPE_VARINT;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.getFieldNumber;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.getWireType;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.readVarint;
+import static org.cloudfoundry.reactor.doppler.ProtobufFields.skipField;
+
+/**
+ * A view of a Dropsonde envelope that decodes its fields directly from the protobuf encoding, only when they are accessed.  The encoded envelope is copied once from the network buffer and
+ * indexed on first access; strings, tags, and enclosed events are decoded in place on each access, so callers that need the same field repeatedly should retain it or use {@link #toEnvelope()}.
+ */
+public final class LazyEnvelope {
+
+    static final int CONTAINER_METRIC = 12;
+
+    static final int COUNTER_EVENT = 10;
+
+    static final int DEPLOYMENT = 13;
+
+    static final int ERROR = 11;
+
+    static final int EVENT_TYPE = 2;
+
+    static final int HTTP_START_STOP = 7;
+
+    static final int INDEX = 15;
+
+    static final int IP = 16;
+
+    static final int JOB = 14;
+
+    static final int LOG_MESSAGE = 8;
+
+    static final int ORIGIN = 1;
+
+    static final int TAGS = 17;
+
+    static final int TAG_KEY = 1;
+
+    static final int TAG_VALUE = 2;
+
+    static final int TIMESTAMP = 6;
+
+    static final int VALUE_METRIC = 9;
+
+    private final ByteBuf buffer;
+
+    private volatile Index index;
+
+    private LazyEnvelope(byte[] encoded) {
+        this.buffer = Unpooled.wrappedBuffer(encoded);
+    }
+
+    /**
+     * The enclosed {@link ContainerMetric}
+     */
+    @Nullable
+    public ContainerMetric getContainerMetric() {
+        return getMessage(CONTAINER_METRIC, org.cloudfoundry.dropsonde.events.ContainerMetric.ADAPTER, ContainerMetric::from);
+    }
+
+    /**
+     * The enclosed {@link CounterEvent}
+     */
+    @Nullable
+    public CounterEvent getCounterEvent() {
+        return getMessage(COUNTER_EVENT, org.cloudfoundry.dropsonde.events.CounterEvent.ADAPTER, CounterEvent::from);
+    }
+
+    /**
+     * Deployment name (used to uniquely identify source)
+     */
+    @Nullable
+    public String getDeployment() {
+        return getString(DEPLOYMENT);
+    }
+
+    /**
+     * The enclosed {@link Error}
+     */
+    @Nullable
+    public Error getError() {
+        return getMessage(ERROR, org.cloudfoundry.dropsonde.events.Error.ADAPTER, Error::from);
+    }
+
+    /**
+     * Type of wrapped event
+     */
+    public EventType getEventType() {
+        Long eventType = getVarint(EVENT_TYPE);
+
+        if (eventType == null) {
+            throw new IllegalStateException("Envelope does not contain an event type");
+        }
+
+        return toEventType(eventType.intValue());
+    }
+
+    /**
+     * The enclosed {@link HttpStartStop}
+     */
+    @Nullable
+    public HttpStartStop getHttpStartStop() {
+        return getMessage(HTTP_START_STOP, org.cloudfoundry.dropsonde.events.HttpStartStop.ADAPTER, HttpStartStop::from);
+    }
+
+    /**
+     * Index of job (used to uniquely identify source)
+     */
+    @Nullable
+    public String getIndex() {
+        return getString(INDEX);
+    }
+
+    /**
+     * IP address (used to uniquely identify source)
+     */
+    @Nullable
+    public String getIp() {
+        return getString(IP);
+    }
+
+    /**
+     * Job name (used to uniquely identify source)
+     */
+    @Nullable
+    public String getJob() {
+        return getString(JOB);
+    }
+
+    /**
+     * The enclosed {@link LogMessage}
+     */
+    @Nullable
+    public LogMessage getLogMessage() {
+        return getMessage(LOG_MESSAGE, org.cloudfoundry.dropsonde.events.LogMessage.ADAPTER, LogMessage::from);
+    }
+
+    /**
+     * Unique description of the origin of this event
+     */
+    public String getOrigin() {
+        String origin = getString(ORIGIN);
+
+        if (origin == null) {
+            throw new IllegalStateException("Envelope does not contain an origin");
+        }
+
+        return origin;
+    }
+
+    /**
+     * key/value tags to include additional identifying information
+     */
+    public Map<String, String> getTags() {
+        List<int[]> tags = index().tags;
+
+        if (tags.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> decoded = new HashMap<>(tags.size() * 2);
+        tags.forEach(tag -> decodeTag(tag[0], tag[1], decoded));
+        return decoded;
+    }
+
+    /**
+     * UNIX timestamp (in nanoseconds) event was wrapped in this Envelope.
+     */
+    @Nullable
+    public Long getTimestamp() {
+        return getVarint(TIMESTAMP);
+    }
+
+    /**
+     * The enclosed {@link ValueMetric}
+     */
+    @Nullable
+    public ValueMetric getValueMetric() {
+        return getMessage(VALUE_METRIC, org.cloudfoundry.dropsonde.events.ValueMetric.ADAPTER, ValueMetric::from);
+    }
+
+    /**
+     * Decodes all fields into an {@link Envelope}
+     */
+    public Envelope toEnvelope() {
+        return Envelope.builder()
+            .containerMetric(getContainerMetric())
+            .counterEvent(getCounterEvent())
+            .deployment(getDeployment())
+            .error(getError())
+            .eventType(getEventType())
+            .httpStartStop(getHttpStartStop())
+            .index(getIndex())
+            .ip(getIp())
+            .job(getJob())
+            .logMessage(getLogMessage())
+            .origin(getOrigin())
+            .tags(getTags())
+            .timestamp(getTimestamp())
+            .valueMetric(getValueMetric())
+            .build();
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return String.format("LazyEnvelope{eventType=%s, origin=%s}", describeEventType(getVarint(EVENT_TYPE)), getString(ORIGIN));
+        } catch (RuntimeException e) {
+            return String.format("LazyEnvelope{malformed, %d bytes}", this.buffer.readableBytes());
+        }
+    }
+
+    static LazyEnvelope from(ByteBuf frame) {
+        byte[] encoded = new byte[frame.readableBytes()];
+        frame.getBytes(frame.readerIndex(), encoded);
+        return new LazyEnvelope(encoded);
+    }
+
+    static EventType toEventType(int eventType) {
+        switch (eventType) {
+            case 4:
+                return EventType.HTTP_START_STOP;
+            case 5:
+                return EventType.LOG_MESSAGE;
+            case 6:
+                return EventType.VALUE_METRIC;
+            case 7:
+                return EventType.COUNTER_EVENT;
+            case 8:
+                return EventType.ERROR;
+            case 9:
+                return EventType.CONTAINER_METRIC;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown event type: %d", eventType));
+        }
+    }
+
+    static int toEventTypeValue(EventType eventType) {
+        switch (eventType) {
+            case HTTP_START_STOP:
+                return 4;
+            case LOG_MESSAGE:
+                return 5;
+            case VALUE_METRIC:
+                return 6;
+            case COUNTER_EVENT:
+                return 7;
+            case ERROR:
+                return 8;
+            case CONTAINER_METRIC:
+                return 9;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown event type: %s", eventType));
+        }
+    }
+
+    @Nullable
+    Long getEventTypeValue() {
+        return getVarint(EVENT_TYPE);
+    }
+
+    @Nullable
+    private static String describeEventType(@Nullable Long eventType) {
+        if (eventType == null) {
+            return null;
+        }
+
+        try {
+            return toEventType(eventType.intValue()).toString();
+        } catch (IllegalArgumentException e) {
+            return eventType.toString();
+        }
+    }
+
+    private void decodeTag(int offset, int length, Map<String, String> decoded) {
+        ByteBuf entry = this.buffer.slice(offset, length);
+        String key = null;
+        String value = null;
+
+        while (entry.isReadable()) {
+            long tag = readVarint(entry);
+            int fieldNumber = getFieldNumber(tag);
+
+            if (getWireType(tag) == WIRE_TYPE_LENGTH_DELIMITED && (fieldNumber == TAG_KEY || fieldNumber == TAG_VALUE)) {
+                int fieldLength = (int) readVarint(entry);
+                String s = entry.toString(entry.readerIndex(), fieldLength, StandardCharsets.UTF_8);
+                entry.skipBytes(fieldLength);
+
+                if (fieldNumber == TAG_KEY) {
+                    key = s;
+                } else {
+                    value = s;
+                }
+            } else {
+                skipField(entry, getWireType(tag));
+            }
+        }
+
+        decoded.put(key == null ? "" : key, value);
+    }
+
+    @Nullable
+    private <D, T> T getMessage(int fieldNumber, ProtoAdapter<D> adapter, Function<D, T> converter) {
+        Index index = index();
+
+        if (index.offsets[fieldNumber] < 0) {
+            return null;
+        }
+
+        int offset = index.offsets[fieldNumber];
+
+        try {
+            return converter.apply(adapter.decode(new ByteBufInputStream(this.buffer.slice(offset, index.lengths[fieldNumber]))));
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    @Nullable
+    private String getString(int fieldNumber) {
+        Index index = index();
+
+        if (index.offsets[fieldNumber] < 0) {
+            return null;
+        }
+
+        return this.buffer.toString(index.offsets[fieldNumber], index.lengths[fieldNumber], StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    private Long getVarint(int fieldNumber) {
+        Index index = index();
+
+        if (index.offsets[fieldNumber] < 0) {
+            return null;
+        }
+
+        return readVarint(this.buffer.duplicate().readerIndex(index.offsets[fieldNumber]));
+    }
+
+    private Index index() {
+        Index index = this.index;
+
+        if (index == null) {
+            index = new Index(this.buffer.duplicate());
+            this.index = index;
+        }
+
+        return index;
+    }
+
+    private static final class Index {
+
+        private final int[] lengths = new int[TAGS + 1];
+
+        private final int[] offsets = new int[TAGS + 1];
+
+        private final List<int[]> tags = new ArrayList<>();
+
+        private Index(ByteBuf buffer) {
+            Arrays.fill(this.offsets, -1);
+
+            while (buffer.isReadable()) {
+                long tag = readVarint(buffer);
+                int fieldNumber = getFieldNumber(tag);
+                int wireType = getWireType(tag);
+
+                if (fieldNumber > TAGS || (wireType != WIRE_TYPE_VARINT && wireType != WIRE_TYPE_LENGTH_DELIMITED)) {
+                    skipField(buffer, wireType);
+                } else if (wireType == WIRE_TYPE_VARINT) {
+                    this.offsets[fieldNumber] = buffer.readerIndex();
+                    readVarint(buffer);
+                } else {
+                    int length = (int) readVarint(buffer);
+
+                    if (fieldNumber == TAGS) {
+                        this.tags.add(new int[]{buffer.readerIndex(), length});
+                    } else {
+                        this.lengths[fieldNumber] = length;
+                        this.offsets[fieldNumber] = buffer.readerIndex();
+                    }
+
+                    buffer.skipBytes(length);
+                }
+            }
+        }
+
+    }
+
+}
@@ -16,25 +16,21 @@
 
 package org.cloudfoundry.reactor.doppler;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.DelimiterBasedFrameDecoder;
 import io.netty.handler.codec.http.HttpHeaderNames;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.netty.ByteBufFlux;
 import reactor.netty.http.client.HttpClientResponse;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 final class MultipartCodec {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(MultipartCodec.class);
-
     private static final Pattern BOUNDARY_PATTERN = Pattern.compile("multipart/.+; boundary=(.*)");
 
     private static final int MAX_PAYLOAD_SIZE = 1024 * 1024;
@@ -52,18 +48,10 @@ final class MultipartCodec {
             Unpooled.copiedBuffer(String.format("\r\n--%s--\r\n", boundary), Charset.defaultCharset()));
     }
 
-    static Flux<InputStream> decode(ByteBufFlux body) {
-        return body.asInputStream()
-            .skip(1)
-            .doOnDiscard(InputStream.class, MultipartCodec::close);
-    }
-
-    private static void close(InputStream in) {
-        try {
-            in.close();
-        } catch (IOException e) {
-            LOGGER.warn("Could not close input stream. This will cause a direct memory leak.", e);
-        }
+    static <T> Flux<T> decode(ByteBufFlux body, Function<ByteBuf, T> partDecoder) {
+        return body
+            .map(partDecoder)
+            .skip(1);
     }
 
     private static String extractMultipartBoundary(HttpClientResponse response) {
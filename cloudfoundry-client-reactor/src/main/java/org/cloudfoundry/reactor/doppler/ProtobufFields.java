@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Utilities for reading the protobuf wire format directly from a {@link ByteBuf}, either from its reader index or from an absolute index without modifying it
+ */
+final class ProtobufFields {
+
+    static final int WIRE_TYPE_FIXED32 = 5;
+
+    static final int WIRE_TYPE_FIXED64 = 1;
+
+    static final int WIRE_TYPE_LENGTH_DELIMITED = 2;
+
+    static final int WIRE_TYPE_VARINT = 0;
+
+    private ProtobufFields() {
+    }
+
+    static int getFieldNumber(long tag) {
+        return (int) (tag >>> 3);
+    }
+
+    static long getVarint(ByteBuf buffer, int index) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.getByte(index++);
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    static int getVarintLength(ByteBuf buffer, int index) {
+        for (int length = 1; length <= 10; length++) {
+            if ((buffer.getByte(index + length - 1) & 0x80) == 0) {
+                return length;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    static int getWireType(long tag) {
+        return (int) (tag & 0x7);
+    }
+
+    static long readVarint(ByteBuf buffer) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.readByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    static void skipField(ByteBuf buffer, int wireType) {
+        switch (wireType) {
+            case WIRE_TYPE_VARINT:
+                readVarint(buffer);
+                break;
+            case WIRE_TYPE_FIXED64:
+                buffer.skipBytes(8);
+                break;
+            case WIRE_TYPE_LENGTH_DELIMITED:
+                buffer.skipBytes((int) readVarint(buffer));
+                break;
+            case WIRE_TYPE_FIXED32:
+                buffer.skipBytes(4);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported wire type: %d", wireType));
+        }
+    }
+
+    /**
+     * Returns the index of the first byte after a field whose value starts at {@code index}
+     */
+    static int skipField(ByteBuf buffer, int index, int wireType) {
+        switch (wireType) {
+            case WIRE_TYPE_VARINT:
+                return index + getVarintLength(buffer, index);
+            case WIRE_TYPE_FIXED64:
+                return index + 8;
+            case WIRE_TYPE_LENGTH_DELIMITED:
+                return index + getVarintLength(buffer, index) + (int) getVarint(buffer, index);
+            case WIRE_TYPE_FIXED32:
+                return index + 4;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported wire type: %d", wireType));
+        }
+    }
+
+}
@@ -16,53 +16,162 @@
 
 package org.cloudfoundry.reactor.doppler;
 
+import org.cloudfoundry.Nullable;
 import org.cloudfoundry.doppler.ContainerMetricsRequest;
 import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EnvelopeFilter;
 import org.cloudfoundry.doppler.FirehoseRequest;
+import org.cloudfoundry.doppler.OverflowPolicy;
 import org.cloudfoundry.doppler.RecentLogsRequest;
+import org.cloudfoundry.doppler.ReconnectPolicy;
 import org.cloudfoundry.doppler.StreamRequest;
 import org.cloudfoundry.reactor.ConnectionContext;
 import org.cloudfoundry.reactor.TokenProvider;
-import reactor.core.Exceptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 final class ReactorDopplerEndpoints extends AbstractDopplerOperations {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client.doppler");
+
+    private final FluxSink<ReconnectEvent> reconnectEventSink;
+
+    private final DirectProcessor<ReconnectEvent> reconnectEvents = DirectProcessor.create();
+
     ReactorDopplerEndpoints(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider, Map<String, String> requestTags) {
         super(connectionContext, root, tokenProvider, requestTags);
+        this.reconnectEventSink = this.reconnectEvents.sink();
     }
 
     Flux<Envelope> containerMetrics(ContainerMetricsRequest request) {
-        return get(builder -> builder.pathSegment("apps", request.getApplicationId(), "containermetrics"), MultipartCodec::createDecoder, MultipartCodec::decode).map(ReactorDopplerEndpoints::toEnvelope)
+        return get(builder -> builder.pathSegment("apps", request.getApplicationId(), "containermetrics"), MultipartCodec::createDecoder, body -> MultipartCodec.decode(body, LazyEnvelope::from))
+            .map(LazyEnvelope::toEnvelope)
             .checkpoint();
     }
 
     Flux<Envelope> firehose(FirehoseRequest request) {
-        return ws(builder -> builder.pathSegment("firehose", request.getSubscriptionId())).map(ReactorDopplerEndpoints::toEnvelope)
+        return lazyFirehose(request)
+            .map(LazyEnvelope::toEnvelope)
+            .checkpoint();
+    }
+
+    Flux<LazyEnvelope> lazyFirehose(FirehoseRequest request) {
+        int shards = Optional.ofNullable(request.getShards()).orElse(1);
+        String stream = String.format("firehose/%s", request.getSubscriptionId());
+
+        Flux<LazyEnvelope> envelopes = shards > 1 ? shardedFirehose(request, shards, stream) : reconnecting(firehoseConnection(request, request.getReconnectPolicy()), request.getReconnectPolicy(), stream);
+
+        return buffered(envelopes, request.getOverflowPolicy(), stream)
+            .checkpoint();
+    }
+
+    Flux<LazyEnvelope> lazyStream(StreamRequest request) {
+        String stream = String.format("stream/%s", request.getApplicationId());
+
+        Flux<LazyEnvelope> envelopes = reconnecting(connect(builder -> builder.pathSegment("apps", request.getApplicationId(), "stream"), request.getFilter(), request.getReconnectPolicy()),
+            request.getReconnectPolicy(), stream);
+
+        return buffered(envelopes, request.getOverflowPolicy(), stream)
             .checkpoint();
     }
 
     Flux<Envelope> recentLogs(RecentLogsRequest request) {
-        return get(builder -> builder.pathSegment("apps", request.getApplicationId(), "recentlogs"), MultipartCodec::createDecoder, MultipartCodec::decode).map(ReactorDopplerEndpoints::toEnvelope)
+        return get(builder -> builder.pathSegment("apps", request.getApplicationId(), "recentlogs"), MultipartCodec::createDecoder, body -> MultipartCodec.decode(body, LazyEnvelope::from))
+            .map(LazyEnvelope::toEnvelope)
             .checkpoint();
     }
 
+    Flux<ReconnectEvent> reconnectEvents() {
+        return this.reconnectEvents;
+    }
+
     Flux<Envelope> stream(StreamRequest request) {
-        return ws(builder -> builder.pathSegment("apps", request.getApplicationId(), "stream")).map(ReactorDopplerEndpoints::toEnvelope)
+        return lazyStream(request)
+            .map(LazyEnvelope::toEnvelope)
             .checkpoint();
     }
 
-    private static Envelope toEnvelope(InputStream content) {
-        try (InputStream in = content) {
-            return Envelope.from(org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.decode(in));
-        } catch (IOException e) {
-            throw Exceptions.propagate(e);
+    private static Flux<LazyEnvelope> buffered(Flux<LazyEnvelope> envelopes, @Nullable OverflowPolicy overflowPolicy, String stream) {
+        if (overflowPolicy == null) {
+            return envelopes;
+        }
+
+        return Flux.using(
+            () -> {
+                EnvelopeBuffer envelopeBuffer = new EnvelopeBuffer(overflowPolicy, stream);
+                envelopeBuffer.register();
+                return envelopeBuffer;
+            },
+            envelopeBuffer -> envelopeBuffer.buffer(envelopes),
+            EnvelopeBuffer::unregister);
+    }
+
+    private Flux<LazyEnvelope> connect(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, @Nullable EnvelopeFilter filter, @Nullable ReconnectPolicy reconnectPolicy) {
+        if (reconnectPolicy == null) {
+            return ws(uriTransformer, EnvelopeFilterMatcher.of(filter), LazyEnvelope::from);
         }
+
+        return ws(uriTransformer, EnvelopeFilterMatcher.of(filter), LazyEnvelope::from, reconnectPolicy.getKeepAliveInterval(), reconnectPolicy.getIdleTimeout());
+    }
+
+    private void disconnected(ReconnectingStream reconnectingStream, ReconnectReason reason, @Nullable Throwable cause) {
+        ReconnectEvent event = reconnectingStream.disconnected(reason, cause);
+        LOGGER.warn("Stream {} lost its connection ({}) and will reconnect in {}", event.getStream(), reason, event.getDelay(), cause);
+
+        this.reconnectEventSink.next(event);
+    }
+
+    private Flux<LazyEnvelope> firehoseConnection(FirehoseRequest request, @Nullable ReconnectPolicy reconnectPolicy) {
+        return connect(builder -> builder.pathSegment("firehose", request.getSubscriptionId()), request.getFilter(), reconnectPolicy);
+    }
+
+    private Flux<LazyEnvelope> reconnecting(Flux<LazyEnvelope> connection, @Nullable ReconnectPolicy reconnectPolicy, String stream) {
+        if (reconnectPolicy == null) {
+            return connection;
+        }
+
+        return Flux.using(
+            () -> {
+                ReconnectingStream reconnectingStream = new ReconnectingStream(stream, reconnectPolicy);
+                reconnectingStream.register();
+                return reconnectingStream;
+            },
+            reconnectingStream -> Flux.defer(() -> Mono.delay(reconnectingStream.getReconnectDelay())
+                .thenMany(connection
+                    .doOnSubscribe(subscription -> reconnectingStream.connected())
+                    .doOnNext(envelope -> reconnectingStream.received())
+                    .doOnComplete(() -> disconnected(reconnectingStream, ReconnectReason.CLOSED, null))))
+                .onErrorResume(t -> {
+                    ReconnectReason reason = ReconnectingStream.getReason(t);
+
+                    if (reason == ReconnectReason.REJECTED) {
+                        this.tokenProvider.invalidate(this.connectionContext);
+                    }
+
+                    disconnected(reconnectingStream, reason, t);
+                    return Mono.empty();
+                })
+                .repeat(),
+            ReconnectingStream::unregister);
+    }
+
+    private Flux<LazyEnvelope> shardedFirehose(FirehoseRequest request, int shards, String stream) {
+        ReconnectPolicy reconnectPolicy = Optional.ofNullable(request.getReconnectPolicy()).orElseGet(() -> ReconnectPolicy.builder().build());
+
+        return Flux.merge(IntStream.range(0, shards)
+            .mapToObj(index -> reconnecting(firehoseConnection(request, reconnectPolicy), reconnectPolicy, String.format("%s/%d", stream, index)))
+            .collect(Collectors.toList()));
     }
 
 }
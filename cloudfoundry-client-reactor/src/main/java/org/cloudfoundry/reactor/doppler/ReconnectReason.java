@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+/**
+ * The reason a reconnecting stream lost its connection
+ */
+public enum ReconnectReason {
+
+    /**
+     * The connection was closed by the server
+     */
+    CLOSED,
+
+    /**
+     * The connection failed
+     */
+    ERROR,
+
+    /**
+     * No frame was received within the idle timeout
+     */
+    IDLE,
+
+    /**
+     * The websocket handshake was rejected, typically because the token has expired
+     */
+    REJECTED
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.handler.codec.http.websocketx.WebSocketHandshakeException;
+import org.cloudfoundry.Nullable;
+import org.cloudfoundry.doppler.ReconnectPolicy;
+import org.cloudfoundry.util.DelayUtils;
+
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class ReconnectingStream implements ReconnectingStreamMXBean {
+
+    private final AtomicLong attempts = new AtomicLong();
+
+    private final AtomicBoolean connected = new AtomicBoolean();
+
+    private final AtomicLong connections = new AtomicLong();
+
+    private final AtomicLong disconnectedAt = new AtomicLong(-1);
+
+    private final AtomicLong disconnectedTime = new AtomicLong();
+
+    private final AtomicLong envelopes = new AtomicLong();
+
+    private final AtomicLong idleTimeouts = new AtomicLong();
+
+    private final AtomicLong lastEnvelope = new AtomicLong(-1);
+
+    private final ReconnectPolicy policy;
+
+    private final AtomicLong reconnects = new AtomicLong();
+
+    private final String stream;
+
+    private Optional<ObjectName> name = Optional.empty();
+
+    private volatile Duration reconnectDelay = Duration.ZERO;
+
+    ReconnectingStream(String stream, ReconnectPolicy policy) {
+        this.policy = policy;
+        this.stream = stream;
+    }
+
+    @Override
+    public long getConnections() {
+        return this.connections.get();
+    }
+
+    @Override
+    public long getDisconnectedTime() {
+        long disconnectedAt = this.disconnectedAt.get();
+        long current = disconnectedAt < 0 ? 0 : System.nanoTime() - disconnectedAt;
+
+        return TimeUnit.NANOSECONDS.toMillis(this.disconnectedTime.get() + current);
+    }
+
+    @Override
+    public long getEnvelopes() {
+        return this.envelopes.get();
+    }
+
+    @Override
+    public long getIdleTime() {
+        long lastEnvelope = this.lastEnvelope.get();
+        return lastEnvelope < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastEnvelope);
+    }
+
+    @Override
+    public long getIdleTimeouts() {
+        return this.idleTimeouts.get();
+    }
+
+    @Override
+    public long getReconnects() {
+        return this.reconnects.get();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.connected.get();
+    }
+
+    static ReconnectReason getReason(Throwable t) {
+        if (t instanceof WebSocketHandshakeException) {
+            return ReconnectReason.REJECTED;
+        }
+
+        if (t instanceof TimeoutException) {
+            return ReconnectReason.IDLE;
+        }
+
+        return ReconnectReason.ERROR;
+    }
+
+    void connected() {
+        this.connected.set(true);
+        this.connections.incrementAndGet();
+
+        long disconnectedAt = this.disconnectedAt.getAndSet(-1);
+        if (disconnectedAt >= 0) {
+            this.disconnectedTime.addAndGet(System.nanoTime() - disconnectedAt);
+        }
+    }
+
+    ReconnectEvent disconnected(ReconnectReason reason, @Nullable Throwable cause) {
+        this.connected.set(false);
+        this.disconnectedAt.set(System.nanoTime());
+        this.reconnects.incrementAndGet();
+
+        if (reason == ReconnectReason.IDLE) {
+            this.idleTimeouts.incrementAndGet();
+        }
+
+        long attempt = this.attempts.getAndIncrement();
+        this.reconnectDelay = DelayUtils.exponentialBackOffWithJitter(this.policy.getMinimumBackoff(), this.policy.getMaximumBackoff(), attempt);
+
+        long lastEnvelope = this.lastEnvelope.get();
+
+        return ReconnectEvent.builder()
+            .attempt(attempt + 1)
+            .cause(cause)
+            .delay(this.reconnectDelay)
+            .disconnected(Instant.now())
+            .lastEnvelope(lastEnvelope < 0 ? null : Instant.now().minusNanos(System.nanoTime() - lastEnvelope))
+            .reason(reason)
+            .stream(this.stream)
+            .build();
+    }
+
+    Duration getReconnectDelay() {
+        return this.reconnectDelay;
+    }
+
+    void received() {
+        this.attempts.set(0);
+        this.envelopes.incrementAndGet();
+        this.lastEnvelope.set(System.nanoTime());
+    }
+
+    void register() {
+        this.name = DopplerMBeans.register("ReconnectingStream", this.stream, this);
+    }
+
+    void unregister() {
+        DopplerMBeans.unregister(this.name);
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+public interface ReconnectingStreamMXBean {
+
+    /**
+     * Returns the number of connections made by this stream, including reconnects
+     */
+    long getConnections();
+
+    /**
+     * Returns the total time, in milliseconds, this stream has spent disconnected after its first connection
+     */
+    long getDisconnectedTime();
+
+    /**
+     * Returns the number of envelopes received by this stream
+     */
+    long getEnvelopes();
+
+    /**
+     * Returns the time, in milliseconds, since this stream last received an envelope, or {@code -1} if it has never received one
+     */
+    long getIdleTime();
+
+    /**
+     * Returns the number of connections replaced because no frame was received within the idle timeout
+     */
+    long getIdleTimeouts();
+
+    /**
+     * Returns the number of times this stream has lost its connection
+     */
+    long getReconnects();
+
+    /**
+     * Returns whether this stream is currently connected
+     */
+    boolean isConnected();
+
+}
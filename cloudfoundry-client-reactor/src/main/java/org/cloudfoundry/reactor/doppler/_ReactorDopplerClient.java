@@ -47,11 +47,40 @@ abstract class _ReactorDopplerClient implements DopplerClient {
         return getDopplerEndpoints().firehose(request);
     }
 
+    /**
+     * Makes the Firehose request, returning envelopes whose fields are decoded only when accessed
+     *
+     * @param request the Firehose request
+     * @return the events from the firehose
+     */
+    public Flux<LazyEnvelope> lazyFirehose(FirehoseRequest request) {
+        return getDopplerEndpoints().lazyFirehose(request);
+    }
+
+    /**
+     * Makes the Stream request, returning envelopes whose fields are decoded only when accessed
+     *
+     * @param request the Stream request
+     * @return the events from the stream
+     */
+    public Flux<LazyEnvelope> lazyStream(StreamRequest request) {
+        return getDopplerEndpoints().lazyStream(request);
+    }
+
     @Override
     public Flux<Envelope> recentLogs(RecentLogsRequest request) {
         return getDopplerEndpoints().recentLogs(request);
     }
 
+    /**
+     * Returns the events signalled when a stream with a {@link org.cloudfoundry.doppler.ReconnectPolicy} loses its connection. Events are only delivered to current subscribers.
+     *
+     * @return the reconnect events of all streams made by this client
+     */
+    public Flux<ReconnectEvent> reconnectEvents() {
+        return getDopplerEndpoints().reconnectEvents();
+    }
+
     @Override
     public Flux<Envelope> stream(StreamRequest request) {
         return getDopplerEndpoints().stream(request);
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import org.cloudfoundry.Nullable;
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * An event signalling that a reconnecting stream lost its connection and will reconnect. Envelopes sent between {@link #getLastEnvelope()} and the first envelope after reconnection may have
+ * been lost.
+ */
+@Value.Immutable
+abstract class _ReconnectEvent {
+
+    /**
+     * The number of consecutive reconnects since an envelope was last received
+     */
+    public abstract Long getAttempt();
+
+    /**
+     * The cause of the lost connection, if it failed
+     */
+    @Nullable
+    public abstract Throwable getCause();
+
+    /**
+     * The delay before reconnecting
+     */
+    public abstract Duration getDelay();
+
+    /**
+     * The time the connection was lost
+     */
+    public abstract Instant getDisconnected();
+
+    /**
+     * The time the last envelope was received, if one has been received
+     */
+    @Nullable
+    public abstract Instant getLastEnvelope();
+
+    /**
+     * The reason the connection was lost
+     */
+    public abstract ReconnectReason getReason();
+
+    /**
+     * The stream that lost its connection, for example {@code firehose/<subscription-id>} or {@code stream/<application-id>}
+     */
+    public abstract String getStream();
+
+}
@@ -17,6 +17,7 @@
 package org.cloudfoundry.reactor.networking;
 
 import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.Endpoint;
 import org.cloudfoundry.reactor.TokenProvider;
 import org.cloudfoundry.reactor.client.QueryBuilder;
 import org.cloudfoundry.reactor.util.AbstractReactorOperations;
@@ -29,7 +30,7 @@ import java.util.function.Function;
 public abstract class AbstractNetworkingOperations extends AbstractReactorOperations {
 
     protected AbstractNetworkingOperations(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider, Map<String, String> requestTags) {
-        super(connectionContext, root, tokenProvider, requestTags);
+        super(connectionContext, Endpoint.NETWORKING, root, tokenProvider, requestTags);
     }
 
     protected final <T> Mono<T> get(Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
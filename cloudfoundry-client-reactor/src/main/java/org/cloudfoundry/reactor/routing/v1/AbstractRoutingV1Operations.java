@@ -18,6 +18,7 @@ package org.cloudfoundry.reactor.routing.v1;
 
 import io.netty.channel.ChannelHandler;
 import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.Endpoint;
 import org.cloudfoundry.reactor.TokenProvider;
 import org.cloudfoundry.reactor.util.AbstractReactorOperations;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -32,7 +33,7 @@ import java.util.function.Function;
 public abstract class AbstractRoutingV1Operations extends AbstractReactorOperations {
 
     protected AbstractRoutingV1Operations(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider, Map<String, String> requestTags) {
-        super(connectionContext, root, tokenProvider, requestTags);
+        super(connectionContext, Endpoint.ROUTING, root, tokenProvider, requestTags);
     }
 
     protected final <T> Mono<T> get(Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
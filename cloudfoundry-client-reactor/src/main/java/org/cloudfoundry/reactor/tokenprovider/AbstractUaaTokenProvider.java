@@ -23,6 +23,7 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.util.AsciiString;
 import org.cloudfoundry.Nullable;
 import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.Endpoint;
 import org.cloudfoundry.reactor.TokenProvider;
 import org.cloudfoundry.reactor.util.ErrorPayloadMappers;
 import org.cloudfoundry.reactor.util.JsonCodec;
@@ -34,22 +35,38 @@ import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.ReplayProcessor;
+import reactor.core.scheduler.Schedulers;
 import reactor.netty.ByteBufFlux;
 import reactor.netty.http.client.HttpClientForm;
 import reactor.netty.http.client.HttpClientRequest;
 
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -70,6 +87,10 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
 
     private static final String AUTHORIZATION_ENDPOINT = "authorization_endpoint";
 
+    private static final Duration DEFAULT_REFRESH_TOKEN_DURATION = Duration.ofDays(30);
+
+    private static final AtomicLong INSTANCES = new AtomicLong();
+
     private static final String REFRESH_TOKEN = "refresh_token";
 
     private static final String TOKEN_TYPE = "token_type";
@@ -78,10 +99,38 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
 
     private final ConcurrentMap<ConnectionContext, Mono<String>> accessTokens = new ConcurrentHashMap<>(1);
 
+    private final long instance = INSTANCES.incrementAndGet();
+
+    private final AtomicBoolean monitored = new AtomicBoolean();
+
+    private final Set<ConnectionContext> persistedRefreshTokensRead = ConcurrentHashMap.newKeySet();
+
     private final ConcurrentMap<ConnectionContext, RefreshToken> refreshTokenStreams = new ConcurrentHashMap<>(1);
 
     private final ConcurrentMap<ConnectionContext, Mono<String>> refreshTokens = new ConcurrentHashMap<>(1);
 
+    private final ConcurrentMap<ConnectionContext, Disposable> scheduledRefreshes = new ConcurrentHashMap<>(1);
+
+    private final TokenRefreshMetrics tokenRefreshMetrics = new TokenRefreshMetrics();
+
+    private volatile String credentialsDigest;
+
+    private volatile boolean disposed;
+
+    private volatile Optional<ObjectName> tokenRefreshName = Optional.empty();
+
+    /**
+     * Cancels the background renegotiation of tokens
+     */
+    @PreDestroy
+    public void dispose() {
+        this.disposed = true;
+        this.scheduledRefreshes.values().forEach(Disposable::dispose);
+        this.scheduledRefreshes.clear();
+
+        TokenProviderMBeans.unregister(this.tokenRefreshName);
+    }
+
     /**
      * The client id. Defaults to {@code cf}.
      */
@@ -98,6 +147,12 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
         return "";
     }
 
+    /**
+     * The fraction of an access token's lifetime after which it is renegotiated in the background.  Must be greater than zero and less than one.  If not set, tokens are only renegotiated once
+     * they have been rejected.
+     */
+    public abstract Optional<Double> getRefreshFraction();
+
     /**
      * Returns a {@link Flux} of refresh tokens for a connection
      *
@@ -110,12 +165,61 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
 
     @Override
     public final Mono<String> getToken(ConnectionContext connectionContext) {
-        return this.accessTokens.computeIfAbsent(connectionContext, this::token);
+        return getTokenCache()
+            .map(tokenCache -> tokenCache.getAccessToken(getCacheKey(connectionContext), () -> token(connectionContext)))
+            .orElseGet(() -> this.accessTokens.computeIfAbsent(connectionContext, this::token));
+    }
+
+    /**
+     * A cache of tokens shared between token providers.  If set, tokens are stored in the cache, keyed by connection and grant identity, rather than in this token provider.
+     */
+    public abstract Optional<TokenCache> getTokenCache();
+
+    /**
+     * Returns the metrics for background token refreshes
+     */
+    public TokenRefreshMXBean getTokenRefreshMetrics() {
+        return this.tokenRefreshMetrics;
     }
 
     @Override
     public void invalidate(ConnectionContext connectionContext) {
-        this.accessTokens.put(connectionContext, token(connectionContext));
+        putAccessToken(connectionContext, token(connectionContext));
+    }
+
+    static Optional<Duration> refreshDelay(Claims claims, double fraction) {
+        if (claims.getIssuedAt() == null || claims.getExpiration() == null) {
+            return Optional.empty();
+        }
+
+        long lifetime = claims.getExpiration().getTime() - claims.getIssuedAt().getTime();
+        if (lifetime <= 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(Duration.ofMillis((long) (lifetime * fraction)));
+    }
+
+    @Value.Check
+    void checkRefreshFraction() {
+        getRefreshFraction()
+            .filter(fraction -> fraction <= 0 || fraction >= 1)
+            .ifPresent(fraction -> {
+                throw new IllegalStateException(String.format("Cannot build token provider, refreshFraction %s must be greater than 0 and less than 1", fraction));
+            });
+    }
+
+    List<Object> getCacheKey(ConnectionContext connectionContext) {
+        return Arrays.asList(connectionContext, getClass(), getIdentityZoneSubdomain(), getClientId(), getCredentialsDigest());
+    }
+
+    /**
+     * Returns every value, other than the client and identity zone, that the grant submits to negotiate a token.  Every credential must be included so that providers that differ only in a
+     * credential never share a cached token.
+     */
+    @Nullable
+    Object getGrantCredentials() {
+        return null;
     }
 
     /**
@@ -124,6 +228,12 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
     @Nullable
     abstract String getIdentityZoneSubdomain();
 
+    Mono<String> getPersistenceKey(ConnectionContext connectionContext) {
+        return connectionContext.getRootProvider().getRoot(connectionContext)
+            .map(root -> String.format("%s:%s", REFRESH_TOKEN,
+                digest(Arrays.asList(getClass().getName(), root, getIdentityZoneSubdomain(), getClientId(), getCredentialsDigest()).toString())));
+    }
+
     /**
      * Transforms an {@code HttpClientRequest} and an {@code HttpClientForm} in order to make a request that negotiates an access token.
      *
@@ -132,6 +242,21 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
      */
     abstract void tokenRequestTransformer(HttpClientRequest request, HttpClientForm form);
 
+    private static String digest(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
     private static String extractAccessToken(Map<String, String> payload) {
         String accessToken = payload.get(ACCESS_TOKEN);
 
@@ -147,6 +272,14 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
         return String.format("%s %s", payload.get(TOKEN_TYPE), accessToken);
     }
 
+    private static Duration getRefreshTokenTimeToLive(String refreshToken) {
+        return parseToken(refreshToken)
+            .map(Claims::getExpiration)
+            .map(expiration -> Duration.between(Instant.now(), expiration.toInstant()))
+            .filter(timeToLive -> !timeToLive.isNegative())
+            .orElse(DEFAULT_REFRESH_TOKEN_DURATION);
+    }
+
     private static Optional<Claims> parseToken(String token) {
         try {
             String jws = token.substring(0, token.lastIndexOf('.') + 1);
@@ -182,9 +315,19 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
         JsonCodec.setDecodeHeaders(httpHeaders);
     }
 
+    private void cacheRefreshToken(ConnectionContext connectionContext, String refreshToken) {
+        Optional<TokenCache> tokenCache = getTokenCache();
+
+        if (tokenCache.isPresent()) {
+            tokenCache.get().putRefreshToken(getCacheKey(connectionContext), refreshToken);
+        } else {
+            this.refreshTokens.put(connectionContext, Mono.just(refreshToken));
+        }
+    }
+
     private Operator createOperator(ConnectionContext connectionContext, String root) {
         OperatorContext context = OperatorContext.of(connectionContext, root);
-        return new Operator(context, connectionContext.getHttpClient()).withErrorPayloadMapper(ErrorPayloadMappers.uaa(connectionContext.getObjectMapper()));
+        return new Operator(context, connectionContext.getHttpClient(Endpoint.UAA)).withErrorPayloadMapper(ErrorPayloadMappers.uaa(connectionContext.getObjectMapper()));
     }
 
     private Consumer<Map<String, String>> extractRefreshToken(ConnectionContext connectionContext) {
@@ -199,19 +342,114 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
                     });
                 }
 
-                this.refreshTokens.put(connectionContext, Mono.just(refreshToken));
+                putRefreshToken(connectionContext, refreshToken);
                 getRefreshTokenStream(connectionContext).sink.next(refreshToken);
             });
     }
 
+    private String getCredentialsDigest() {
+        String credentialsDigest = this.credentialsDigest;
+
+        if (credentialsDigest == null) {
+            credentialsDigest = digest(Arrays.asList(getClientSecret(), getGrantCredentials()).toString());
+            this.credentialsDigest = credentialsDigest;
+        }
+
+        return credentialsDigest;
+    }
+
+    private String getMBeanName() {
+        return Optional.ofNullable(getIdentityZoneSubdomain())
+            .map(identityZoneSubdomain -> String.format("%s/%s/%s/%d", getClass().getSimpleName(), identityZoneSubdomain, getClientId(), this.instance))
+            .orElseGet(() -> String.format("%s/%s/%d", getClass().getSimpleName(), getClientId(), this.instance));
+    }
+
+    private Mono<String> getPersistedRefreshToken(ConnectionContext connectionContext) {
+        return connectionContext.getStateStore()
+            .map(stateStore -> Mono.defer(() -> {
+                if (this.persistedRefreshTokensRead.contains(connectionContext)) {
+                    return Mono.empty();
+                }
+
+                return getPersistenceKey(connectionContext)
+                    .flatMap(stateStore::get)
+                    .doOnNext(refreshToken -> {
+                        LOGGER.debug("Resuming with persisted refresh token");
+                        cacheRefreshToken(connectionContext, refreshToken);
+                    })
+                    .doOnError(t -> LOGGER.warn("Unable to read persisted refresh token", t))
+                    .onErrorResume(t -> Mono.empty())
+                    .doFinally(signalType -> this.persistedRefreshTokensRead.add(connectionContext));
+            }))
+            .orElse(Mono.empty());
+    }
+
+    private Mono<String> getRefreshToken(ConnectionContext connectionContext) {
+        return getTokenCache()
+            .map(tokenCache -> Mono.defer(() -> Mono.justOrEmpty(tokenCache.getRefreshToken(getCacheKey(connectionContext)))))
+            .orElseGet(() -> this.refreshTokens.getOrDefault(connectionContext, Mono.empty()))
+            .switchIfEmpty(getPersistedRefreshToken(connectionContext));
+    }
+
     private RefreshToken getRefreshTokenStream(ConnectionContext connectionContext) {
         return this.refreshTokenStreams.computeIfAbsent(connectionContext, c -> new RefreshToken());
     }
 
+    private void monitorTokenRefreshes() {
+        if (this.monitored.compareAndSet(false, true)) {
+            this.tokenRefreshName = TokenProviderMBeans.register("TokenRefresh", getMBeanName(), this.tokenRefreshMetrics);
+        }
+    }
+
+    private void persistRefreshToken(ConnectionContext connectionContext, String refreshToken) {
+        connectionContext.getStateStore()
+            .ifPresent(stateStore -> getPersistenceKey(connectionContext)
+                .flatMap(key -> stateStore.put(key, refreshToken, getRefreshTokenTimeToLive(refreshToken)))
+                .doOnError(t -> LOGGER.warn("Unable to persist refresh token", t))
+                .onErrorResume(t -> Mono.empty())
+                .subscribe());
+    }
+
     private Mono<String> primaryToken(ConnectionContext connectionContext) {
         return requestToken(connectionContext, this::tokenRequestTransformer, tokensExtractor(connectionContext));
     }
 
+    private void putAccessToken(ConnectionContext connectionContext, Mono<String> accessToken) {
+        Optional<TokenCache> tokenCache = getTokenCache();
+
+        if (tokenCache.isPresent()) {
+            tokenCache.get().putAccessToken(getCacheKey(connectionContext), accessToken);
+        } else {
+            this.accessTokens.put(connectionContext, accessToken);
+        }
+    }
+
+    private void putRefreshToken(ConnectionContext connectionContext, String refreshToken) {
+        cacheRefreshToken(connectionContext, refreshToken);
+        persistRefreshToken(connectionContext, refreshToken);
+    }
+
+    private void refresh(ConnectionContext connectionContext) {
+        if (getTokenCache().map(tokenCache -> !tokenCache.contains(getCacheKey(connectionContext))).orElse(false)) {
+            LOGGER.debug("Not renegotiating token for identity no longer cached");
+            this.scheduledRefreshes.remove(connectionContext);
+            return;
+        }
+
+        Mono<String> token = token(connectionContext);
+
+        token
+            .elapsed()
+            .doOnSubscribe(s -> LOGGER.debug("Renegotiating token before expiration"))
+            .subscribe(tuple -> {
+                this.tokenRefreshMetrics.success(tuple.getT1());
+                putAccessToken(connectionContext, token);
+            }, t -> {
+                this.tokenRefreshMetrics.failure();
+                LOGGER.warn("Unable to renegotiate token before expiration", t);
+            });
+    }
+
     private Mono<String> refreshToken(ConnectionContext connectionContext, String refreshToken) {
         return requestToken(connectionContext, refreshTokenGrantTokenRequestTransformer(refreshToken), tokensExtractor(connectionContext))
             .onErrorResume(t -> t instanceof UaaException && ((UaaException) t).getStatusCode() == HttpResponseStatus.UNAUTHORIZED.code(), t -> Mono.empty());
@@ -237,17 +475,38 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
                 .parseBodyToMono(responseWithBody -> tokenExtractor.apply(responseWithBody.getBody())));
     }
 
+    private void scheduleRefresh(ConnectionContext connectionContext, String accessToken) {
+        if (this.disposed) {
+            return;
+        }
+
+        getRefreshFraction()
+            .flatMap(fraction -> parseToken(accessToken.substring(accessToken.indexOf(' ') + 1))
+                .flatMap(claims -> refreshDelay(claims, fraction)))
+            .ifPresent(delay -> {
+                monitorTokenRefreshes();
+
+                Disposable previous = this.scheduledRefreshes.put(connectionContext,
+                    Schedulers.parallel().schedule(() -> refresh(connectionContext), delay.toMillis(), TimeUnit.MILLISECONDS));
+
+                if (previous != null) {
+                    previous.dispose();
+                }
+            });
+    }
+
     private void setAuthorization(HttpHeaders headers) {
         String encoded = Base64.getEncoder().encodeToString(new AsciiString(getClientId()).concat(":").concat(getClientSecret()).toByteArray());
         headers.set(AUTHORIZATION, String.format("Basic %s", encoded));
     }
 
     private Mono<String> token(ConnectionContext connectionContext) {
-        Mono<String> cached = this.refreshTokens.getOrDefault(connectionContext, Mono.empty())
+        Mono<String> cached = getRefreshToken(connectionContext)
             .flatMap(refreshToken -> refreshToken(connectionContext, refreshToken)
                 .doOnSubscribe(s -> LOGGER.debug("Negotiating using refresh token")))
             .switchIfEmpty(primaryToken(connectionContext)
-                .doOnSubscribe(s -> LOGGER.debug("Negotiating using token provider")));
+                .doOnSubscribe(s -> LOGGER.debug("Negotiating using token provider")))
+            .doOnNext(accessToken -> scheduleRefresh(connectionContext, accessToken));
 
         return connectionContext.getCacheDuration()
             .map(cached::cache)
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.tokenprovider;
+
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, least-recently-used cache of access and refresh tokens that can be shared between many {@link AbstractUaaTokenProvider}s.  Tokens are keyed by connection and grant identity, so
+ * that many users and clients can be impersonated over a single {@link org.cloudfoundry.reactor.ConnectionContext} without the memory used growing with the number of identities ever seen.
+ * Identities that have not been used to request a token within the time-to-live are removed, and are no longer renegotiated in the background.  Credentials are never used as keys directly; only
+ * their digests are retained.  Its metrics are registered as an MBean until the cache is disposed.
+ */
+public final class TokenCache implements TokenCacheMXBean {
+
+    private final Map<Object, Entry> entries;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong expirations = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final Optional<ObjectName> name;
+
+    private final long timeToLive;
+
+    /**
+     * Creates a new instance
+     *
+     * @param name        the name to register the cache's MBean with
+     * @param maximumSize the maximum number of identities to cache
+     * @param timeToLive  the time after its last use that an identity is removed
+     */
+    public TokenCache(String name, int maximumSize, Duration timeToLive) {
+        this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 3815569470327935622L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                boolean evict = size() > maximumSize;
+
+                if (evict) {
+                    TokenCache.this.evictions.incrementAndGet();
+                }
+
+                return evict;
+            }
+
+        };
+        this.timeToLive = timeToLive.toNanos();
+        this.name = TokenProviderMBeans.register("TokenCache", name, this);
+    }
+
+    /**
+     * Unregisters the cache's MBean
+     */
+    @PreDestroy
+    public void dispose() {
+        TokenProviderMBeans.unregister(this.name);
+    }
+
+    @Override
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    @Override
+    public long getExpirations() {
+        return this.expirations.get();
+    }
+
+    @Override
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return this.entries.size();
+    }
+
+    synchronized boolean contains(Object key) {
+        return lookup(key, false) != null;
+    }
+
+    synchronized Mono<String> getAccessToken(Object key, Supplier<Mono<String>> negotiation) {
+        Entry entry = lookup(key, true);
+
+        if (entry != null && entry.accessToken != null) {
+            this.hits.incrementAndGet();
+            return entry.accessToken;
+        }
+
+        this.misses.incrementAndGet();
+        Mono<String> accessToken = negotiation.get();
+        getOrCreate(key).accessToken = accessToken;
+
+        return accessToken;
+    }
+
+    synchronized String getRefreshToken(Object key) {
+        Entry entry = lookup(key, false);
+        return entry == null ? null : entry.refreshToken;
+    }
+
+    synchronized void putAccessToken(Object key, Mono<String> accessToken) {
+        getOrCreate(key).accessToken = accessToken;
+    }
+
+    synchronized void putRefreshToken(Object key, String refreshToken) {
+        getOrCreate(key).refreshToken = refreshToken;
+    }
+
+    private Entry getOrCreate(Object key) {
+        Entry entry = lookup(key, false);
+
+        if (entry == null) {
+            entry = new Entry(System.nanoTime() + this.timeToLive);
+            this.entries.put(key, entry);
+        }
+
+        return entry;
+    }
+
+    private Entry lookup(Object key, boolean use) {
+        Entry entry = this.entries.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        if (entry.expiration - now <= 0) {
+            this.entries.remove(key);
+            this.expirations.incrementAndGet();
+            return null;
+        }
+
+        if (use) {
+            entry.expiration = now + this.timeToLive;
+        }
+
+        return entry;
+    }
+
+    private static final class Entry {
+
+        private Mono<String> accessToken;
+
+        private long expiration;
+
+        private String refreshToken;
+
+        private Entry(long expiration) {
+            this.expiration = expiration;
+        }
+
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.tokenprovider;
+
+public interface TokenCacheMXBean {
+
+    /**
+     * Returns the number of identities evicted because the cache was full
+     */
+    long getEvictions();
+
+    /**
+     * Returns the number of identities removed because they had not been used within the time-to-live
+     */
+    long getExpirations();
+
+    /**
+     * Returns the number of token requests satisfied by an existing access token or in-flight negotiation
+     */
+    long getHits();
+
+    /**
+     * Returns the number of token requests that started a new negotiation
+     */
+    long getMisses();
+
+    /**
+     * Returns the number of identities currently cached
+     */
+    int getSize();
+
+}
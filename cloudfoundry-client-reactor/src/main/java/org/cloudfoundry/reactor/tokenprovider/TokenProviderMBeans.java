@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.tokenprovider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+
+/**
+ * Registers MBeans for the lifetime of a token provider or token cache
+ */
+final class TokenProviderMBeans {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client.token");
+
+    private TokenProviderMBeans() {
+    }
+
+    static Optional<ObjectName> register(String type, String name, Object mBean) {
+        try {
+            ObjectName objectName = ObjectName.getInstance(String.format("org.cloudfoundry.reactor:type=%s,name=%s", type, ObjectName.quote(name)));
+
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)) {
+                LOGGER.warn("MBean '{}' is already registered and will be removed. You should only have a single {} per name.", objectName, type);
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            }
+
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mBean, objectName);
+            return Optional.of(objectName);
+        } catch (JMException e) {
+            LOGGER.error("Unable to register {} MBean", type, e);
+            return Optional.empty();
+        }
+    }
+
+    static void unregister(Optional<ObjectName> objectName) {
+        objectName.ifPresent(n -> {
+            try {
+                if (ManagementFactory.getPlatformMBeanServer().isRegistered(n)) {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(n);
+                }
+            } catch (JMException e) {
+                LOGGER.error("Unable to unregister {} MBean", n, e);
+            }
+        });
+    }
+
+}
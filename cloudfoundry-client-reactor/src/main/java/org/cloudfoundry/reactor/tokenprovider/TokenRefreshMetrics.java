@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.tokenprovider;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+final class TokenRefreshMetrics implements TokenRefreshMXBean {
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong lastLatency = new AtomicLong();
+
+    private final AtomicLong refreshes = new AtomicLong();
+
+    @Override
+    public long getFailures() {
+        return this.failures.get();
+    }
+
+    @Override
+    public long getLastLatency() {
+        return this.lastLatency.get();
+    }
+
+    @Override
+    public long getRefreshes() {
+        return this.refreshes.get();
+    }
+
+    void failure() {
+        this.failures.incrementAndGet();
+    }
+
+    void success(long latency) {
+        this.lastLatency.set(latency);
+        this.refreshes.incrementAndGet();
+    }
+
+}
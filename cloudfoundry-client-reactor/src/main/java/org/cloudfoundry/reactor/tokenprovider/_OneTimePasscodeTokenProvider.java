@@ -32,6 +32,11 @@ abstract class _OneTimePasscodeTokenProvider extends AbstractUaaTokenProvider {
      */
     abstract String getPasscode();
 
+    @Override
+    Object getGrantCredentials() {
+        return getPasscode();
+    }
+
     @Override
     void tokenRequestTransformer(HttpClientRequest request, HttpClientForm form) {
         form.multipart(false)
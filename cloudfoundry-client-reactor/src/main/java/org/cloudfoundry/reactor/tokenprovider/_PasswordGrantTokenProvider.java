@@ -22,6 +22,8 @@ import org.immutables.value.Value;
 import reactor.netty.http.client.HttpClientForm;
 import reactor.netty.http.client.HttpClientRequest;
 
+import java.util.Arrays;
+
 /**
  * The OAuth Password Grant implementation of {@link TokenProvider}
  */
@@ -44,6 +46,11 @@ abstract class _PasswordGrantTokenProvider extends AbstractUaaTokenProvider {
      */
     abstract String getUsername();
 
+    @Override
+    Object getGrantCredentials() {
+        return Arrays.asList(getUsername(), getLoginHint(), getPassword());
+    }
+
     @Override
     void tokenRequestTransformer(HttpClientRequest request, HttpClientForm form) {
         form.multipart(false)
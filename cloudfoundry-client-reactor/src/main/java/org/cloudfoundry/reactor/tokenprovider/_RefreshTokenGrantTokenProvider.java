@@ -32,6 +32,11 @@ abstract class _RefreshTokenGrantTokenProvider extends AbstractUaaTokenProvider
      */
     abstract String getToken();
 
+    @Override
+    Object getGrantCredentials() {
+        return getToken();
+    }
+
     @Override
     void tokenRequestTransformer(HttpClientRequest request, HttpClientForm form) {
         form.multipart(false)
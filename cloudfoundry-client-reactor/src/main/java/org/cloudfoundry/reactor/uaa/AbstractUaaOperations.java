@@ -18,6 +18,7 @@ package org.cloudfoundry.reactor.uaa;
 
 import io.netty.handler.codec.http.HttpHeaders;
 import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.Endpoint;
 import org.cloudfoundry.reactor.TokenProvider;
 import org.cloudfoundry.reactor.client.QueryBuilder;
 import org.cloudfoundry.reactor.util.AbstractReactorOperations;
@@ -35,7 +36,7 @@ import java.util.function.UnaryOperator;
 public abstract class AbstractUaaOperations extends AbstractReactorOperations {
 
     protected AbstractUaaOperations(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider, Map<String, String> requestTags) {
-        super(connectionContext, root, tokenProvider, requestTags);
+        super(connectionContext, Endpoint.UAA, root, tokenProvider, requestTags);
     }
 
     @Override
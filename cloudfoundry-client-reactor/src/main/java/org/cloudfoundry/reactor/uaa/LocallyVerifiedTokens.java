@@ -0,0 +1,207 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.uaa;
+
+import io.jsonwebtoken.ClaimJwtException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolver;
+import org.cloudfoundry.uaa.UaaException;
+import org.cloudfoundry.uaa.tokens.CheckTokenRequest;
+import org.cloudfoundry.uaa.tokens.CheckTokenResponse;
+import org.cloudfoundry.uaa.tokens.GetTokenByAuthorizationCodeRequest;
+import org.cloudfoundry.uaa.tokens.GetTokenByAuthorizationCodeResponse;
+import org.cloudfoundry.uaa.tokens.GetTokenByClientCredentialsRequest;
+import org.cloudfoundry.uaa.tokens.GetTokenByClientCredentialsResponse;
+import org.cloudfoundry.uaa.tokens.GetTokenByOneTimePasscodeRequest;
+import org.cloudfoundry.uaa.tokens.GetTokenByOneTimePasscodeResponse;
+import org.cloudfoundry.uaa.tokens.GetTokenByOpenIdRequest;
+import org.cloudfoundry.uaa.tokens.GetTokenByOpenIdResponse;
+import org.cloudfoundry.uaa.tokens.GetTokenByPasswordRequest;
+import org.cloudfoundry.uaa.tokens.GetTokenByPasswordResponse;
+import org.cloudfoundry.uaa.tokens.GetTokenKeyRequest;
+import org.cloudfoundry.uaa.tokens.GetTokenKeyResponse;
+import org.cloudfoundry.uaa.tokens.ListTokenKeysRequest;
+import org.cloudfoundry.uaa.tokens.ListTokenKeysResponse;
+import org.cloudfoundry.uaa.tokens.RefreshTokenRequest;
+import org.cloudfoundry.uaa.tokens.RefreshTokenResponse;
+import org.cloudfoundry.uaa.tokens.Tokens;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link Tokens} that checks tokens locally, verifying their signature against the UAA's cached token keys along with their expiration, issuer, and scopes.  Tokens that are not signed JWTs (for
+ * example opaque tokens), tokens signed with an unknown key, tokens missing a claim of the check token response, tokens that are revocable, and tokens granting a revocation-sensitive scope are
+ * checked by the UAA.  Note that the client credentials of a locally checked request are not verified.
+ */
+final class LocallyVerifiedTokens implements Tokens {
+
+    private static final int BAD_REQUEST = 400;
+
+    private static final List<String> REQUIRED_CLAIMS = Arrays.asList("azp", "cid", "client_id", "exp", "grant_type", "iat", "iss", "jti", "rev_sig", "sub", "zid");
+
+    private final Tokens delegate;
+
+    private final String issuer;
+
+    private final Set<String> revocationSensitiveScopes;
+
+    private final SigningKeyResolver signingKeyResolver;
+
+    LocallyVerifiedTokens(Tokens delegate, SigningKeyResolver signingKeyResolver, String issuer, Collection<String> revocationSensitiveScopes) {
+        this.delegate = delegate;
+        this.issuer = issuer;
+        this.revocationSensitiveScopes = new HashSet<>(revocationSensitiveScopes);
+        this.signingKeyResolver = signingKeyResolver;
+    }
+
+    @Override
+    public Mono<CheckTokenResponse> check(CheckTokenRequest request) {
+        return Mono.defer(() -> verify(request)
+            .map(Mono::just)
+            .orElseGet(() -> this.delegate.check(request)));
+    }
+
+    @Override
+    public Mono<GetTokenByAuthorizationCodeResponse> getByAuthorizationCode(GetTokenByAuthorizationCodeRequest request) {
+        return this.delegate.getByAuthorizationCode(request);
+    }
+
+    @Override
+    public Mono<GetTokenByClientCredentialsResponse> getByClientCredentials(GetTokenByClientCredentialsRequest request) {
+        return this.delegate.getByClientCredentials(request);
+    }
+
+    @Override
+    public Mono<GetTokenByOneTimePasscodeResponse> getByOneTimePasscode(GetTokenByOneTimePasscodeRequest request) {
+        return this.delegate.getByOneTimePasscode(request);
+    }
+
+    @Override
+    public Mono<GetTokenByOpenIdResponse> getByOpenId(GetTokenByOpenIdRequest request) {
+        return this.delegate.getByOpenId(request);
+    }
+
+    @Override
+    public Mono<GetTokenByPasswordResponse> getByPassword(GetTokenByPasswordRequest request) {
+        return this.delegate.getByPassword(request);
+    }
+
+    @Override
+    public Mono<GetTokenKeyResponse> getKey(GetTokenKeyRequest request) {
+        return this.delegate.getKey(request);
+    }
+
+    @Override
+    public Mono<ListTokenKeysResponse> listKeys(ListTokenKeysRequest request) {
+        return this.delegate.listKeys(request);
+    }
+
+    @Override
+    public Mono<RefreshTokenResponse> refresh(RefreshTokenRequest request) {
+        return this.delegate.refresh(request);
+    }
+
+    private static List<String> getStrings(Claims claims, String name) {
+        Object value = claims.get(name);
+
+        if (value == null) {
+            return null;
+        }
+
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).stream()
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+        }
+
+        return Collections.singletonList(String.valueOf(value));
+    }
+
+    private static CheckTokenResponse toCheckTokenResponse(Claims claims) {
+        return CheckTokenResponse.builder()
+            .audiences(Optional.ofNullable(getStrings(claims, "aud")).orElse(Collections.emptyList()))
+            .authorities(getStrings(claims, "authorities"))
+            .authorizationTime(claims.get("auth_time", Long.class))
+            .authorizedParty(claims.get("azp", String.class))
+            .cid(claims.get("cid", String.class))
+            .clientId(claims.get("client_id", String.class))
+            .email(claims.get("email", String.class))
+            .expirationTime(claims.getExpiration().getTime() / 1000)
+            .grantType(claims.get("grant_type", String.class))
+            .issuedAt(claims.getIssuedAt().getTime() / 1000)
+            .issuer(claims.getIssuer())
+            .jwtId(claims.getId())
+            .origin(claims.get("origin", String.class))
+            .revocable(Optional.ofNullable(claims.get("revocable", Boolean.class)).orElse(false))
+            .revocationSignature(claims.get("rev_sig", String.class))
+            .scopes(Optional.ofNullable(getStrings(claims, "scope")).orElse(Collections.emptyList()))
+            .subject(claims.getSubject())
+            .userId(claims.get("user_id", String.class))
+            .userName(claims.get("user_name", String.class))
+            .zoneId(claims.get("zid", String.class))
+            .build();
+    }
+
+    private Optional<CheckTokenResponse> verify(CheckTokenRequest request) {
+        JwtParser parser = Jwts.parser()
+            .requireIssuer(this.issuer)
+            .setSigningKeyResolver(this.signingKeyResolver);
+
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(request.getToken()).getBody();
+        } catch (ExpiredJwtException e) {
+            throw new UaaException(BAD_REQUEST, "invalid_token", "Token has expired");
+        } catch (ClaimJwtException | SignatureException e) {
+            throw new UaaException(BAD_REQUEST, "invalid_token", e.getMessage());
+        } catch (JwtException | IllegalArgumentException | IllegalStateException e) {
+            return Optional.empty();
+        }
+
+        if (!claims.keySet().containsAll(REQUIRED_CLAIMS)) {
+            return Optional.empty();
+        }
+
+        List<String> scopes = Optional.ofNullable(getStrings(claims, "scope")).orElse(Collections.emptyList());
+        if (Boolean.TRUE.equals(claims.get("revocable", Boolean.class)) || scopes.stream().anyMatch(this.revocationSensitiveScopes::contains)) {
+            return Optional.empty();
+        }
+
+        List<String> missingScopes = Optional.ofNullable(request.getScopes()).orElse(Collections.emptyList()).stream()
+            .filter(scope -> !scopes.contains(scope))
+            .collect(Collectors.toList());
+        if (!missingScopes.isEmpty()) {
+            throw new UaaException(BAD_REQUEST, "invalid_scope", String.format("Some requested scopes are missing: %s", String.join(",", missingScopes)));
+        }
+
+        return Optional.of(toCheckTokenResponse(claims));
+    }
+
+}
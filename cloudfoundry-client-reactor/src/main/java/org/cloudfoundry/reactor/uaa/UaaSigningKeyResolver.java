@@ -25,6 +25,9 @@ import org.cloudfoundry.uaa.tokens.ListTokenKeysResponse;
 import org.cloudfoundry.uaa.tokens.TokenKey;
 import org.cloudfoundry.uaa.tokens.Tokens;
 import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Schedulers;
 
 import java.security.Key;
 import java.security.KeyFactory;
@@ -32,9 +35,18 @@ import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link SigningKeyResolver} that resolves signing keys from an immutable snapshot of the UAA's token keys.  Resolving a known key never blocks or takes a lock.  A snapshot older than the
+ * refresh interval is replaced in the background, a miss waits on a single shared refresh, and key ids still unknown after a refresh are remembered for a short time so that they do not cause
+ * further refreshes.  A miss on a non-blocking thread starts a refresh but does not wait for it.  Snapshots are refreshed when a stale snapshot is read rather than on a timer, so that a resolver
+ * owns no scheduled task and needs no disposal.  The first resolution after an idle period is served from the stale snapshot while the refresh proceeds.
+ */
 final class UaaSigningKeyResolver implements SigningKeyResolver {
 
     private static final Base64Codec BASE64 = new Base64Codec();
@@ -43,12 +55,22 @@ final class UaaSigningKeyResolver implements SigningKeyResolver {
 
     private static final String END = "-----END PUBLIC KEY-----";
 
-    private final Object monitor = new Object();
+    private static final int MAXIMUM_UNKNOWN_KEY_IDS = 1_000;
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(15);
+
+    private static final Duration REFRESH_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final Duration UNKNOWN_KEY_ID_DURATION = Duration.ofMinutes(1);
+
+    private final AtomicReference<MonoProcessor<SigningKeys>> refresh = new AtomicReference<>();
 
-    private final Map<String, Key> signingKeys = new HashMap<>();
+    private final AtomicReference<SigningKeys> signingKeys = new AtomicReference<>(new SigningKeys(Collections.emptyMap(), System.nanoTime()));
 
     private final Tokens tokens;
 
+    private final ConcurrentMap<String, Long> unknownKeyIds = new ConcurrentHashMap<>();
+
     UaaSigningKeyResolver(Tokens tokens) {
         this.tokens = tokens;
     }
@@ -79,32 +101,111 @@ final class UaaSigningKeyResolver implements SigningKeyResolver {
         }
     }
 
+    private static IllegalStateException unknownKey(String keyId) {
+        return new IllegalStateException(String.format("Unable to retrieve signing key %s", keyId));
+    }
+
     private Key getKey(String keyId) {
-        synchronized (this.monitor) {
-            Key key = this.signingKeys.get(keyId);
-            if (key != null) {
-                return key;
+        SigningKeys current = this.signingKeys.get();
+
+        Key key = current.keys.get(keyId);
+        if (key != null) {
+            if (current.isStale()) {
+                refreshInBackground();
             }
 
-            refreshKeys();
+            return key;
+        }
+
+        if (isUnknown(keyId)) {
+            throw unknownKey(keyId);
+        }
+
+        if (Schedulers.isInNonBlockingThread()) {
+            refreshInBackground();
+            throw new IllegalStateException(String.format("Signing key %s is not yet available", keyId));
+        }
+
+        key = refresh().block(REFRESH_TIMEOUT).keys.get(keyId);
+        if (key != null) {
+            return key;
+        }
+
+        if (this.unknownKeyIds.size() >= MAXIMUM_UNKNOWN_KEY_IDS) {
+            this.unknownKeyIds.clear();
+        }
+        this.unknownKeyIds.put(keyId, System.nanoTime() + UNKNOWN_KEY_ID_DURATION.toNanos());
+
+        throw unknownKey(keyId);
+    }
 
-            key = this.signingKeys.get(keyId);
-            if (key != null) {
-                return key;
+    private boolean isUnknown(String keyId) {
+        Long expiration = this.unknownKeyIds.get(keyId);
+
+        if (expiration == null) {
+            return false;
+        }
+
+        if (expiration - System.nanoTime() <= 0) {
+            this.unknownKeyIds.remove(keyId, expiration);
+            return false;
+        }
+
+        return true;
+    }
+
+    private Mono<SigningKeys> refresh() {
+        while (true) {
+            MonoProcessor<SigningKeys> inFlight = this.refresh.get();
+            if (inFlight != null) {
+                return inFlight;
             }
 
-            throw new IllegalStateException(String.format("Unable to retrieve signing key %s", keyId));
+            MonoProcessor<SigningKeys> processor = MonoProcessor.create();
+            if (this.refresh.compareAndSet(null, processor)) {
+                requestSigningKeys()
+                    .doFinally(signalType -> this.refresh.compareAndSet(processor, null))
+                    .subscribe(processor);
+
+                return processor;
+            }
         }
     }
 
-    private void refreshKeys() {
-        this.signingKeys.clear();
-        this.signingKeys.putAll(this.tokens
+    private void refreshInBackground() {
+        refresh()
+            .onErrorResume(t -> Mono.empty())
+            .subscribe();
+    }
+
+    private Mono<SigningKeys> requestSigningKeys() {
+        return this.tokens
             .listKeys(ListTokenKeysRequest.builder()
                 .build())
             .flatMapIterable(ListTokenKeysResponse::getKeys)
             .collectMap(TokenKey::getId, UaaSigningKeyResolver::generateKey)
-            .block(Duration.ofMinutes(5)));
+            .map(keys -> new SigningKeys(Collections.unmodifiableMap(keys), System.nanoTime()))
+            .doOnNext(signingKeys -> {
+                this.signingKeys.set(signingKeys);
+                signingKeys.keys.keySet().forEach(this.unknownKeyIds::remove);
+            });
+    }
+
+    private static final class SigningKeys {
+
+        private final Map<String, Key> keys;
+
+        private final long timestamp;
+
+        private SigningKeys(Map<String, Key> keys, long timestamp) {
+            this.keys = keys;
+            this.timestamp = timestamp;
+        }
+
+        private boolean isStale() {
+            return System.nanoTime() - this.timestamp > REFRESH_INTERVAL.toNanos();
+        }
+
     }
 
 }
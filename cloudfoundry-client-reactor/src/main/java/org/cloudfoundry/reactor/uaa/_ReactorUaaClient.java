@@ -41,7 +41,9 @@ import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 /**
@@ -95,7 +97,11 @@ abstract class _ReactorUaaClient implements UaaClient {
     @Override
     @Value.Derived
     public Tokens tokens() {
-        return new ReactorTokens(getConnectionContext(), getRoot(), getTokenProvider(), getRequestTags());
+        Tokens tokens = new ReactorTokens(getConnectionContext(), getRoot(), getTokenProvider(), getRequestTags());
+
+        return Optional.ofNullable(getLocalTokenVerificationIssuer())
+            .<Tokens>map(issuer -> new LocallyVerifiedTokens(tokens, new UaaSigningKeyResolver(tokens), issuer, getRevocationSensitiveScopes()))
+            .orElse(tokens);
     }
 
     @Override
@@ -115,11 +121,23 @@ abstract class _ReactorUaaClient implements UaaClient {
     @Nullable
     abstract String getIdentityZoneSubdomain();
 
+    /**
+     * The issuer of tokens to check locally.  If set, {@link Tokens#check} verifies tokens against the UAA's cached token keys, only checking tokens with the UAA when they cannot be verified
+     * locally.
+     */
+    @Nullable
+    abstract String getLocalTokenVerificationIssuer();
+
     @Value.Default
     Map<String, String> getRequestTags() {
         return Collections.emptyMap();
     }
 
+    /**
+     * The scopes for which tokens are always checked with the UAA, even when local token verification is enabled
+     */
+    abstract List<String> getRevocationSensitiveScopes();
+
     @Value.Default
     Mono<String> getRoot() {
         Mono<String> cached = getConnectionContext().getRootProvider().getRoot("uaa", getConnectionContext())
@@ -18,11 +18,13 @@ package org.cloudfoundry.reactor.util;
 
 import io.netty.handler.codec.http.HttpHeaders;
 import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.Endpoint;
 import org.cloudfoundry.reactor.TokenProvider;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 
 import java.util.Map;
+import java.util.Optional;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.AUTHORIZATION;
 
@@ -32,6 +34,8 @@ public abstract class AbstractReactorOperations {
 
     protected final ConnectionContext connectionContext;
 
+    protected final Endpoint endpoint;
+
     protected final Map<String, String> requestTags;
 
     protected final Mono<String> root;
@@ -39,14 +43,19 @@ public abstract class AbstractReactorOperations {
     protected final TokenProvider tokenProvider;
 
     protected AbstractReactorOperations(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider, Map<String, String> requestTags) {
+        this(connectionContext, Endpoint.CLOUD_CONTROLLER, root, tokenProvider, requestTags);
+    }
+
+    protected AbstractReactorOperations(ConnectionContext connectionContext, Endpoint endpoint, Mono<String> root, TokenProvider tokenProvider, Map<String, String> requestTags) {
         this.connectionContext = connectionContext;
+        this.endpoint = endpoint;
         this.root = root;
         this.tokenProvider = tokenProvider;
         this.requestTags = requestTags;
     }
 
     protected Mono<Operator> createOperator() {
-        HttpClient httpClient = this.connectionContext.getHttpClient();
+        HttpClient httpClient = this.connectionContext.getHttpClient(this.endpoint);
 
         return this.root.map(this::buildOperatorContext)
             .map(context -> new Operator(context, httpClient))
@@ -67,7 +76,12 @@ public abstract class AbstractReactorOperations {
 
     private OperatorContext buildOperatorContext(String root) {
         return OperatorContext.builder()
+            .concurrencyLimiter(this.endpoint == Endpoint.CLOUD_CONTROLLER ? this.connectionContext.getConcurrencyLimiter() : Optional.empty())
             .connectionContext(this.connectionContext)
+            .requestHedger(this.endpoint == Endpoint.CLOUD_CONTROLLER ? this.connectionContext.getRequestHedger() : Optional.empty())
+            .requestScheduler(this.connectionContext.getRequestScheduler(this.endpoint))
+            .responseTimeout(this.connectionContext.getResponseTimeout(this.endpoint))
+            .retryConfiguration(this.connectionContext.getRetryConfiguration(this.endpoint))
             .root(root)
             .tokenProvider(this.tokenProvider)
             .build();
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An adaptive limit on the number of concurrent requests made to an endpoint.  The limit is adjusted using additive-increase/multiplicative-decrease: each successful request raises the limit by
+ * {@code 1/limit}, while each response indicating that the server is overloaded ({@code 429 Too Many Requests} or {@code 503 Service Unavailable}) halves it and each successful request slower
+ * than the latency threshold (if set) reduces it by 10%.  After a decrease, the limit is not decreased again until every request that was in flight at the time has completed, so that a burst of
+ * overloaded responses to requests sent under the old limit is treated as a single congestion event.  A {@code Retry-After} header on an overloaded response pauses all requests until the time it specifies.  Requests beyond the limit are
+ * queued, and fail with a {@link RejectedExecutionException} if the queue is full or they are not sent before the queue timeout.
+ */
+public final class ConcurrencyLimiter implements ConcurrencyLimiterMXBean {
+
+    private static final double DECREASE_ON_LATENCY = 0.9;
+
+    private static final double DECREASE_ON_THROTTLE = 0.5;
+
+    private final Optional<Duration> latencyThreshold;
+
+    private final int maximumLimit;
+
+    private final int maximumQueueSize;
+
+    private final int minimumLimit;
+
+    private final Duration queueTimeout;
+
+    private final Queue<Waiter> waiters = new ArrayDeque<>();
+
+    private int decreaseWindow;
+
+    private int inFlight;
+
+    private double limit;
+
+    private long pausedUntil = System.nanoTime();
+
+    private long rejected;
+
+    private long throttled;
+
+    /**
+     * Creates a new instance with the default {@link ConcurrencyLimiterConfiguration}
+     */
+    public ConcurrencyLimiter() {
+        this(ConcurrencyLimiterConfiguration.builder().build());
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param configuration the configuration of the limiter
+     */
+    public ConcurrencyLimiter(ConcurrencyLimiterConfiguration configuration) {
+        this.latencyThreshold = configuration.getLatencyThreshold();
+        this.limit = configuration.getInitialLimit();
+        this.maximumLimit = configuration.getMaximumLimit();
+        this.maximumQueueSize = configuration.getMaximumQueueSize();
+        this.minimumLimit = configuration.getMinimumLimit();
+        this.queueTimeout = configuration.getQueueTimeout();
+    }
+
+    @Override
+    public synchronized int getInFlight() {
+        return this.inFlight;
+    }
+
+    @Override
+    public synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    @Override
+    public synchronized int getQueued() {
+        return this.waiters.size();
+    }
+
+    @Override
+    public synchronized long getRejected() {
+        return this.rejected;
+    }
+
+    @Override
+    public synchronized long getThrottled() {
+        return this.throttled;
+    }
+
+    static Optional<Duration> parseRetryAfter(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Duration.ofSeconds(Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            // fall through to HTTP-date
+        }
+
+        try {
+            Duration delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+            return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    <T> Flux<T> limit(Flux<T> source) {
+        return acquire()
+            .thenMany(Flux.defer(() -> {
+                long start = System.nanoTime();
+
+                return source
+                    .doOnComplete(() -> succeeded(System.nanoTime() - start))
+                    .doFinally(signalType -> release());
+            }));
+    }
+
+    void throttled(Optional<Duration> retryAfter) {
+        synchronized (this) {
+            this.throttled++;
+            decrease(DECREASE_ON_THROTTLE);
+
+            retryAfter
+                .map(delay -> System.nanoTime() + delay.toNanos())
+                .filter(until -> until - this.pausedUntil > 0)
+                .ifPresent(until -> this.pausedUntil = until);
+        }
+
+        retryAfter.ifPresent(delay -> Schedulers.parallel().schedule(this::drain, delay.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    private Mono<Void> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+
+            synchronized (this) {
+                if (this.waiters.isEmpty() && isAvailable()) {
+                    this.inFlight++;
+                    waiter.granted = true;
+                } else if (this.waiters.size() >= this.maximumQueueSize) {
+                    this.rejected++;
+                    sink.error(new RejectedExecutionException(String.format("Request queue is full (%d requests)", this.maximumQueueSize)));
+                    return;
+                } else {
+                    this.waiters.add(waiter);
+                }
+            }
+
+            if (waiter.granted) {
+                sink.success();
+                return;
+            }
+
+            waiter.timeout = Schedulers.parallel().schedule(() -> expire(waiter), this.queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            sink.onCancel(() -> cancel(waiter));
+        });
+    }
+
+    private void cancel(Waiter waiter) {
+        boolean granted;
+
+        synchronized (this) {
+            granted = waiter.granted;
+            this.waiters.remove(waiter);
+        }
+
+        waiter.dispose();
+
+        if (granted) {
+            release();
+        }
+    }
+
+    private void decrease(double factor) {
+        if (this.decreaseWindow > 0) {
+            return;
+        }
+
+        this.limit = Math.max(this.minimumLimit, this.limit * factor);
+        this.decreaseWindow = this.inFlight;
+    }
+
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+
+        synchronized (this) {
+            while (!this.waiters.isEmpty() && isAvailable()) {
+                Waiter waiter = this.waiters.remove();
+                waiter.granted = true;
+                this.inFlight++;
+                granted.add(waiter);
+            }
+        }
+
+        granted.forEach(waiter -> {
+            waiter.dispose();
+            waiter.sink.success();
+        });
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!this.waiters.remove(waiter)) {
+                return;
+            }
+
+            this.rejected++;
+        }
+
+        waiter.sink.error(new RejectedExecutionException(String.format("Request was queued for longer than %s", this.queueTimeout)));
+    }
+
+    private boolean isAvailable() {
+        return this.inFlight < (int) this.limit && System.nanoTime() - this.pausedUntil >= 0;
+    }
+
+    private void release() {
+        synchronized (this) {
+            this.inFlight--;
+            this.decreaseWindow = Math.max(0, this.decreaseWindow - 1);
+        }
+
+        drain();
+    }
+
+    private void succeeded(long latency) {
+        synchronized (this) {
+            if (this.latencyThreshold.map(threshold -> latency > threshold.toNanos()).orElse(false)) {
+                decrease(DECREASE_ON_LATENCY);
+            } else {
+                this.limit = Math.min(this.maximumLimit, this.limit + 1 / this.limit);
+            }
+        }
+
+        drain();
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Void> sink;
+
+        private boolean granted;
+
+        private Disposable timeout;
+
+        private Waiter(MonoSink<Void> sink) {
+            this.sink = sink;
+        }
+
+        private void dispose() {
+            if (this.timeout != null) {
+                this.timeout.dispose();
+            }
+        }
+
+    }
+
+}
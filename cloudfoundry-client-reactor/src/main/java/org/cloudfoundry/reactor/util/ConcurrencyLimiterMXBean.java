@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+public interface ConcurrencyLimiterMXBean {
+
+    /**
+     * Returns the number of requests currently in flight
+     */
+    int getInFlight();
+
+    /**
+     * Returns the current limit on the number of requests in flight
+     */
+    int getLimit();
+
+    /**
+     * Returns the number of requests currently queued waiting for the limit to allow them to be sent
+     */
+    int getQueued();
+
+    /**
+     * Returns the number of requests rejected because the queue was full or they were queued for too long
+     */
+    long getRejected();
+
+    /**
+     * Returns the number of responses indicating that the server was overloaded ({@code 429 Too Many Requests} or {@code 503 Service Unavailable})
+     */
+    long getThrottled();
+
+}
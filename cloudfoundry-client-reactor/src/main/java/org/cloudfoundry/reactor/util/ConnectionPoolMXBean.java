@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+public interface ConnectionPoolMXBean {
+
+    /**
+     * Returns the number of requests currently acquiring a connection from the pool, either waiting for a pooled connection or establishing a new one.  A request stops acquiring once it is handed a
+     * connection, before its request is sent.
+     */
+    int getAcquiring();
+
+    /**
+     * Returns the number of connections currently acquired by requests
+     */
+    int getActive();
+
+    /**
+     * Returns the number of connections currently idle in the pool
+     */
+    int getIdle();
+
+}
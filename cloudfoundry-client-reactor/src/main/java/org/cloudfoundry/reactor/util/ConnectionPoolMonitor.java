@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.ConnectionObserver;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the connections of a connection pool by observing the acquisitions from its {@link ConnectionProvider} and the state of the connections made by an {@link HttpClient}
+ */
+public final class ConnectionPoolMonitor implements ConnectionPoolMXBean {
+
+    private final AtomicInteger acquiring = new AtomicInteger();
+
+    private final Set<Channel> active = ConcurrentHashMap.newKeySet();
+
+    private final Set<Channel> idle = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public int getAcquiring() {
+        return this.acquiring.get();
+    }
+
+    @Override
+    public int getActive() {
+        return this.active.size();
+    }
+
+    @Override
+    public int getIdle() {
+        return this.idle.size();
+    }
+
+    /**
+     * Instruments a {@link ConnectionProvider} so that the acquisition of its connections is tracked by this monitor.  Disposing the instrumented {@link ConnectionProvider} disposes the original.
+     *
+     * @param connectionProvider the {@link ConnectionProvider} to instrument
+     * @return the instrumented {@link ConnectionProvider}
+     */
+    public ConnectionProvider monitor(ConnectionProvider connectionProvider) {
+        return new MonitoredConnectionProvider(connectionProvider, this.acquiring);
+    }
+
+    /**
+     * Instruments an {@link HttpClient} so that the connections it makes are tracked by this monitor
+     *
+     * @param httpClient the {@link HttpClient} to instrument
+     * @return the instrumented {@link HttpClient}
+     */
+    public HttpClient monitor(HttpClient httpClient) {
+        return httpClient.observe(this::onStateChange);
+    }
+
+    private void onStateChange(Connection connection, ConnectionObserver.State state) {
+        Channel channel = connection.channel();
+
+        if (state == ConnectionObserver.State.CONNECTED) {
+            channel.closeFuture().addListener(future -> {
+                this.active.remove(channel);
+                this.idle.remove(channel);
+            });
+        }
+
+        if (state == ConnectionObserver.State.CONNECTED || state == ConnectionObserver.State.ACQUIRED) {
+            this.idle.remove(channel);
+            this.active.add(channel);
+        } else if (state == ConnectionObserver.State.RELEASED) {
+            this.active.remove(channel);
+            this.idle.add(channel);
+        } else if (state == ConnectionObserver.State.DISCONNECTING) {
+            this.active.remove(channel);
+            this.idle.remove(channel);
+        }
+    }
+
+    private static final class MonitoredConnectionProvider implements ConnectionProvider {
+
+        private final AtomicInteger acquiring;
+
+        private final ConnectionProvider delegate;
+
+        private MonitoredConnectionProvider(ConnectionProvider delegate, AtomicInteger acquiring) {
+            this.acquiring = acquiring;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Mono<? extends Connection> acquire(Bootstrap bootstrap) {
+            return this.delegate.acquire(bootstrap)
+                .doOnSubscribe(s -> this.acquiring.incrementAndGet())
+                .doFinally(signalType -> this.acquiring.decrementAndGet());
+        }
+
+        @Override
+        public void dispose() {
+            this.delegate.dispose();
+        }
+
+        @Override
+        public Mono<Void> disposeLater() {
+            return this.delegate.disposeLater();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return this.delegate.isDisposed();
+        }
+
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * A deadline for the requests made by a reactive chain, carried in its Reactor {@link Context}.  Apply it with {@code subscriberContext}, for example {@code
+ * operations.applications().pushManifest(request).subscriberContext(Deadline.after(Duration.ofMinutes(5)))}, and every request made by the chain fails with a {@link DeadlineExceededException} if
+ * it has not completed by the deadline.  Where deadlines are nested, the earliest applies.
+ */
+public final class Deadline {
+
+    private static final String KEY = "cloudfoundry-client.deadline";
+
+    private Deadline() {
+    }
+
+    /**
+     * Sets a deadline relative to the time of subscription
+     *
+     * @param timeout the time after subscription by which requests must complete
+     * @return a function to pass to {@code subscriberContext}
+     */
+    public static Function<Context, Context> after(Duration timeout) {
+        return context -> at(Instant.now().plus(timeout)).apply(context);
+    }
+
+    /**
+     * Sets an absolute deadline
+     *
+     * @param deadline the time by which requests must complete
+     * @return a function to pass to {@code subscriberContext}
+     */
+    public static Function<Context, Context> at(Instant deadline) {
+        return context -> get(context)
+            .filter(existing -> existing.isBefore(deadline))
+            .map(existing -> context)
+            .orElseGet(() -> context.put(KEY, deadline));
+    }
+
+    static Optional<Instant> get(Context context) {
+        return context.getOrEmpty(KEY);
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * An exception indicating that a request did not complete before its deadline or response timeout.  The request is cancelled, releasing its connection.
+ */
+public final class DeadlineExceededException extends TimeoutException {
+
+    private static final long serialVersionUID = -5712316410127862419L;
+
+    DeadlineExceededException(String message) {
+        super(message);
+    }
+
+}
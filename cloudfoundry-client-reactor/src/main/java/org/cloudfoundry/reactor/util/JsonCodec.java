@@ -16,13 +16,30 @@
 
 package org.cloudfoundry.reactor.util;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.json.JsonObjectDecoder;
+import io.netty.util.ReferenceCountUtil;
 import org.reactivestreams.Publisher;
 import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
@@ -30,13 +47,24 @@ import reactor.netty.ByteBufFlux;
 import reactor.netty.NettyOutbound;
 import reactor.netty.http.client.HttpClientRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.function.BiFunction;
 
 public final class JsonCodec {
 
+    private static final Map<ObjectMapper, ObjectMapper> EMBEDDING_OBJECT_MAPPERS = Collections.synchronizedMap(new WeakHashMap<>());
+
     private static final int MAX_PAYLOAD_SIZE = 100 * 1024 * 1024;
 
+    private static final int MAX_SNIPPET_SIZE = 64 * 1024;
+
     public static <T> Mono<T> decode(ObjectMapper objectMapper, ByteBufFlux responseBody, Class<T> responseType) {
         return responseBody.aggregate().asByteArray()
             .map(payload -> {
@@ -48,6 +76,25 @@ public final class JsonCodec {
             });
     }
 
+    /**
+     * Decodes a response body by feeding each chunk into a non-blocking parser as it is received, rather than aggregating the entire payload into a single array first.  Each element of a top-level
+     * collection of objects, such as {@code resources}, is deserialized as soon as it completes, so beyond the decoded result itself, memory use is bounded by the largest element rather than the
+     * size of the payload.
+     *
+     * @param objectMapper the {@link ObjectMapper} to use
+     * @param responseBody the response body to decode
+     * @param responseType the type to decode the response body to
+     * @param <T>          the type to decode the response body to
+     * @return the decoded response body
+     */
+    public static <T> Mono<T> decodeStreaming(ObjectMapper objectMapper, ByteBufFlux responseBody, Class<T> responseType) {
+        return Mono.using(() -> new NonBlockingDecoder(objectMapper, responseType),
+            decoder -> responseBody
+                .doOnNext(decoder::feed)
+                .then(Mono.fromCallable(() -> decoder.complete(responseType))),
+            NonBlockingDecoder::close);
+    }
+
     public static void setDecodeHeaders(HttpHeaders httpHeaders) {
         httpHeaders.set(HttpHeaderNames.ACCEPT, HttpHeaderValues.APPLICATION_JSON);
     }
@@ -62,18 +109,248 @@ public final class JsonCodec {
         }
 
         return (request, outbound) -> {
+            ByteBuf buffer = serialize(objectMapper, requestPayload, outbound.alloc());
+
+            request.header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(buffer.writerIndex()));
+            request.header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+            return Mono.from(outbound.send(Mono.fromSupplier(buffer::retain)))
+                .doFinally(signalType -> ReferenceCountUtil.release(buffer));
+        };
+    }
+
+    /**
+     * Serializes a payload directly into a {@link ByteBuf} obtained from an allocator.  The caller is responsible for releasing the returned buffer.
+     *
+     * @param objectMapper the {@link ObjectMapper} to use
+     * @param payload      the payload to serialize
+     * @param allocator    the allocator to obtain the buffer from
+     * @return the serialized payload
+     */
+    static ByteBuf serialize(ObjectMapper objectMapper, Object payload, ByteBufAllocator allocator) {
+        ByteBuf buffer = allocator.buffer();
+
+        try (OutputStream out = new ByteBufOutputStream(buffer)) {
+            objectMapper.writeValue(out, payload);
+            return buffer;
+        } catch (IOException e) {
+            ReferenceCountUtil.release(buffer);
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private static ObjectMapper getEmbeddingObjectMapper(ObjectMapper objectMapper) {
+        return EMBEDDING_OBJECT_MAPPERS.computeIfAbsent(objectMapper, key -> key.copy()
+            .registerModule(new SimpleModule().setDeserializerModifier(new BeanDeserializerModifier() {
+
+                @Override
+                public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDescription, JsonDeserializer<?> deserializer) {
+                    return new EmbeddedValueDeserializer(deserializer);
+                }
+
+            })));
+    }
+
+    /**
+     * Returns the element types of the top-level properties of a type that are collections of objects, keyed by property name
+     */
+    private static Map<String, JavaType> getStreamedElementTypes(ObjectMapper objectMapper, Class<?> responseType) {
+        JavaType type = objectMapper.constructType(responseType);
+
+        if (type.isContainerType() || type.isJavaLangObject()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, JavaType> elementTypes = new HashMap<>();
+
+        for (BeanPropertyDefinition property : objectMapper.getDeserializationConfig().introspect(type).findProperties()) {
+            JavaType propertyType = property.getPrimaryType();
+
+            if (propertyType.isCollectionLikeType() && !propertyType.getContentType().isContainerType() && !propertyType.getContentType().getRawClass().getName().startsWith("java.")) {
+                elementTypes.put(property.getName(), propertyType.getContentType());
+            }
+        }
+
+        return elementTypes;
+    }
+
+    /**
+     * Returns a value that was deserialized ahead of time and embedded in a {@link TokenBuffer}, delegating all other values
+     */
+    private static final class EmbeddedValueDeserializer extends DelegatingDeserializer {
+
+        private EmbeddedValueDeserializer(JsonDeserializer<?> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (isEmbedded(p)) {
+                return p.getEmbeddedObject();
+            }
+
+            return super.deserialize(p, ctxt);
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {
+            if (isEmbedded(p)) {
+                return p.getEmbeddedObject();
+            }
+
+            return super.deserializeWithType(p, ctxt, typeDeserializer);
+        }
+
+        @Override
+        protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+            return new EmbeddedValueDeserializer(newDelegatee);
+        }
+
+        private boolean isEmbedded(JsonParser p) throws IOException {
+            return p.hasToken(JsonToken.VALUE_EMBEDDED_OBJECT) && handledType().isInstance(p.getEmbeddedObject());
+        }
+
+    }
+
+    private static final class NonBlockingDecoder {
+
+        private final Map<String, JavaType> elementTypes;
+
+        private final ByteArrayFeeder feeder;
+
+        private final ObjectMapper objectMapper;
+
+        private final JsonParser parser;
+
+        private final ByteArrayOutputStream snippet = new ByteArrayOutputStream();
+
+        private final TokenBuffer tokens;
+
+        private int depth = 0;
+
+        private TokenBuffer element;
+
+        private int elementDepth = 0;
+
+        private JavaType elementType;
+
+        private byte[] scratch = new byte[0];
+
+        private long size = 0;
+
+        private NonBlockingDecoder(ObjectMapper objectMapper, Class<?> responseType) throws IOException {
+            this.elementTypes = getStreamedElementTypes(objectMapper, responseType);
+            this.objectMapper = objectMapper;
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            this.feeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
+            this.tokens = new TokenBuffer(this.parser, objectMapper.getDeserializationContext());
+        }
+
+        private static int getDepthChange(JsonToken token) {
+            if (token.isStructStart()) {
+                return 1;
+            }
+
+            return token.isStructEnd() ? -1 : 0;
+        }
+
+        private void close() {
             try {
-                byte[] bytes = objectMapper.writeValueAsBytes(requestPayload);
-                String contentLength = String.valueOf(bytes.length);
-                Mono<byte[]> body = Mono.just(bytes);
-
-                request.header(HttpHeaderNames.CONTENT_LENGTH, contentLength);
-                request.header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
-                return outbound.sendByteArray(body);
-            } catch (JsonProcessingException e) {
-                throw Exceptions.propagate(e);
+                this.parser.close();
+                this.tokens.close();
+            } catch (IOException e) {
+                // Nothing to release beyond what the parser and buffer hold on-heap
             }
-        };
+        }
+
+        private <T> T complete(Class<T> responseType) {
+            if (this.size == 0) {
+                return null;
+            }
+
+            try {
+                this.feeder.endOfInput();
+                drain();
+                ObjectMapper objectMapper = this.elementTypes.isEmpty() ? this.objectMapper : getEmbeddingObjectMapper(this.objectMapper);
+                return objectMapper.readValue(this.tokens.asParser(objectMapper), responseType);
+            } catch (Throwable t) {
+                throw new JsonParsingException(t.getMessage(), t, getSnippet());
+            }
+        }
+
+        private void drain() throws IOException {
+            for (JsonToken token = this.parser.nextToken(); token != null && token != JsonToken.NOT_AVAILABLE; token = this.parser.nextToken()) {
+                if (this.element == null && this.elementType != null && token == JsonToken.START_OBJECT) {
+                    this.element = new TokenBuffer(this.parser, this.objectMapper.getDeserializationContext());
+                }
+
+                if (this.element != null) {
+                    drainElement(token);
+                    continue;
+                }
+
+                this.tokens.copyCurrentEvent(this.parser);
+                this.depth += getDepthChange(token);
+
+                if (token == JsonToken.START_ARRAY && this.depth == 2) {
+                    this.elementType = this.elementTypes.get(this.parser.getCurrentName());
+                } else if (token == JsonToken.END_ARRAY && this.depth == 1) {
+                    this.elementType = null;
+                }
+            }
+        }
+
+        private void drainElement(JsonToken token) throws IOException {
+            this.element.copyCurrentEvent(this.parser);
+            this.elementDepth += getDepthChange(token);
+
+            if (this.elementDepth == 0) {
+                this.tokens.writeEmbeddedObject(this.objectMapper.readValue(this.element.asParser(this.objectMapper), this.elementType));
+                this.element.close();
+                this.element = null;
+            }
+        }
+
+        private void feed(ByteBuf chunk) {
+            int length = chunk.readableBytes();
+
+            this.size += length;
+            if (this.size > MAX_PAYLOAD_SIZE) {
+                throw new JsonParsingException(String.format("Payload exceeds maximum size of %d bytes", MAX_PAYLOAD_SIZE), null, getSnippet());
+            }
+
+            byte[] bytes;
+            int offset;
+
+            if (chunk.hasArray()) {
+                bytes = chunk.array();
+                offset = chunk.arrayOffset() + chunk.readerIndex();
+            } else {
+                // drain() consumes all input before the next chunk is fed, so the array can be reused
+                if (this.scratch.length < length) {
+                    this.scratch = new byte[length];
+                }
+
+                bytes = this.scratch;
+                offset = 0;
+                chunk.getBytes(chunk.readerIndex(), bytes, 0, length);
+            }
+
+            if (this.snippet.size() < MAX_SNIPPET_SIZE) {
+                this.snippet.write(bytes, offset, Math.min(length, MAX_SNIPPET_SIZE - this.snippet.size()));
+            }
+
+            try {
+                this.feeder.feedInput(bytes, offset, offset + length);
+                drain();
+            } catch (Throwable t) {
+                throw new JsonParsingException(t.getMessage(), t, getSnippet());
+            }
+        }
+
+        private String getSnippet() {
+            return new String(this.snippet.toByteArray(), Charset.defaultCharset());
+        }
+
     }
 
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A histogram of the most recent latencies of a request, from which percentiles are calculated.  Percentiles are recalculated periodically rather than on every request.
+ */
+final class LatencyHistogram {
+
+    private static final int RECALCULATION_INTERVAL = 16;
+
+    private final long[] samples;
+
+    private int count;
+
+    private int index;
+
+    private long[] sorted = new long[0];
+
+    private int sinceSorted;
+
+    LatencyHistogram(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    synchronized Optional<Duration> percentile(double percentile, int minimumSamples) {
+        if (this.count < minimumSamples) {
+            return Optional.empty();
+        }
+
+        if (this.sorted.length != this.count || this.sinceSorted >= RECALCULATION_INTERVAL) {
+            this.sorted = Arrays.copyOf(this.samples, this.count);
+            Arrays.sort(this.sorted);
+            this.sinceSorted = 0;
+        }
+
+        int rank = (int) Math.ceil(percentile * this.sorted.length) - 1;
+        return Optional.of(Duration.ofNanos(this.sorted[Math.max(0, Math.min(rank, this.sorted.length - 1))]));
+    }
+
+    synchronized void record(long latency) {
+        this.samples[this.index] = latency;
+        this.index = (this.index + 1) % this.samples.length;
+        this.count = Math.min(this.count + 1, this.samples.length);
+        this.sinceSorted++;
+    }
+
+}
@@ -16,14 +16,18 @@
 
 package org.cloudfoundry.reactor.util;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import reactor.core.Exceptions;
+import reactor.netty.NettyOutbound;
 import reactor.netty.http.client.HttpClientForm;
 import reactor.netty.http.client.HttpClientRequest;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -65,9 +69,11 @@ public final class MultipartHttpClientRequest {
 
         this.form.multipart(true);
 
+        ByteBufAllocator allocator = this.request instanceof NettyOutbound ? ((NettyOutbound) this.request).alloc() : ByteBufAllocator.DEFAULT;
+
         HttpClientForm intermediateForm = this.form;
         for (PartHttpClientRequest part : parts) {
-            intermediateForm = part.send(intermediateForm);
+            intermediateForm = part.send(intermediateForm, allocator);
         }
     }
 
@@ -83,19 +89,14 @@ public final class MultipartHttpClientRequest {
 
         private String name;
 
-        private ByteArrayInputStream payload;
+        private Object source;
 
         private PartHttpClientRequest(ObjectMapper objectMapper) {
             this.objectMapper = objectMapper;
         }
 
         public void send(Object source) {
-            try {
-                byte[] bytes = this.objectMapper.writeValueAsBytes(source);
-                this.payload = new ByteArrayInputStream(bytes);
-            } catch (JsonProcessingException e) {
-                throw Exceptions.propagate(e);
-            }
+            this.source = source;
         }
 
         public void sendFile(Path file) {
@@ -121,11 +122,17 @@ public final class MultipartHttpClientRequest {
             return this.filename != null ? this.filename : this.file.getFileName().toString();
         }
 
-        private HttpClientForm send(HttpClientForm form) {
+        private HttpClientForm send(HttpClientForm form, ByteBufAllocator allocator) {
             if (this.file != null) {
                 return form.file(this.name, getFilenameOrDefault(), this.file.toFile(), this.contentType);
-            } else if (this.payload != null) {
-                return form.file(this.name, this.payload, this.contentType);
+            } else if (this.source != null) {
+                ByteBuf payload = JsonCodec.serialize(this.objectMapper, this.source, allocator);
+
+                try (InputStream in = new ByteBufInputStream(payload, true)) {
+                    return form.file(this.name, in, this.contentType);
+                } catch (IOException e) {
+                    throw Exceptions.propagate(e);
+                }
             }
             return form;
         }
@@ -16,32 +16,48 @@
 
 package org.cloudfoundry.reactor.util;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.cloudfoundry.reactor.ConnectionContext;
 import org.cloudfoundry.reactor.HttpClientResponseWithBody;
+import org.cloudfoundry.reactor.RetryConfiguration;
+import org.cloudfoundry.util.DelayUtils;
 import org.reactivestreams.Publisher;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.netty.ByteBufFlux;
 import reactor.netty.Connection;
 import reactor.netty.NettyOutbound;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.http.client.HttpClientForm;
 import reactor.netty.http.client.HttpClientRequest;
 import reactor.netty.http.client.HttpClientResponse;
 import reactor.netty.http.websocket.WebsocketInbound;
 import reactor.netty.http.websocket.WebsocketOutbound;
+import reactor.util.context.Context;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.RETRY_AFTER;
 
 public class Operator extends OperatorContextAware {
 
@@ -85,11 +101,11 @@ public class Operator extends OperatorContextAware {
     }
 
     public UriConfiguration request(HttpMethod method) {
-        return new UriConfiguration(this.context, attachRequestLogger(this.httpClient).request(method));
+        return new UriConfiguration(this.context.withMethod(method), attachRequestLogger(this.httpClient).request(method));
     }
 
     public WebsocketUriConfiguration websocket() {
-        return new WebsocketUriConfiguration(this.context, this.httpClient.websocket());
+        return new WebsocketUriConfiguration(this.context, this.httpClient.protocol(HttpProtocol.HTTP11).websocket());
     }
 
     public Operator withErrorPayloadMapper(ErrorPayloadMapper errorPayloadMapper) {
@@ -154,13 +170,27 @@ public class Operator extends OperatorContextAware {
         public Mono<HttpClientResponse> get() {
             return this.responseReceiver.response((resp, body) -> Mono.just(HttpClientResponseWithBody.of(body, resp)))
                 .transform(this::processResponse)
+                .transform(this::limited)
+                .transform(this::scheduled)
+                .transform(this::withDeadline)
                 .map(HttpClientResponseWithBody::getResponse)
                 .singleOrEmpty();
         }
 
         public <T> Mono<T> parseBody(Class<T> bodyType) {
-            addChannelHandler(ignore -> JsonCodec.createDecoder());
-            return parseBodyToMono(responseWithBody -> deserialized(responseWithBody.getBody(), bodyType));
+            if (!isStreamingJsonDecode()) {
+                addChannelHandler(ignore -> JsonCodec.createDecoder());
+            }
+
+            Mono<T> body = hedged(parseBodyToMono(responseWithBody -> deserialized(responseWithBody.getBody(), bodyType)));
+
+            if (!isShareable()) {
+                return body;
+            }
+
+            return Mono.subscriberContext()
+                .flatMap(context -> getToken()
+                    .flatMap(token -> shared(body, bodyType, token, context)));
         }
 
         public <T> Flux<T> parseBodyToFlux(Function<HttpClientResponseWithBody, Publisher<T>> responseTransformer) {
@@ -172,13 +202,31 @@ public class Operator extends OperatorContextAware {
                 return Mono.just(HttpClientResponseWithBody.of(body, response));
             })
                 .transform(this::processResponse)
-                .flatMap(responseTransformer);
+                .flatMap(responseTransformer)
+                .transform(this::limited)
+                .transform(this::scheduled)
+                .transform(this::withDeadline);
         }
 
         public <T> Mono<T> parseBodyToMono(Function<HttpClientResponseWithBody, Publisher<T>> responseTransformer) {
             return parseBodyToFlux(responseTransformer).singleOrEmpty();
         }
 
+        private static Mono<Long> delayUntil(Instant deadline) {
+            Duration delay = Duration.between(Instant.now(), deadline);
+            return Mono.delay(delay.isNegative() ? Duration.ZERO : delay);
+        }
+
+        private static boolean isThrottled(HttpClientResponseWithBody response) {
+            HttpResponseStatus status = response.getResponse().status();
+            return status == HttpResponseStatus.TOO_MANY_REQUESTS || status == HttpResponseStatus.SERVICE_UNAVAILABLE;
+        }
+
+        private static boolean isTransientFailure(HttpClientResponseWithBody response) {
+            HttpResponseStatus status = response.getResponse().status();
+            return status == HttpResponseStatus.BAD_GATEWAY || status == HttpResponseStatus.SERVICE_UNAVAILABLE || status == HttpResponseStatus.GATEWAY_TIMEOUT;
+        }
+
         private static boolean isUnauthorized(HttpClientResponseWithBody response) {
             return response.getResponse().status() == HttpResponseStatus.UNAUTHORIZED;
         }
@@ -190,9 +238,43 @@ public class Operator extends OperatorContextAware {
         }
 
         private <T> Mono<T> deserialized(ByteBufFlux body, Class<T> bodyType) {
+            if (isStreamingJsonDecode()) {
+                return JsonCodec.decodeStreaming(this.context.getConnectionContext().getObjectMapper(), body, bodyType);
+            }
+
             return JsonCodec.decode(this.context.getConnectionContext().getObjectMapper(), body, bodyType);
         }
 
+        private String getResourceType() {
+            List<String> rootSegments = UriComponentsBuilder.fromUriString(this.context.getRoot()).build().getPathSegments();
+            List<String> segments = UriComponentsBuilder.fromUriString(this.context.getUri().orElse(this.context.getRoot())).build().getPathSegments();
+
+            return segments.size() > rootSegments.size() ? segments.get(rootSegments.size()) : "";
+        }
+
+        private Mono<String> getToken() {
+            return this.context.getTokenProvider()
+                .map(tokenProvider -> tokenProvider.getToken(this.context.getConnectionContext()))
+                .orElse(Mono.just(""));
+        }
+
+        private <T> Mono<T> hedged(Mono<T> body) {
+            if (!this.context.getMethod().filter(HttpMethod.GET::equals).isPresent() || !this.context.getUri().isPresent()) {
+                return body;
+            }
+
+            return this.context.getRequestHedger()
+                .map(requestHedger -> requestHedger.hedge(this.context.getUri().get(), body))
+                .orElse(body);
+        }
+
+        private void invalidateResponseCache() {
+            if (this.context.getMethod().filter(method -> !HttpMethod.GET.equals(method)).isPresent()) {
+                this.context.getConnectionContext().getResponseCache()
+                    .ifPresent(responseCache -> responseCache.invalidate(getResourceType()));
+            }
+        }
+
         private Flux<HttpClientResponseWithBody> invalidateToken(Flux<HttpClientResponseWithBody> inbound) {
             return inbound
                 .doOnNext(response -> {
@@ -203,15 +285,130 @@ public class Operator extends OperatorContextAware {
                 });
         }
 
+        private boolean isIdempotent() {
+            return this.context.getMethod()
+                .filter(method -> HttpMethod.GET.equals(method) || HttpMethod.PUT.equals(method) || HttpMethod.DELETE.equals(method))
+                .isPresent();
+        }
+
+        private boolean isRetryAllowed(RetryConfiguration retryConfiguration, long retries) {
+            return retries < retryConfiguration.getMaximumRetries() && this.context.getConnectionContext().getRetryBudget()
+                .map(RetryBudget::withdraw)
+                .orElse(true);
+        }
+
+        private boolean isShareable() {
+            ConnectionContext connectionContext = this.context.getConnectionContext();
+
+            return this.context.getMethod().filter(HttpMethod.GET::equals).isPresent()
+                && this.context.getUri().isPresent()
+                && (connectionContext.getRequestCoalescer().isPresent() || connectionContext.getResponseCache().isPresent());
+        }
+
+        private boolean isStreamingJsonDecode() {
+            return Boolean.TRUE.equals(this.context.getConnectionContext().getStreamingJsonDecode());
+        }
+
+        private <T> Flux<T> limited(Flux<T> inbound) {
+            return this.context.getConcurrencyLimiter()
+                .map(concurrencyLimiter -> concurrencyLimiter.limit(inbound))
+                .orElse(inbound);
+        }
+
         private Flux<HttpClientResponseWithBody> processResponse(Flux<HttpClientResponseWithBody> inbound) {
             return inbound
+                .doOnNext(this::recordThrottling)
                 .transform(this::invalidateToken)
                 .retry(this.context.getConnectionContext().getInvalidTokenRetries(),
                     t -> t instanceof InvalidTokenException)
+                .transform(this::retryTransientFailures)
+                .doOnNext(response -> invalidateResponseCache())
                 .transform(this.context.getErrorPayloadMapper()
                     .orElse(ErrorPayloadMappers.fallback()));
         }
 
+        private void recordThrottling(HttpClientResponseWithBody response) {
+            if (isThrottled(response)) {
+                this.context.getConcurrencyLimiter()
+                    .ifPresent(concurrencyLimiter -> concurrencyLimiter.throttled(ConcurrencyLimiter.parseRetryAfter(response.getResponse().responseHeaders().get(RETRY_AFTER))));
+            }
+        }
+
+        private Flux<HttpClientResponseWithBody> retryTransientFailures(Flux<HttpClientResponseWithBody> inbound) {
+            if (!isIdempotent()) {
+                return inbound;
+            }
+
+            return this.context.getRetryConfiguration()
+                .map(retryConfiguration -> Flux.defer(() -> {
+                    this.context.getConnectionContext().getRetryBudget().ifPresent(RetryBudget::deposit);
+                    return retryTransientFailures(inbound, retryConfiguration, 0);
+                }))
+                .orElse(inbound);
+        }
+
+        private Flux<HttpClientResponseWithBody> retryTransientFailures(Flux<HttpClientResponseWithBody> inbound, RetryConfiguration retryConfiguration, long retries) {
+            return inbound
+                .doOnNext(response -> {
+                    if (isTransientFailure(response) && isRetryAllowed(retryConfiguration, retries)) {
+                        throw new TransientFailureException();
+                    }
+                })
+                .onErrorResume(t -> t instanceof TransientFailureException || (t instanceof IOException && isRetryAllowed(retryConfiguration, retries)),
+                    t -> Mono.delay(DelayUtils.exponentialBackOffWithJitter(retryConfiguration.getMinimumBackoff(), retryConfiguration.getMaximumBackoff(), retries))
+                        .thenMany(retryTransientFailures(inbound, retryConfiguration, retries + 1)));
+        }
+
+        private <T> Flux<T> scheduled(Flux<T> inbound) {
+            return this.context.getRequestScheduler()
+                .map(requestScheduler -> Mono.subscriberContext()
+                    .flatMapMany(context -> requestScheduler.schedule(Priority.get(context), inbound)))
+                .orElse(inbound);
+        }
+
+        private <T> Mono<T> shared(Mono<T> body, Class<T> bodyType, String token, Context subscriberContext) {
+            ConnectionContext connectionContext = this.context.getConnectionContext();
+            HttpMethod method = this.context.getMethod().get();
+            String uri = this.context.getUri().get();
+
+            Mono<T> coalesced = connectionContext.getRequestCoalescer()
+                .map(requestCoalescer -> requestCoalescer.coalesce(RequestCoalescer.key(method, uri, token, bodyType, subscriberContext), body))
+                .orElse(body);
+
+            return connectionContext.getResponseCache()
+                .map(responseCache -> responseCache.get(getResourceType(), ResponseCache.key(uri, token, bodyType), coalesced))
+                .orElse(coalesced);
+        }
+
+        private <T> Flux<T> withDeadline(Flux<T> inbound) {
+            Flux<T> timed = this.context.getResponseTimeout()
+                .map(responseTimeout -> withResponseTimeout(inbound, responseTimeout))
+                .orElse(inbound);
+
+            return Mono.subscriberContext()
+                .flatMapMany(context -> Deadline.get(context)
+                    .map(deadline -> withDeadline(timed, deadline))
+                    .orElse(timed));
+        }
+
+        private <T> Flux<T> withDeadline(Flux<T> inbound, Instant deadline) {
+            return inbound
+                .timeout(delayUntil(deadline), item -> delayUntil(deadline), Flux.defer(() -> {
+                    this.context.getConnectionContext().getTimeoutCounter().ifPresent(TimeoutCounter::deadlineExceeded);
+                    return Flux.<T>error(new DeadlineExceededException(String.format("Response from %s not received before deadline of %s", this.context.getUri().orElse(this.context.getRoot()),
+                        deadline)));
+                }));
+        }
+
+        private <T> Flux<T> withResponseTimeout(Flux<T> inbound, Duration responseTimeout) {
+            return inbound
+                .timeout(responseTimeout, Flux.defer(() -> {
+                    this.context.getConnectionContext().getTimeoutCounter().ifPresent(TimeoutCounter::responseTimeout);
+                    return Flux.<T>error(new DeadlineExceededException(String.format("Response from %s not received within %s", this.context.getUri().orElse(this.context.getRoot()),
+                        responseTimeout)));
+                }));
+        }
+
         private static final class InvalidTokenException extends RuntimeException {
 
             private static final long serialVersionUID = -3114034909507471614L;
@@ -225,6 +422,19 @@ public class Operator extends OperatorContextAware {
             }
         }
 
+        private static final class TransientFailureException extends RuntimeException {
+
+            private static final long serialVersionUID = 4927616313529584571L;
+
+            private TransientFailureException() {
+            }
+
+            @Override
+            public synchronized Throwable fillInStackTrace() {
+                return null;
+            }
+        }
+
     }
 
     public static class ResponseReceiverConstructor extends OperatorContextAware {
@@ -253,7 +463,7 @@ public class Operator extends OperatorContextAware {
 
         public PayloadConfiguration uri(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
             String uri = transformRoot(uriTransformer);
-            return new PayloadConfiguration(this.context, this.requestSender.uri(uri));
+            return new PayloadConfiguration(this.context.withUri(uri), this.requestSender.uri(uri));
         }
 
     }
@@ -270,6 +480,35 @@ public class Operator extends OperatorContextAware {
             return this.sender.handle(this::handleWebsocketCommunication);
         }
 
+        public <T> Flux<T> get(Function<ByteBuf, T> frameDecoder) {
+            return get(frame -> true, frameDecoder);
+        }
+
+        public <T> Flux<T> get(Predicate<ByteBuf> frameFilter, Function<ByteBuf, T> frameDecoder) {
+            return this.sender.handle((inbound, outbound) -> inbound.aggregateFrames()
+                .receive()
+                .filter(frameFilter)
+                .map(frameDecoder)
+                .doFinally(signalType -> outbound.sendClose()));
+        }
+
+        public <T> Flux<T> get(Predicate<ByteBuf> frameFilter, Function<ByteBuf, T> frameDecoder, Duration keepAliveInterval, Duration idleTimeout) {
+            return this.sender.handle((inbound, outbound) -> Flux.using(
+                () -> outbound.sendObject(Flux.interval(keepAliveInterval).map(tick -> new PingWebSocketFrame()))
+                    .then()
+                    .onErrorResume(t -> Mono.empty())
+                    .subscribe(),
+                pings -> inbound.aggregateFrames()
+                    .receiveFrames()
+                    .timeout(idleTimeout)
+                    .filter(frame -> !(frame instanceof PongWebSocketFrame))
+                    .map(WebSocketFrame::content)
+                    .filter(frameFilter)
+                    .map(frameDecoder),
+                Disposable::dispose)
+                .doFinally(signalType -> outbound.sendClose()));
+        }
+
         private Publisher<InputStream> handleWebsocketCommunication(WebsocketInbound inbound, WebsocketOutbound outbound) {
             return inbound.aggregateFrames()
                 .receive()
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import reactor.util.context.Context;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The priority class of the requests made by a reactive chain, carried in its Reactor {@link Context}.  Apply it with {@code subscriberContext}, for example {@code
+ * cloudFoundryClient.applicationsV3().list(request).subscriberContext(Priority.LOW)}.  Requests without a priority are {@link #NORMAL}.  Priorities are enforced by the {@link RequestScheduler} of each
+ * scheduled endpoint, which shares capacity between classes in proportion to their weights.
+ */
+public enum Priority implements Function<Context, Context> {
+
+    /**
+     * Interactive requests, for example those serving page loads
+     */
+    HIGH(8),
+
+    /**
+     * Requests without an explicit priority
+     */
+    NORMAL(4),
+
+    /**
+     * Background requests, for example reconciliation scans
+     */
+    LOW(1);
+
+    private static final String KEY = "cloudfoundry-client.priority";
+
+    private final int weight;
+
+    Priority(int weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public Context apply(Context context) {
+        return context.put(KEY, this);
+    }
+
+    static Priority get(Context context) {
+        return context.<Priority>getOrEmpty(KEY).orElse(NORMAL);
+    }
+
+    int getWeight() {
+        return this.weight;
+    }
+
+}
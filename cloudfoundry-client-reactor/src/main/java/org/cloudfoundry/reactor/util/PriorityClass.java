@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class PriorityClass implements PriorityClassMXBean {
+
+    private final AtomicLong maximumQueueTime = new AtomicLong();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong totalQueueTime = new AtomicLong();
+
+    @Override
+    public long getMaximumQueueTime() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maximumQueueTime.get());
+    }
+
+    @Override
+    public double getMeanQueueTime() {
+        long requests = this.requests.get();
+        return requests == 0 ? 0 : (double) this.totalQueueTime.get() / requests / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public int getQueued() {
+        return this.queued.get();
+    }
+
+    @Override
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    void dequeued() {
+        this.queued.decrementAndGet();
+    }
+
+    void enqueued() {
+        this.queued.incrementAndGet();
+    }
+
+    void sent(long queueTime) {
+        this.requests.incrementAndGet();
+        this.totalQueueTime.addAndGet(queueTime);
+        this.maximumQueueTime.accumulateAndGet(queueTime, Math::max);
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+public interface PriorityClassMXBean {
+
+    /**
+     * Returns the maximum time, in milliseconds, that a request in this class has been queued before being sent
+     */
+    long getMaximumQueueTime();
+
+    /**
+     * Returns the mean time, in milliseconds, that requests in this class have been queued before being sent
+     */
+    double getMeanQueueTime();
+
+    /**
+     * Returns the number of requests in this class currently queued
+     */
+    int getQueued();
+
+    /**
+     * Returns the number of requests in this class that have been sent
+     */
+    long getRequests();
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.util.context.Context;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Coalesces identical, concurrent {@code GET} requests so that they share a single network exchange and a single decoded response.  Requests are identical when they have the same method, URI,
+ * authorization token, response type, {@link Deadline}, and {@link Priority}.  The shared request runs with the Reactor {@link Context} of the first subscriber, and is cancelled only once every
+ * subscriber has cancelled.  The result is replayed to every subscriber, including one that joins just as the shared request terminates.  Once the shared request terminates, the next request is
+ * made afresh.
+ */
+public final class RequestCoalescer implements RequestCoalescerMXBean {
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final ConcurrentMap<Object, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @Override
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    @Override
+    public int getInFlight() {
+        return this.inFlight.size();
+    }
+
+    @Override
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    static Object key(HttpMethod method, String uri, String token, Class<?> responseType, Context context) {
+        return Arrays.asList(method, uri, token, responseType, Deadline.get(context).orElse(null), Priority.get(context));
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Mono<T> coalesce(Object key, Mono<T> source) {
+        return Mono.defer(() -> {
+            AtomicBoolean created = new AtomicBoolean();
+
+            Mono<?> shared = this.inFlight.computeIfAbsent(key, k -> {
+                created.set(true);
+                return share(k, source);
+            });
+
+            if (created.get()) {
+                this.misses.incrementAndGet();
+            } else {
+                this.hits.incrementAndGet();
+            }
+
+            return (Mono<T>) shared;
+        });
+    }
+
+    private Mono<?> share(Object key, Mono<?> source) {
+        AtomicBoolean connected = new AtomicBoolean();
+        AtomicBoolean disposed = new AtomicBoolean();
+        AtomicReference<Mono<?>> reference = new AtomicReference<>();
+        MonoProcessor<Object> result = MonoProcessor.create();
+        AtomicInteger subscribers = new AtomicInteger();
+
+        Mono<?> shared = Mono.subscriberContext()
+            .flatMap(context -> {
+                if (disposed.get()) {
+                    return source;
+                }
+
+                subscribers.incrementAndGet();
+
+                if (connected.compareAndSet(false, true)) {
+                    source
+                        .doOnTerminate(() -> this.inFlight.remove(key, reference.get()))
+                        .doFinally(signalType -> this.inFlight.remove(key, reference.get()))
+                        .subscriberContext(context)
+                        .subscribe(result);
+                }
+
+                return result
+                    .doOnCancel(() -> {
+                        if (subscribers.decrementAndGet() == 0 && disposed.compareAndSet(false, true)) {
+                            result.dispose();
+                        }
+                    });
+            });
+
+        reference.set(shared);
+        return shared;
+    }
+
+}
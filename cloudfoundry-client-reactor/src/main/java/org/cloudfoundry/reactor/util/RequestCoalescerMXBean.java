@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+public interface RequestCoalescerMXBean {
+
+    /**
+     * Returns the number of requests that shared an identical in-flight request rather than making their own
+     */
+    long getHits();
+
+    /**
+     * Returns the number of requests currently in flight that can be shared
+     */
+    int getInFlight();
+
+    /**
+     * Returns the number of requests that found no identical in-flight request and made their own
+     */
+    long getMisses();
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Hedges {@code GET} requests to reduce tail latency.  If a request has not been answered within a percentile of the recent latencies of the same route, a second copy is sent; the first response
+ * is used and the other request is cancelled.  Routes are request paths with GUIDs replaced by placeholders, so that for example all {@code /v2/apps/{guid}/stats} requests share a histogram.
+ * Each request permits {@code maximumHedgeRate} hedged copies, so that hedging cannot add more than that proportion of load.  Only the latency of the first copy of a request is recorded: if the
+ * hedged copy answers first, the first copy is cancelled and the time it had been outstanding is recorded as a censored sample, so that the histogram still reflects, as a lower bound, the tail
+ * that hedging hides.  Hedging applies only to requests whose response body is decoded
+ * into a single value ({@code parseBody}), as streamed and raw responses cannot be raced without buffering them.
+ */
+public final class RequestHedger implements RequestHedgerMXBean {
+
+    private static final Pattern GUID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}", Pattern.CASE_INSENSITIVE);
+
+    private static final int HISTOGRAM_CAPACITY = 512;
+
+    private static final int RESERVE = 10;
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private final double maximumHedgeRate;
+
+    private final int minimumSamples;
+
+    private final double percentile;
+
+    private double balance = RESERVE;
+
+    private long hedged;
+
+    private long requests;
+
+    private long suppressed;
+
+    private long wins;
+
+    /**
+     * Creates a new instance that hedges at the 95th percentile, adding at most 5% extra requests, once a route has 100 samples
+     */
+    public RequestHedger() {
+        this(0.95, 0.05, 100);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param percentile       the percentile of recent latencies after which a request is hedged (e.g. {@code 0.95})
+     * @param maximumHedgeRate the maximum number of hedged copies per request (e.g. {@code 0.05})
+     * @param minimumSamples   the number of latencies that must be recorded for a route before its requests are hedged
+     */
+    public RequestHedger(double percentile, double maximumHedgeRate, int minimumSamples) {
+        this.maximumHedgeRate = maximumHedgeRate;
+        this.minimumSamples = minimumSamples;
+        this.percentile = percentile;
+    }
+
+    @Override
+    public synchronized long getHedged() {
+        return this.hedged;
+    }
+
+    @Override
+    public synchronized long getRequests() {
+        return this.requests;
+    }
+
+    @Override
+    public synchronized long getSuppressed() {
+        return this.suppressed;
+    }
+
+    @Override
+    public synchronized long getWins() {
+        return this.wins;
+    }
+
+    static String getRoute(String uri) {
+        String path = UriComponentsBuilder.fromUriString(uri).build().getPath();
+        return GUID.matcher(path == null ? "" : path).replaceAll("{guid}");
+    }
+
+    <T> Mono<T> hedge(String uri, Mono<T> request) {
+        LatencyHistogram histogram = this.histograms.computeIfAbsent(getRoute(uri), route -> new LatencyHistogram(HISTOGRAM_CAPACITY));
+
+        return Mono.subscriberContext().flatMap(context -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            Runnable record = () -> {
+                if (recorded.compareAndSet(false, true)) {
+                    histogram.record(System.nanoTime() - start);
+                }
+            };
+
+            Optional<Duration> delay = histogram.percentile(this.percentile, this.minimumSamples);
+            deposit();
+
+            Mono<T> primary = request
+                .doOnSuccess(ignore -> record.run());
+
+            return delay
+                .map(d -> hedged(primary, request, d, context, record))
+                .orElse(primary);
+        });
+    }
+
+    private synchronized void deposit() {
+        this.requests++;
+        this.balance = Math.min(RESERVE, this.balance + this.maximumHedgeRate);
+    }
+
+    private <T> Mono<T> hedged(Mono<T> primary, Mono<T> request, Duration delay, Context context, Runnable record) {
+        AtomicBoolean hedgeWon = new AtomicBoolean();
+        MonoProcessor<T> outstanding = primary
+            .subscriberContext(context)
+            .toProcessor();
+
+        Mono<T> hedge = Mono.delay(delay)
+            .flatMap(ignore -> withdraw() ? request.doOnSuccess(value -> hedgeWon.set(true)) : Mono.<T>never());
+
+        return Mono.first(Arrays.asList(outstanding, hedge))
+            .doOnCancel(outstanding::dispose)
+            .doOnSuccess(ignore -> {
+                if (hedgeWon.get()) {
+                    won();
+                    record.run();
+                    outstanding.dispose();
+                }
+            });
+    }
+
+    private synchronized boolean withdraw() {
+        if (this.balance < 1) {
+            this.suppressed++;
+            return false;
+        }
+
+        this.balance--;
+        this.hedged++;
+        return true;
+    }
+
+    private synchronized void won() {
+        this.wins++;
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+public interface RequestHedgerMXBean {
+
+    /**
+     * Returns the number of requests for which a second, hedged, copy was sent
+     */
+    long getHedged();
+
+    /**
+     * Returns the number of requests eligible for hedging
+     */
+    long getRequests();
+
+    /**
+     * Returns the number of hedged copies not sent because the maximum hedge rate was reached
+     */
+    long getSuppressed();
+
+    /**
+     * Returns the number of requests answered first by the hedged copy
+     */
+    long getWins();
+
+}
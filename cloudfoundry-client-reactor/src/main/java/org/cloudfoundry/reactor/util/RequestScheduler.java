@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Schedules requests of different {@link Priority} classes onto a fixed number of concurrent requests, typically the size of the connection pool of an endpoint.  Requests beyond the capacity are queued by
+ * class, and as capacity becomes available queued requests are sent using smooth weighted round-robin, so that each class with queued requests receives capacity in proportion to its weight.
+ */
+public final class RequestScheduler {
+
+    private final int capacity;
+
+    private final Map<Priority, Integer> currentWeights = new EnumMap<>(Priority.class);
+
+    private final Map<Priority, PriorityClass> priorityClasses = new EnumMap<>(Priority.class);
+
+    private final Map<Priority, Queue<Waiter>> queues = new EnumMap<>(Priority.class);
+
+    private int inFlight;
+
+    /**
+     * Creates a new instance
+     *
+     * @param capacity the maximum number of concurrent requests
+     */
+    public RequestScheduler(int capacity) {
+        this.capacity = capacity;
+
+        for (Priority priority : Priority.values()) {
+            this.currentWeights.put(priority, 0);
+            this.priorityClasses.put(priority, new PriorityClass());
+            this.queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Returns the statistics for each priority class
+     */
+    public Map<Priority, PriorityClassMXBean> getPriorityClasses() {
+        return Collections.unmodifiableMap(this.priorityClasses);
+    }
+
+    int getCapacity() {
+        return this.capacity;
+    }
+
+    <T> Flux<T> schedule(Priority priority, Flux<T> source) {
+        return acquire(priority)
+            .thenMany(Flux.defer(() -> source
+                .doFinally(signalType -> release())));
+    }
+
+    private Mono<Void> acquire(Priority priority) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(priority, sink);
+            PriorityClass priorityClass = this.priorityClasses.get(priority);
+
+            synchronized (this) {
+                if (this.inFlight < this.capacity && isEmpty()) {
+                    this.inFlight++;
+                    waiter.granted = true;
+                } else {
+                    this.queues.get(priority).add(waiter);
+                    priorityClass.enqueued();
+                }
+            }
+
+            sink.onCancel(() -> cancel(waiter));
+
+            if (waiter.granted) {
+                priorityClass.sent(0);
+                sink.success();
+            }
+        });
+    }
+
+    private void cancel(Waiter waiter) {
+        boolean granted;
+
+        synchronized (this) {
+            granted = waiter.granted;
+
+            if (this.queues.get(waiter.priority).remove(waiter)) {
+                this.priorityClasses.get(waiter.priority).dequeued();
+            }
+        }
+
+        if (granted) {
+            release();
+        }
+    }
+
+    private boolean isEmpty() {
+        return this.queues.values().stream().allMatch(Queue::isEmpty);
+    }
+
+    private Waiter next() {
+        Priority selected = null;
+        int totalWeight = 0;
+
+        for (Priority priority : Priority.values()) {
+            if (this.queues.get(priority).isEmpty()) {
+                continue;
+            }
+
+            int currentWeight = this.currentWeights.get(priority) + priority.getWeight();
+            this.currentWeights.put(priority, currentWeight);
+            totalWeight += priority.getWeight();
+
+            if (selected == null || currentWeight > this.currentWeights.get(selected)) {
+                selected = priority;
+            }
+        }
+
+        if (selected == null) {
+            return null;
+        }
+
+        this.currentWeights.put(selected, this.currentWeights.get(selected) - totalWeight);
+        this.priorityClasses.get(selected).dequeued();
+        return this.queues.get(selected).remove();
+    }
+
+    private void release() {
+        Waiter waiter;
+
+        synchronized (this) {
+            this.inFlight--;
+
+            waiter = next();
+            if (waiter != null) {
+                this.inFlight++;
+                waiter.granted = true;
+            }
+        }
+
+        if (waiter != null) {
+            this.priorityClasses.get(waiter.priority).sent(System.nanoTime() - waiter.enqueued);
+            waiter.sink.success();
+        }
+    }
+
+    private static final class Waiter {
+
+        private final long enqueued = System.nanoTime();
+
+        private final Priority priority;
+
+        private final MonoSink<Void> sink;
+
+        private boolean granted;
+
+        private Waiter(Priority priority, MonoSink<Void> sink) {
+            this.priority = priority;
+            this.sink = sink;
+        }
+
+    }
+
+}
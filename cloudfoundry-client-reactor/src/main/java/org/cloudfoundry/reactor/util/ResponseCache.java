@@ -0,0 +1,189 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, least-recently-used cache of decoded {@code GET} responses for stable resources.  Resource types are identified by the first path segment following the API root (e.g. {@code
+ * stacks}, {@code shared_domains}, {@code buildpacks}, {@code quota_definitions}, {@code service_plans}, or {@code config} for feature flags) and only types with a configured time-to-live are
+ * cached.  Any other request made for a resource type through the same {@link org.cloudfoundry.reactor.ConnectionContext} invalidates all cached responses of that type.  Changes made through
+ * another {@code ConnectionContext}, another process, or the CLI are not seen until cached responses expire.  Responses are keyed by the identity behind the authorization token rather than by the
+ * token itself, so that entries survive token refreshes.
+ */
+public final class ResponseCache implements ResponseCacheMXBean {
+
+    private final Map<Object, Entry> entries;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final Map<String, Long> generations = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final Map<String, Duration> timesToLive;
+
+    /**
+     * Creates a new instance
+     *
+     * @param maximumSize the maximum number of responses to cache
+     * @param timesToLive the time-to-live of responses, keyed by resource type
+     */
+    public ResponseCache(int maximumSize, Map<String, Duration> timesToLive) {
+        this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = -4427350475163462862L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                boolean evict = size() > maximumSize;
+
+                if (evict) {
+                    ResponseCache.this.evictions.incrementAndGet();
+                }
+
+                return evict;
+            }
+
+        };
+        this.timesToLive = Collections.unmodifiableMap(new HashMap<>(timesToLive));
+    }
+
+    @Override
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    @Override
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    @Override
+    public long getInvalidations() {
+        return this.invalidations.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return this.entries.size();
+    }
+
+    static Object key(String uri, String token, Class<?> responseType) {
+        return Arrays.asList(uri, TokenIdentity.of(token), responseType);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Mono<T> get(String resourceType, Object key, Mono<T> source) {
+        Duration timeToLive = this.timesToLive.get(resourceType);
+
+        if (timeToLive == null) {
+            return source;
+        }
+
+        return Mono.defer(() -> {
+            Object cached = lookup(key);
+
+            if (cached != null) {
+                this.hits.incrementAndGet();
+                return Mono.just((T) cached);
+            }
+
+            this.misses.incrementAndGet();
+            long generation = getGeneration(resourceType);
+
+            return source
+                .doOnNext(value -> store(resourceType, key, value, timeToLive, generation));
+        });
+    }
+
+    synchronized void invalidate(String resourceType) {
+        if (!this.timesToLive.containsKey(resourceType)) {
+            return;
+        }
+
+        this.generations.merge(resourceType, 1L, Long::sum);
+        this.invalidations.incrementAndGet();
+
+        Iterator<Entry> iterator = this.entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (resourceType.equals(iterator.next().resourceType)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized long getGeneration(String resourceType) {
+        return this.generations.getOrDefault(resourceType, 0L);
+    }
+
+    private synchronized Object lookup(Object key) {
+        Entry entry = this.entries.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expiration - System.nanoTime() <= 0) {
+            this.entries.remove(key);
+            return null;
+        }
+
+        return entry.value;
+    }
+
+    private synchronized void store(String resourceType, Object key, Object value, Duration timeToLive, long generation) {
+        if (generation == getGeneration(resourceType)) {
+            this.entries.put(key, new Entry(resourceType, value, System.nanoTime() + timeToLive.toNanos()));
+        }
+    }
+
+    private static final class Entry {
+
+        private final long expiration;
+
+        private final String resourceType;
+
+        private final Object value;
+
+        private Entry(String resourceType, Object value, long expiration) {
+            this.expiration = expiration;
+            this.resourceType = resourceType;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+public interface ResponseCacheMXBean {
+
+    /**
+     * Returns the number of responses evicted to keep the cache within its maximum size
+     */
+    long getEvictions();
+
+    /**
+     * Returns the number of responses served from the cache
+     */
+    long getHits();
+
+    /**
+     * Returns the number of times a resource type was invalidated by a mutating request
+     */
+    long getInvalidations();
+
+    /**
+     * Returns the number of cacheable responses that were not present in the cache, or had expired
+     */
+    long getMisses();
+
+    /**
+     * Returns the number of responses currently cached
+     */
+    int getSize();
+
+}
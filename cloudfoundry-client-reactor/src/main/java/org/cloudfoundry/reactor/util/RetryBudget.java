@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+/**
+ * A budget that limits retries to a proportion of the requests made, so that retries cannot amplify an outage.  Each request deposits {@code ratio} retries into the budget and each retry
+ * withdraws one.  The balance starts at, and cannot exceed, {@code reserve} so that occasional retries are permitted when few requests are being made.
+ */
+public final class RetryBudget implements RetryBudgetMXBean {
+
+    private final double ratio;
+
+    private final int reserve;
+
+    private long attempted;
+
+    private double balance;
+
+    private long suppressed;
+
+    /**
+     * Creates a new instance permitting retries of 10% of requests, with a reserve of 10 retries
+     */
+    public RetryBudget() {
+        this(0.1, 10);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param ratio   the number of retries permitted per request
+     * @param reserve the maximum number of retries that can be accumulated
+     */
+    public RetryBudget(double ratio, int reserve) {
+        this.balance = reserve;
+        this.ratio = ratio;
+        this.reserve = reserve;
+    }
+
+    @Override
+    public synchronized long getAttempted() {
+        return this.attempted;
+    }
+
+    @Override
+    public synchronized double getBalance() {
+        return this.balance;
+    }
+
+    @Override
+    public synchronized long getSuppressed() {
+        return this.suppressed;
+    }
+
+    synchronized void deposit() {
+        this.balance = Math.min(this.reserve, this.balance + this.ratio);
+    }
+
+    synchronized boolean withdraw() {
+        if (this.balance < 1) {
+            this.suppressed++;
+            return false;
+        }
+
+        this.attempted++;
+        this.balance--;
+        return true;
+    }
+
+}
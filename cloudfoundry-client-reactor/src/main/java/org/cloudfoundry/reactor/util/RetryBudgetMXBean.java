@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+public interface RetryBudgetMXBean {
+
+    /**
+     * Returns the number of retries attempted
+     */
+    long getAttempted();
+
+    /**
+     * Returns the number of retries currently available in the budget
+     */
+    double getBalance();
+
+    /**
+     * Returns the number of retries suppressed because the budget was exhausted
+     */
+    long getSuppressed();
+
+}
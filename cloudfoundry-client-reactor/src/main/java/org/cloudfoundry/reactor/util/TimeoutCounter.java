@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts requests that failed with a {@link DeadlineExceededException}
+ */
+public final class TimeoutCounter implements TimeoutCounterMXBean {
+
+    private final AtomicLong deadlinesExceeded = new AtomicLong();
+
+    private final AtomicLong responseTimeouts = new AtomicLong();
+
+    @Override
+    public long getDeadlinesExceeded() {
+        return this.deadlinesExceeded.get();
+    }
+
+    @Override
+    public long getResponseTimeouts() {
+        return this.responseTimeouts.get();
+    }
+
+    void deadlineExceeded() {
+        this.deadlinesExceeded.incrementAndGet();
+    }
+
+    void responseTimeout() {
+        this.responseTimeouts.incrementAndGet();
+    }
+
+}
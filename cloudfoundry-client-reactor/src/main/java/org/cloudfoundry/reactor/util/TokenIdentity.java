@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * The identity behind an authorization token, used in place of the token itself when keying responses.  For a JWT the identity is its issuer, zone, user, client, and scopes, so that entries
+ * survive token refreshes.  For any other token it is a SHA-256 digest, so that the token is never retained.
+ */
+final class TokenIdentity {
+
+    private TokenIdentity() {
+    }
+
+    static Object of(String token) {
+        try {
+            String jwt = token.substring(token.indexOf(' ') + 1);
+            Claims claims = Jwts.parser().parseClaimsJwt(jwt.substring(0, jwt.lastIndexOf('.') + 1)).getBody();
+
+            return Arrays.asList(claims.getIssuer(), claims.get("zid"), claims.get("user_id"), claims.get("client_id"), claims.get("scope"));
+        } catch (Exception e) {
+            return digest(token);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
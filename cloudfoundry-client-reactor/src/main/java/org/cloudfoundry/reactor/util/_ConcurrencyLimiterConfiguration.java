@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Configuration for a {@link ConcurrencyLimiter}
+ */
+@Value.Immutable
+abstract class _ConcurrencyLimiterConfiguration {
+
+    /**
+     * The initial limit on requests in flight. Defaults to 10.
+     */
+    @Value.Default
+    public Integer getInitialLimit() {
+        return 10;
+    }
+
+    /**
+     * The (optional) latency above which a successful request reduces the limit
+     */
+    public abstract Optional<Duration> getLatencyThreshold();
+
+    /**
+     * The maximum limit on requests in flight. Defaults to 100.
+     */
+    @Value.Default
+    public Integer getMaximumLimit() {
+        return 100;
+    }
+
+    /**
+     * The maximum number of requests to queue. Defaults to 1000.
+     */
+    @Value.Default
+    public Integer getMaximumQueueSize() {
+        return 1000;
+    }
+
+    /**
+     * The minimum limit on requests in flight. Defaults to 1.
+     */
+    @Value.Default
+    public Integer getMinimumLimit() {
+        return 1;
+    }
+
+    /**
+     * The maximum time a request can be queued. Defaults to 30 seconds.
+     */
+    @Value.Default
+    public Duration getQueueTimeout() {
+        return Duration.ofSeconds(30);
+    }
+
+    @Value.Check
+    void checkLimits() {
+        if (getMinimumLimit() < 1) {
+            throw new IllegalStateException("Cannot build ConcurrencyLimiterConfiguration, minimumLimit must be at least 1");
+        }
+
+        if (getInitialLimit() < getMinimumLimit() || getInitialLimit() > getMaximumLimit()) {
+            throw new IllegalStateException("Cannot build ConcurrencyLimiterConfiguration, initialLimit must be between minimumLimit and maximumLimit");
+        }
+
+        if (getMaximumQueueSize() < 0) {
+            throw new IllegalStateException("Cannot build ConcurrencyLimiterConfiguration, maximumQueueSize must not be negative");
+        }
+    }
+
+}
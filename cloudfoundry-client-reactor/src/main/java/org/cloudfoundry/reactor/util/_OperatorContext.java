@@ -16,23 +16,40 @@
 
 package org.cloudfoundry.reactor.util;
 
+import io.netty.handler.codec.http.HttpMethod;
 import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.RetryConfiguration;
 import org.cloudfoundry.reactor.TokenProvider;
 import org.immutables.value.Value;
 
+import java.time.Duration;
 import java.util.Optional;
 
 @Value.Immutable(copy = true)
 public interface _OperatorContext {
 
+    Optional<ConcurrencyLimiter> getConcurrencyLimiter();
+
     @Value.Parameter
     ConnectionContext getConnectionContext();
 
     Optional<ErrorPayloadMapper> getErrorPayloadMapper();
 
+    Optional<HttpMethod> getMethod();
+
+    Optional<RequestHedger> getRequestHedger();
+
+    Optional<RequestScheduler> getRequestScheduler();
+
+    Optional<Duration> getResponseTimeout();
+
+    Optional<RetryConfiguration> getRetryConfiguration();
+
     @Value.Parameter
     String getRoot();
 
     Optional<TokenProvider> getTokenProvider();
 
+    Optional<String> getUri();
+
 }
@@ -55,7 +55,7 @@ public abstract class AbstractRestTest {
 
     protected final Mono<String> root;
 
-    final MockWebServer mockWebServer;
+    protected final MockWebServer mockWebServer;
 
     private MultipleRequestDispatcher multipleRequestDispatcher = new MultipleRequestDispatcher();
 
@@ -16,14 +16,19 @@
 
 package org.cloudfoundry.reactor;
 
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.cloudfoundry.reactor.util.ConnectionPoolMonitor;
 import org.junit.After;
 import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
 
 import static io.netty.handler.codec.http.HttpMethod.GET;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static org.assertj.core.api.Assertions.assertThat;
 
 public final class DefaultConnectionContextTest extends AbstractRestTest {
 
@@ -68,6 +73,185 @@ public final class DefaultConnectionContextTest extends AbstractRestTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void connectionPools() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost("test-host")
+            .connectionPool(Endpoint.UAA, ConnectionPoolConfiguration.builder()
+                .maximumConnections(2)
+                .maximumIdleTime(Duration.ofSeconds(30))
+                .pendingAcquireTimeout(Duration.ofSeconds(5))
+                .build())
+            .build();
+
+        assertThat(connectionContext.getHttpClient(Endpoint.UAA)).isNotSameAs(connectionContext.getHttpClient());
+        assertThat(connectionContext.getHttpClient(Endpoint.DOPPLER)).isSameAs(connectionContext.getHttpClient());
+        assertThat(connectionContext.getConnectionPoolMonitors()).containsOnlyKeys(Endpoint.UAA);
+
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void connectionPoolsAcquiring() {
+        for (int i = 0; i < 2; i++) {
+            mockRequest(InteractionContext.builder()
+                .request(TestRequest.builder()
+                    .method(GET).path("/")
+                    .build())
+                .response(TestResponse.builder()
+                    .status(OK)
+                    .delay(Duration.ofMillis(500))
+                    .build())
+                .build());
+        }
+
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .connectionPool(Endpoint.UAA, ConnectionPoolConfiguration.builder()
+                .maximumConnections(1)
+                .build())
+            .port(this.mockWebServer.getPort())
+            .secure(false)
+            .build();
+
+        ConnectionPoolMonitor connectionPoolMonitor = connectionContext.getConnectionPoolMonitors().get(Endpoint.UAA);
+        Mono<HttpResponseStatus> request = connectionContext.getHttpClient(Endpoint.UAA)
+            .get()
+            .uri(this.mockWebServer.url("/").toString())
+            .response((response, body) -> body.then(Mono.just(response.status())))
+            .single();
+
+        Flux.merge(request, request)
+            .as(StepVerifier::create)
+            .then(() -> {
+                try {
+                    Thread.sleep(250);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+
+                assertThat(connectionPoolMonitor.getAcquiring()).isEqualTo(1);
+                assertThat(connectionPoolMonitor.getActive()).isEqualTo(1);
+            })
+            .expectNext(OK, OK)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(connectionPoolMonitor.getAcquiring()).isZero();
+
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void connectionPoolsMaximumIdleTime() throws InterruptedException {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .build())
+            .build());
+
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .connectionPool(Endpoint.UAA, ConnectionPoolConfiguration.builder()
+                .maximumIdleTime(Duration.ofMillis(100))
+                .build())
+            .port(this.mockWebServer.getPort())
+            .secure(false)
+            .build();
+
+        connectionContext.getHttpClient(Endpoint.UAA)
+            .get()
+            .uri(this.mockWebServer.url("/").toString())
+            .response((response, body) -> body.then(Mono.just(response.status())))
+            .as(StepVerifier::create)
+            .expectNext(OK)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        Thread.sleep(500);
+        assertThat(connectionContext.getConnectionPoolMonitors().get(Endpoint.UAA).getActive()).isZero();
+        assertThat(connectionContext.getConnectionPoolMonitors().get(Endpoint.UAA).getIdle()).isZero();
+
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void http2Endpoints() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost("test-host")
+            .http2ConnectionPoolSize(4)
+            .http2Endpoint(Endpoint.UAA)
+            .build();
+
+        assertThat(connectionContext.getHttpClient(Endpoint.UAA)).isNotSameAs(connectionContext.getHttpClient());
+        assertThat(connectionContext.getHttpClient(Endpoint.CLOUD_CONTROLLER)).isSameAs(connectionContext.getHttpClient());
+        assertThat(connectionContext.getHttp2ConnectionProvider()).isPresent();
+
+        connectionContext.dispose();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void http2EndpointsDoppler() {
+        DefaultConnectionContext.builder()
+            .apiHost("test-host")
+            .http2Endpoint(Endpoint.DOPPLER)
+            .build();
+    }
+
+    @Test
+    public void http2EndpointsInsecure() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost("test-host")
+            .http2Endpoint(Endpoint.UAA)
+            .secure(false)
+            .build();
+
+        assertThat(connectionContext.getHttpClient(Endpoint.UAA)).isSameAs(connectionContext.getHttpClient());
+        assertThat(connectionContext.getHttp2ConnectionProvider()).isEmpty();
+
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void http2EndpointsWithConnectionPool() {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .build())
+            .build());
+
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .connectionPool(Endpoint.UAA, ConnectionPoolConfiguration.builder()
+                .maximumConnections(2)
+                .build())
+            .http2Endpoint(Endpoint.UAA)
+            .port(this.mockWebServer.getPort())
+            .secure(false)
+            .build();
+
+        connectionContext.getHttpClient(Endpoint.UAA)
+            .get()
+            .uri(this.mockWebServer.url("/").toString())
+            .response((response, body) -> body.then(Mono.just(response.status())))
+            .as(StepVerifier::create)
+            .expectNext(OK)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(connectionContext.getHttp2ConnectionProvider()).isEmpty();
+        assertThat(connectionContext.getConnectionPoolMonitors().get(Endpoint.UAA).getActive() + connectionContext.getConnectionPoolMonitors().get(Endpoint.UAA).getIdle()).isEqualTo(1);
+        assertThat(connectionContext.getConnectionPoolMonitor().getActive() + connectionContext.getConnectionPoolMonitor().getIdle()).isZero();
+
+        connectionContext.dispose();
+    }
+
     @Test
     public void multipleInstances() {
         DefaultConnectionContext first = DefaultConnectionContext.builder()
@@ -85,4 +269,24 @@ public final class DefaultConnectionContextTest extends AbstractRestTest {
         second.dispose();
     }
 
+    @Test
+    public void retryOverrides() {
+        RetryConfiguration retryConfiguration = RetryConfiguration.builder()
+            .build();
+        RetryConfiguration retryOverride = RetryConfiguration.builder()
+            .maximumRetries(1)
+            .build();
+
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost("test-host")
+            .retryConfiguration(retryConfiguration)
+            .retryOverride(Endpoint.UAA, retryOverride)
+            .build();
+
+        assertThat(connectionContext.getRetryConfiguration(Endpoint.CLOUD_CONTROLLER)).hasValue(retryConfiguration);
+        assertThat(connectionContext.getRetryConfiguration(Endpoint.UAA)).hasValue(retryOverride);
+
+        connectionContext.dispose();
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+public final class EncryptedFileStateStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void getAbsent() throws IOException {
+        new EncryptedFileStateStore(this.folder.newFolder().toPath(), "test-password".toCharArray())
+            .get("test-key")
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void getExpired() throws IOException {
+        EncryptedFileStateStore stateStore = new EncryptedFileStateStore(this.folder.newFolder().toPath(), "test-password".toCharArray());
+
+        stateStore
+            .put("test-key", "test-value", Duration.ofMillis(-1))
+            .then(stateStore.get("test-key"))
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void getWrongPassword() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+
+        new EncryptedFileStateStore(directory, "test-password".toCharArray())
+            .put("test-key", "test-value", Duration.ofHours(1))
+            .then(new EncryptedFileStateStore(directory, "test-other-password".toCharArray()).get("test-key"))
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void put() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+
+        new EncryptedFileStateStore(directory, "test-password".toCharArray())
+            .put("test-key", "test-value", Duration.ofHours(1))
+            .then(new EncryptedFileStateStore(directory, "test-password".toCharArray()).get("test-key"))
+            .as(StepVerifier::create)
+            .expectNext("test-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+}
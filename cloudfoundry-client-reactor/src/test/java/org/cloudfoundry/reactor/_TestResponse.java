@@ -24,8 +24,10 @@ import org.immutables.value.Value;
 import org.springframework.core.io.ClassPathResource;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Value.Immutable
 abstract class _TestResponse {
@@ -34,12 +36,15 @@ abstract class _TestResponse {
 
     abstract Optional<String> getContentType();
 
+    abstract Optional<Duration> getDelay();
+
     @AllowNulls
     abstract Map<String, String> getHeaders();
 
     MockResponse getMockResponse() {
         MockResponse response = new MockResponse().setResponseCode(getStatus().code());
 
+        getDelay().ifPresent(delay -> response.setHeadersDelay(delay.toMillis(), TimeUnit.MILLISECONDS));
         getHeaders().forEach(response::addHeader);
 
         getPayload()
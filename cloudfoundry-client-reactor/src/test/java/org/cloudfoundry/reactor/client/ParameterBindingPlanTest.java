@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import org.cloudfoundry.QueryParameter;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class ParameterBindingPlanTest {
+
+    private final ParameterBindingPlan<QueryParameter> plan = new ParameterBindingPlan<>(QueryParameter.class);
+
+    @Test
+    public void cached() {
+        assertThat(this.plan.get(StubQueryParams.class)).isSameAs(this.plan.get(StubQueryParams.class));
+    }
+
+    @Test
+    public void ordered() {
+        List<String> names = this.plan.get(StubQueryParams.class).stream()
+            .map(binding -> binding.getAnnotation().value())
+            .collect(Collectors.toList());
+
+        assertThat(names).containsExactly("test-alpha", "test-bravo", "test-charlie");
+    }
+
+    @Test
+    public void values() {
+        List<Object> values = this.plan.get(StubQueryParams.class).stream()
+            .map(binding -> binding.getValue(new StubQueryParams()).orElse("test-absent"))
+            .collect(Collectors.toList());
+
+        assertThat(values).containsExactly("test-value-1", 2, "test-absent");
+    }
+
+    public static final class StubQueryParams {
+
+        @QueryParameter("test-alpha")
+        public String getAlpha() {
+            return "test-value-1";
+        }
+
+        @QueryParameter("test-bravo")
+        public int getBravo() {
+            return 2;
+        }
+
+        @QueryParameter("test-charlie")
+        public String getCharlie() {
+            return null;
+        }
+
+        public String getUnannotated() {
+            return "test-value-4";
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.buffer.Unpooled;
+import org.cloudfoundry.doppler.OverflowPolicy;
+import org.cloudfoundry.doppler.OverflowStrategy;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class EnvelopeBufferTest {
+
+    @Test
+    public void dropNewest() {
+        EnvelopeBuffer buffer = new EnvelopeBuffer(OverflowPolicy.builder()
+            .bufferSize(2)
+            .strategy(OverflowStrategy.DROP_NEWEST)
+            .build(), "test-stream");
+
+        buffer.buffer(envelopes("test-origin-1", "test-origin-2", "test-origin-3"))
+            .map(LazyEnvelope::getOrigin)
+            .as(flux -> StepVerifier.create(flux, 0))
+            .thenAwait(Duration.ofMillis(100))
+            .thenRequest(3)
+            .expectNext("test-origin-1", "test-origin-2")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(buffer.getDropped()).isEqualTo(1);
+        assertThat(buffer.getEmitted()).isEqualTo(2);
+    }
+
+    @Test
+    public void dropOldest() {
+        EnvelopeBuffer buffer = new EnvelopeBuffer(OverflowPolicy.builder()
+            .bufferSize(2)
+            .strategy(OverflowStrategy.DROP_OLDEST)
+            .build(), "test-stream");
+
+        buffer.buffer(envelopes("test-origin-1", "test-origin-2", "test-origin-3"))
+            .map(LazyEnvelope::getOrigin)
+            .as(flux -> StepVerifier.create(flux, 0))
+            .thenAwait(Duration.ofMillis(100))
+            .thenRequest(3)
+            .expectNext("test-origin-2", "test-origin-3")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(buffer.getDropped()).isEqualTo(1);
+        assertThat(buffer.getBuffered()).isZero();
+    }
+
+    @Test
+    public void sample() {
+        EnvelopeBuffer buffer = new EnvelopeBuffer(OverflowPolicy.builder()
+            .bufferSize(1)
+            .sampleRate(2)
+            .strategy(OverflowStrategy.SAMPLE)
+            .build(), "test-stream");
+
+        buffer.buffer(envelopes("test-origin-1", "test-origin-2", "test-origin-3"))
+            .map(LazyEnvelope::getOrigin)
+            .as(flux -> StepVerifier.create(flux, 0))
+            .thenAwait(Duration.ofMillis(100))
+            .thenRequest(3)
+            .expectNext("test-origin-3")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(buffer.getDropped()).isEqualTo(2);
+    }
+
+    @Test
+    public void sampleMalformed() {
+        EnvelopeBuffer buffer = new EnvelopeBuffer(OverflowPolicy.builder()
+            .bufferSize(1)
+            .sampleRate(1)
+            .strategy(OverflowStrategy.SAMPLE)
+            .build(), "test-stream");
+
+        Flux<LazyEnvelope> envelopes = Flux.concat(
+            envelopes("test-origin-1"),
+            Flux.just(LazyEnvelope.from(Unpooled.wrappedBuffer(new byte[]{0x0a, 0x05}))),
+            envelopes("test-origin-2"));
+
+        buffer.buffer(envelopes)
+            .map(LazyEnvelope::getOrigin)
+            .as(flux -> StepVerifier.create(flux, 0))
+            .thenAwait(Duration.ofMillis(100))
+            .thenRequest(3)
+            .expectNext("test-origin-2")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(buffer.getDropped()).isEqualTo(2);
+    }
+
+    private static Flux<LazyEnvelope> envelopes(String... origins) {
+        return Flux.just(origins)
+            .map(origin -> LazyEnvelope.from(Unpooled.wrappedBuffer(org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.encode(new org.cloudfoundry.dropsonde.events.Envelope.Builder()
+                .eventType(org.cloudfoundry.dropsonde.events.Envelope.EventType.LogMessage)
+                .origin(origin)
+                .build()))));
+    }
+
+}
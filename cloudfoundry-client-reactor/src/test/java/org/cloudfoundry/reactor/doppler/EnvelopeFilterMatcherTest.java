@@ -0,0 +1,138 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import okio.ByteString;
+import org.cloudfoundry.doppler.EnvelopeFilter;
+import org.cloudfoundry.doppler.EventType;
+import org.cloudfoundry.dropsonde.events.Envelope;
+import org.cloudfoundry.dropsonde.events.LogMessage;
+import org.cloudfoundry.dropsonde.events.ValueMetric;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class EnvelopeFilterMatcherTest {
+
+    @Test
+    public void applicationId() {
+        assertThat(EnvelopeFilterMatcher.of(EnvelopeFilter.builder()
+            .applicationId("test-application-id")
+            .build()))
+            .accepts(logMessage())
+            .rejects(valueMetric());
+
+        assertThat(EnvelopeFilterMatcher.of(EnvelopeFilter.builder()
+            .applicationId("other-application-id")
+            .build()))
+            .rejects(logMessage());
+    }
+
+    @Test
+    public void combined() {
+        assertThat(EnvelopeFilterMatcher.of(EnvelopeFilter.builder()
+            .eventType(EventType.LOG_MESSAGE)
+            .origin("other-origin")
+            .build()))
+            .rejects(logMessage());
+    }
+
+    @Test
+    public void eventType() {
+        assertThat(EnvelopeFilterMatcher.of(EnvelopeFilter.builder()
+            .eventType(EventType.LOG_MESSAGE)
+            .build()))
+            .accepts(logMessage())
+            .rejects(valueMetric());
+    }
+
+    @Test
+    public void frameNotModified() {
+        ByteBuf frame = Unpooled.wrappedBuffer(Unpooled.wrappedBuffer(new byte[]{0x7f, 0x7f}), logMessage());
+        frame.readerIndex(2);
+
+        assertThat(EnvelopeFilterMatcher.of(EnvelopeFilter.builder()
+            .applicationId("test-application-id")
+            .origin("test-origin")
+            .tag("test-key", "test-value")
+            .build()))
+            .accepts(frame);
+
+        assertThat(frame.readerIndex()).isEqualTo(2);
+    }
+
+    @Test
+    public void noFilter() {
+        assertThat(EnvelopeFilterMatcher.of(null))
+            .accepts(logMessage(), valueMetric());
+    }
+
+    @Test
+    public void origin() {
+        assertThat(EnvelopeFilterMatcher.of(EnvelopeFilter.builder()
+            .origin("test-origin")
+            .origin("other-origin")
+            .build()))
+            .accepts(logMessage())
+            .rejects(valueMetric());
+    }
+
+    @Test
+    public void tags() {
+        assertThat(EnvelopeFilterMatcher.of(EnvelopeFilter.builder()
+            .tag("test-key", "test-value")
+            .build()))
+            .accepts(logMessage())
+            .rejects(valueMetric());
+
+        assertThat(EnvelopeFilterMatcher.of(EnvelopeFilter.builder()
+            .tag("test-key", "other-value")
+            .build()))
+            .rejects(logMessage());
+    }
+
+    private static ByteBuf logMessage() {
+        return Unpooled.wrappedBuffer(Envelope.ADAPTER.encode(new Envelope.Builder()
+            .eventType(Envelope.EventType.LogMessage)
+            .logMessage(new LogMessage.Builder()
+                .app_id("test-application-id")
+                .message(ByteString.encodeUtf8("test-message"))
+                .message_type(LogMessage.MessageType.OUT)
+                .timestamp(1460991824620929073L)
+                .build())
+            .origin("test-origin")
+            .tags(Collections.singletonMap("test-key", "test-value"))
+            .build()));
+    }
+
+    private static ByteBuf valueMetric() {
+        return Unpooled.wrappedBuffer(Envelope.ADAPTER.encode(new Envelope.Builder()
+            .eventType(Envelope.EventType.ValueMetric)
+            .origin("another-origin")
+            .valueMetric(new ValueMetric.Builder()
+                .name("test-name")
+                .unit("test-unit")
+                .value(1.0)
+                .build())
+            .build()));
+    }
+
+}
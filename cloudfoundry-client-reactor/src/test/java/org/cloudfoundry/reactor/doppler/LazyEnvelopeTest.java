@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.buffer.Unpooled;
+import okio.ByteString;
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EventType;
+import org.cloudfoundry.dropsonde.events.LogMessage;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public final class LazyEnvelopeTest {
+
+    @Test
+    public void fields() {
+        LazyEnvelope envelope = LazyEnvelope.from(Unpooled.wrappedBuffer(encode()));
+
+        assertThat(envelope.getEventType()).isEqualTo(EventType.LOG_MESSAGE);
+        assertThat(envelope.getOrigin()).isEqualTo("test-origin");
+        assertThat(envelope.getTags()).containsOnly(entry("test-key", "test-value"));
+        assertThat(envelope.getTimestamp()).isEqualTo(1460991824620929073L);
+        assertThat(envelope.getContainerMetric()).isNull();
+        assertThat(envelope.getLogMessage().getApplicationId()).isEqualTo("test-application-id");
+    }
+
+    @Test
+    public void toEnvelope() {
+        byte[] encoded = encode();
+
+        assertThat(LazyEnvelope.from(Unpooled.wrappedBuffer(encoded)).toEnvelope())
+            .isEqualTo(Envelope.from(decode(encoded)));
+    }
+
+    @Test
+    public void toStringMalformed() {
+        assertThat(LazyEnvelope.from(Unpooled.wrappedBuffer(new byte[]{0x0a, 0x05})))
+            .hasToString("LazyEnvelope{malformed, 2 bytes}");
+    }
+
+    @Test
+    public void toStringMissingFields() {
+        byte[] timestampOnly = {0x30, 0x01};
+
+        assertThat(LazyEnvelope.from(Unpooled.wrappedBuffer(timestampOnly)))
+            .hasToString("LazyEnvelope{eventType=null, origin=null}");
+    }
+
+    @Test
+    public void toStringValid() {
+        assertThat(LazyEnvelope.from(Unpooled.wrappedBuffer(encode())))
+            .hasToString("LazyEnvelope{eventType=LOG_MESSAGE, origin=test-origin}");
+    }
+
+    private static org.cloudfoundry.dropsonde.events.Envelope decode(byte[] encoded) {
+        try {
+            return org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.decode(encoded);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] encode() {
+        return org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.encode(new org.cloudfoundry.dropsonde.events.Envelope.Builder()
+            .deployment("test-deployment")
+            .eventType(org.cloudfoundry.dropsonde.events.Envelope.EventType.LogMessage)
+            .index("test-index")
+            .ip("test-ip")
+            .job("test-job")
+            .logMessage(new LogMessage.Builder()
+                .app_id("test-application-id")
+                .message(ByteString.encodeUtf8("test-message"))
+                .message_type(LogMessage.MessageType.OUT)
+                .source_instance("test-source-instance")
+                .source_type("test-source-type")
+                .timestamp(1460991824620929073L)
+                .build())
+            .origin("test-origin")
+            .tags(Collections.singletonMap("test-key", "test-value"))
+            .timestamp(1460991824620929073L)
+            .build());
+    }
+
+}
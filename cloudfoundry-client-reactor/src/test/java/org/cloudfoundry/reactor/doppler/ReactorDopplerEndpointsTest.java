@@ -0,0 +1,292 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.ByteString;
+import org.cloudfoundry.doppler.FirehoseRequest;
+import org.cloudfoundry.doppler.ReconnectPolicy;
+import org.cloudfoundry.doppler.StreamRequest;
+import org.cloudfoundry.reactor.DefaultConnectionContext;
+import org.cloudfoundry.reactor.TokenProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class ReactorDopplerEndpointsTest {
+
+    private final MockWebServer mockWebServer = new MockWebServer();
+
+    private final DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+        .apiHost(this.mockWebServer.getHostName())
+        .port(this.mockWebServer.getPort())
+        .secure(false)
+        .build();
+
+    private final List<ReconnectEvent> events = new CopyOnWriteArrayList<>();
+
+    private final TokenProvider tokenProvider = mock(TokenProvider.class);
+
+    private final ReactorDopplerEndpoints dopplerEndpoints = new ReactorDopplerEndpoints(this.connectionContext, Mono.just(this.mockWebServer.url("/").uri().toString()), this.tokenProvider,
+        Collections.emptyMap());
+
+    @Before
+    public void setUp() {
+        when(this.tokenProvider.getToken(this.connectionContext)).thenReturn(Mono.just("test-token"));
+        this.dopplerEndpoints.reconnectEvents().subscribe(this.events::add);
+    }
+
+    @Test
+    public void shardMBeans() throws MalformedObjectNameException {
+        this.mockWebServer.enqueue(upgrade("test-origin-1"));
+        this.mockWebServer.enqueue(upgrade("test-origin-2"));
+
+        ObjectName name = ObjectName.getInstance("org.cloudfoundry.reactor:type=ReconnectingStream,stream=\"firehose/test-subscription-id/0\"");
+
+        this.dopplerEndpoints
+            .lazyFirehose(firehoseRequest())
+            .take(2)
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .then(() -> assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isTrue())
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+    }
+
+    @Test
+    public void shardRejected() {
+        this.mockWebServer.enqueue(new MockResponse().setResponseCode(401));
+        this.mockWebServer.enqueue(upgrade("test-origin-1"));
+        this.mockWebServer.enqueue(upgrade("test-origin-2"));
+
+        this.dopplerEndpoints
+            .lazyFirehose(firehoseRequest())
+            .take(2)
+            .as(StepVerifier::create)
+            .expectNextCount(2)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        verify(this.tokenProvider).invalidate(this.connectionContext);
+    }
+
+    @Test
+    public void shardReplaced() {
+        this.mockWebServer.enqueue(upgrade("test-origin-1"));
+        this.mockWebServer.enqueue(upgrade("test-origin-2"));
+        this.mockWebServer.enqueue(upgrade("test-origin-3"));
+
+        this.dopplerEndpoints
+            .lazyFirehose(firehoseRequest())
+            .map(LazyEnvelope::getOrigin)
+            .take(3)
+            .as(StepVerifier::create)
+            .recordWith(ArrayList::new)
+            .expectNextCount(3)
+            .consumeRecordedWith(origins -> assertThat(origins).containsExactlyInAnyOrder("test-origin-1", "test-origin-2", "test-origin-3"))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.mockWebServer.getRequestCount()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    public void shardsMerged() {
+        this.mockWebServer.enqueue(upgrade("test-origin-1"));
+        this.mockWebServer.enqueue(upgrade("test-origin-2"));
+
+        this.dopplerEndpoints
+            .lazyFirehose(firehoseRequest())
+            .map(LazyEnvelope::getOrigin)
+            .take(2)
+            .as(StepVerifier::create)
+            .recordWith(ArrayList::new)
+            .expectNextCount(2)
+            .consumeRecordedWith(origins -> assertThat(origins).containsExactlyInAnyOrder("test-origin-1", "test-origin-2"))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @After
+    public void shutdown() throws IOException {
+        this.connectionContext.dispose();
+        this.mockWebServer.shutdown();
+    }
+
+    @Test
+    public void streamClosed() {
+        this.mockWebServer.enqueue(upgrade("test-origin-1"));
+        this.mockWebServer.enqueue(upgrade("test-origin-2"));
+
+        this.dopplerEndpoints
+            .lazyStream(streamRequest(Duration.ofSeconds(1), Duration.ofSeconds(5)))
+            .map(LazyEnvelope::getOrigin)
+            .take(2)
+            .as(StepVerifier::create)
+            .expectNext("test-origin-1", "test-origin-2")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.events.get(0).getLastEnvelope()).isNotNull();
+        assertThat(this.events.get(0).getReason()).isEqualTo(ReconnectReason.CLOSED);
+        assertThat(this.events.get(0).getStream()).isEqualTo("stream/test-application-id");
+    }
+
+    @Test
+    public void streamIdleTimeout() {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        this.mockWebServer.enqueue(stalled(latch));
+        this.mockWebServer.enqueue(upgrade("test-origin-1"));
+
+        try {
+            this.dopplerEndpoints
+                .lazyStream(streamRequest(Duration.ofMillis(100), Duration.ofMillis(300)))
+                .map(LazyEnvelope::getOrigin)
+                .take(1)
+                .as(StepVerifier::create)
+                .expectNext("test-origin-1")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        } finally {
+            latch.countDown();
+        }
+
+        assertThat(this.events.get(0).getLastEnvelope()).isNull();
+        assertThat(this.events.get(0).getReason()).isEqualTo(ReconnectReason.IDLE);
+    }
+
+    @Test
+    public void streamKeepAlive() {
+        this.mockWebServer.enqueue(silent());
+
+        this.dopplerEndpoints
+            .lazyStream(streamRequest(Duration.ofMillis(100), Duration.ofMillis(300)))
+            .as(StepVerifier::create)
+            .expectSubscription()
+            .expectNoEvent(Duration.ofSeconds(1))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.events).isEmpty();
+        assertThat(this.mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void streamRejected() {
+        this.mockWebServer.enqueue(new MockResponse().setResponseCode(401));
+        this.mockWebServer.enqueue(upgrade("test-origin-1"));
+
+        this.dopplerEndpoints
+            .lazyStream(streamRequest(Duration.ofSeconds(1), Duration.ofSeconds(5)))
+            .map(LazyEnvelope::getOrigin)
+            .take(1)
+            .as(StepVerifier::create)
+            .expectNext("test-origin-1")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        verify(this.tokenProvider).invalidate(this.connectionContext);
+        assertThat(this.events.get(0).getReason()).isEqualTo(ReconnectReason.REJECTED);
+    }
+
+    private static byte[] envelope(String origin) {
+        return org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.encode(new org.cloudfoundry.dropsonde.events.Envelope.Builder()
+            .eventType(org.cloudfoundry.dropsonde.events.Envelope.EventType.LogMessage)
+            .origin(origin)
+            .build());
+    }
+
+    private static FirehoseRequest firehoseRequest() {
+        return FirehoseRequest.builder()
+            .shards(2)
+            .subscriptionId("test-subscription-id")
+            .build();
+    }
+
+    private static MockResponse silent() {
+        return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+
+        });
+    }
+
+    private static MockResponse stalled(CountDownLatch latch) {
+        return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);  // Blocks the server's reader so that pings are never answered
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+        });
+    }
+
+    private static StreamRequest streamRequest(Duration keepAliveInterval, Duration idleTimeout) {
+        return StreamRequest.builder()
+            .applicationId("test-application-id")
+            .reconnectPolicy(ReconnectPolicy.builder()
+                .idleTimeout(idleTimeout)
+                .keepAliveInterval(keepAliveInterval)
+                .maximumBackoff(Duration.ofMillis(10))
+                .minimumBackoff(Duration.ofMillis(10))
+                .build())
+            .build();
+    }
+
+    private static MockResponse upgrade(String origin) {
+        return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                webSocket.send(ByteString.of(envelope(origin)));
+                webSocket.close(1000, "test-reason");
+            }
+
+        });
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.handler.codec.http.websocketx.WebSocketHandshakeException;
+import org.cloudfoundry.doppler.ReconnectPolicy;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class ReconnectingStreamTest {
+
+    private final ReconnectingStream reconnectingStream = new ReconnectingStream("stream/test-application-id", ReconnectPolicy.builder()
+        .maximumBackoff(Duration.ofSeconds(2))
+        .minimumBackoff(Duration.ofSeconds(1))
+        .build());
+
+    @Test
+    public void backoffResetsOnEnvelope() {
+        this.reconnectingStream.connected();
+        this.reconnectingStream.disconnected(ReconnectReason.ERROR, null);
+        this.reconnectingStream.connected();
+        assertThat(this.reconnectingStream.disconnected(ReconnectReason.ERROR, null).getAttempt()).isEqualTo(2);
+
+        this.reconnectingStream.connected();
+        this.reconnectingStream.received();
+        assertThat(this.reconnectingStream.disconnected(ReconnectReason.CLOSED, null).getAttempt()).isEqualTo(1);
+    }
+
+    @Test
+    public void disconnected() {
+        this.reconnectingStream.connected();
+        this.reconnectingStream.received();
+
+        ReconnectEvent event = this.reconnectingStream.disconnected(ReconnectReason.IDLE, new TimeoutException());
+
+        assertThat(event.getAttempt()).isEqualTo(1);
+        assertThat(event.getDelay()).isBetween(Duration.ZERO, Duration.ofSeconds(1));
+        assertThat(event.getLastEnvelope()).isNotNull();
+        assertThat(event.getReason()).isEqualTo(ReconnectReason.IDLE);
+        assertThat(event.getStream()).isEqualTo("stream/test-application-id");
+        assertThat(this.reconnectingStream.getReconnectDelay()).isEqualTo(event.getDelay());
+
+        assertThat(this.reconnectingStream.getConnections()).isEqualTo(1);
+        assertThat(this.reconnectingStream.getEnvelopes()).isEqualTo(1);
+        assertThat(this.reconnectingStream.getIdleTimeouts()).isEqualTo(1);
+        assertThat(this.reconnectingStream.getReconnects()).isEqualTo(1);
+        assertThat(this.reconnectingStream.isConnected()).isFalse();
+    }
+
+    @Test
+    public void idleTime() {
+        this.reconnectingStream.received();
+
+        assertThat(this.reconnectingStream.getIdleTime()).isBetween(0L, 1000L);
+        assertThat(this.reconnectingStream.disconnected(ReconnectReason.CLOSED, null).getLastEnvelope()).isBetween(Instant.now().minusSeconds(1), Instant.now());
+    }
+
+    @Test
+    public void initial() {
+        assertThat(this.reconnectingStream.getDisconnectedTime()).isZero();
+        assertThat(this.reconnectingStream.getIdleTime()).isEqualTo(-1);
+        assertThat(this.reconnectingStream.getReconnectDelay()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void reason() {
+        assertThat(ReconnectingStream.getReason(new IOException())).isEqualTo(ReconnectReason.ERROR);
+        assertThat(ReconnectingStream.getReason(new TimeoutException())).isEqualTo(ReconnectReason.IDLE);
+        assertThat(ReconnectingStream.getReason(new WebSocketHandshakeException("test-message"))).isEqualTo(ReconnectReason.REJECTED);
+    }
+
+}
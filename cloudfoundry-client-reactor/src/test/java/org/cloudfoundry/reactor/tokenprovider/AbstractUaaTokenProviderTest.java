@@ -0,0 +1,280 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.tokenprovider;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.DefaultConnectionContext;
+import org.cloudfoundry.reactor.RootProvider;
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class AbstractUaaTokenProviderTest {
+
+    private final MockWebServer mockWebServer = new MockWebServer();
+
+    private final DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+        .apiHost("localhost")
+        .rootProvider(new TestRootProvider(this.mockWebServer.url("/").uri().toString()))
+        .secure(false)
+        .build();
+
+    private final ClientCredentialsGrantTokenProvider tokenProvider = ClientCredentialsGrantTokenProvider.builder()
+        .clientId("test-client-id")
+        .clientSecret("test-client-secret")
+        .refreshFraction(0.25)
+        .build();
+
+    @Test
+    public void backgroundRefresh() throws MalformedObjectNameException {
+        Date issuedAt = new Date((System.currentTimeMillis() / 1000) * 1000);
+        Date expiration = new Date(issuedAt.getTime() + Duration.ofSeconds(4).toMillis());
+        this.mockWebServer.enqueue(tokenResponse("test-access-token-1", issuedAt, expiration));
+        this.mockWebServer.enqueue(tokenResponse("test-access-token-2", issuedAt, expiration));
+
+        this.tokenProvider.getToken(this.connectionContext)
+            .as(StepVerifier::create)
+            .consumeNextWith(token -> assertThat(token).contains(accessToken("test-access-token-1", issuedAt, expiration)))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        Mono.defer(() -> this.tokenProvider.getToken(this.connectionContext))
+            .filter(token -> token.contains(accessToken("test-access-token-2", issuedAt, expiration)))
+            .repeatWhenEmpty(repeats -> repeats.delayElements(Duration.ofMillis(100)))
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()));
+
+        assertThat(this.mockWebServer.getRequestCount()).isEqualTo(2);
+        assertThat(this.tokenProvider.getTokenRefreshMetrics().getRefreshes()).isEqualTo(1);
+        assertThat(ManagementFactory.getPlatformMBeanServer().queryNames(ObjectName.getInstance(
+            "org.cloudfoundry.reactor:type=TokenRefresh,name=\"ClientCredentialsGrantTokenProvider/test-client-id/*\""), null)).hasSize(1);
+    }
+
+    @Test
+    public void cacheKey() {
+        assertThat(this.tokenProvider.getCacheKey(this.connectionContext).toString()).doesNotContain("test-client-secret");
+        assertThat(this.tokenProvider.getCacheKey(this.connectionContext))
+            .isNotEqualTo(ClientCredentialsGrantTokenProvider.builder()
+                .clientId("test-client-id")
+                .clientSecret("test-other-client-secret")
+                .build()
+                .getCacheKey(this.connectionContext));
+    }
+
+    @Test
+    public void cacheKeyPassword() {
+        Date issuedAt = new Date((System.currentTimeMillis() / 1000) * 1000);
+        Date expiration = new Date(issuedAt.getTime() + Duration.ofHours(1).toMillis());
+        this.mockWebServer.enqueue(tokenResponse("test-access-token-1", issuedAt, expiration));
+        this.mockWebServer.enqueue(new MockResponse().setResponseCode(401));
+
+        TokenCache tokenCache = new TokenCache("test-token-cache", 10, Duration.ofMinutes(1));
+        PasswordGrantTokenProvider tokenProvider = passwordGrantTokenProvider(Optional.of(tokenCache), "test-password");
+        PasswordGrantTokenProvider wrongPasswordTokenProvider = passwordGrantTokenProvider(Optional.of(tokenCache), "test-wrong-password");
+
+        try {
+            tokenProvider.getToken(this.connectionContext)
+                .as(StepVerifier::create)
+                .consumeNextWith(token -> assertThat(token).contains(accessToken("test-access-token-1", issuedAt, expiration)))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+            assertThat(tokenCache.contains(wrongPasswordTokenProvider.getCacheKey(this.connectionContext))).isFalse();
+
+            wrongPasswordTokenProvider.getToken(this.connectionContext)
+                .as(StepVerifier::create)
+                .expectError()
+                .verify(Duration.ofSeconds(5));
+
+            assertThat(this.mockWebServer.getRequestCount()).isEqualTo(2);
+            assertThat(tokenCache.getHits()).isZero();
+        } finally {
+            tokenProvider.dispose();
+            wrongPasswordTokenProvider.dispose();
+            tokenCache.dispose();
+        }
+    }
+
+    @Test
+    public void disposeCancelsRefresh() throws InterruptedException {
+        Date issuedAt = new Date((System.currentTimeMillis() / 1000) * 1000);
+        Date expiration = new Date(issuedAt.getTime() + Duration.ofSeconds(2).toMillis());
+        this.mockWebServer.enqueue(tokenResponse("test-access-token-1", issuedAt, expiration));
+        this.mockWebServer.enqueue(tokenResponse("test-access-token-2", issuedAt, expiration));
+
+        this.tokenProvider.getToken(this.connectionContext)
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        this.tokenProvider.dispose();
+        Thread.sleep(expiration.getTime() - System.currentTimeMillis());
+
+        assertThat(this.mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+
+    @Test
+    public void mBeanName() throws MalformedObjectNameException {
+        Date issuedAt = new Date((System.currentTimeMillis() / 1000) * 1000);
+        Date expiration = new Date(issuedAt.getTime() + Duration.ofHours(1).toMillis());
+        this.mockWebServer.enqueue(tokenResponse("test-access-token-1", issuedAt, expiration));
+        this.mockWebServer.enqueue(tokenResponse("test-access-token-2", issuedAt, expiration));
+
+        ClientCredentialsGrantTokenProvider otherTokenProvider = ClientCredentialsGrantTokenProvider.builder()
+            .clientId("test-client-id")
+            .clientSecret("test-other-client-secret")
+            .refreshFraction(0.25)
+            .build();
+        ObjectName pattern = ObjectName.getInstance("org.cloudfoundry.reactor:type=TokenRefresh,name=\"ClientCredentialsGrantTokenProvider/test-client-id/*\"");
+
+        try {
+            Flux.concat(this.tokenProvider.getToken(this.connectionContext), otherTokenProvider.getToken(this.connectionContext))
+                .as(StepVerifier::create)
+                .expectNextCount(2)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+            assertThat(ManagementFactory.getPlatformMBeanServer().queryNames(pattern, null)).hasSize(2);
+
+            otherTokenProvider.dispose();
+
+            assertThat(ManagementFactory.getPlatformMBeanServer().queryNames(pattern, null)).hasSize(1);
+        } finally {
+            otherTokenProvider.dispose();
+        }
+    }
+
+    @Test
+    public void persistenceKey() {
+        String persistenceKey = passwordGrantTokenProvider(Optional.empty(), "test-password").getPersistenceKey(this.connectionContext).block();
+
+        assertThat(persistenceKey).doesNotContain("test-password");
+        assertThat(persistenceKey).isNotEqualTo(passwordGrantTokenProvider(Optional.empty(), "test-wrong-password").getPersistenceKey(this.connectionContext).block());
+        assertThat(this.tokenProvider.getPersistenceKey(this.connectionContext).block())
+            .isNotEqualTo(ClientCredentialsGrantTokenProvider.builder()
+                .clientId("test-client-id")
+                .clientSecret("test-other-client-secret")
+                .build()
+                .getPersistenceKey(this.connectionContext).block());
+    }
+
+    @Test
+    public void refreshDelay() {
+        Claims claims = Jwts.claims()
+            .setIssuedAt(new Date(1_000_000L))
+            .setExpiration(new Date(1_000_000L + Duration.ofHours(1).toMillis()));
+
+        assertThat(AbstractUaaTokenProvider.refreshDelay(claims, 0.75)).hasValue(Duration.ofMinutes(45));
+    }
+
+    @Test
+    public void refreshDelayExpired() {
+        Claims claims = Jwts.claims()
+            .setIssuedAt(new Date(1_000_000L))
+            .setExpiration(new Date(1_000_000L));
+
+        assertThat(AbstractUaaTokenProvider.refreshDelay(claims, 0.75)).isEmpty();
+    }
+
+    @Test
+    public void refreshDelayNoExpiration() {
+        Claims claims = Jwts.claims()
+            .setIssuedAt(new Date(1_000_000L));
+
+        assertThat(AbstractUaaTokenProvider.refreshDelay(claims, 0.75)).isEmpty();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void refreshFractionInvalid() {
+        ClientCredentialsGrantTokenProvider.builder()
+            .clientId("test-client-id")
+            .clientSecret("test-client-secret")
+            .refreshFraction(1.0)
+            .build();
+    }
+
+    @After
+    public void shutdown() throws IOException {
+        this.tokenProvider.dispose();
+        this.connectionContext.dispose();
+        this.mockWebServer.shutdown();
+    }
+
+    private static String accessToken(String id, Date issuedAt, Date expiration) {
+        return Jwts.builder()
+            .setId(id)
+            .setIssuedAt(issuedAt)
+            .setExpiration(expiration)
+            .compact();
+    }
+
+    private static PasswordGrantTokenProvider passwordGrantTokenProvider(Optional<TokenCache> tokenCache, String password) {
+        return PasswordGrantTokenProvider.builder()
+            .password(password)
+            .tokenCache(tokenCache)
+            .username("test-username")
+            .build();
+    }
+
+        private static MockResponse tokenResponse(String id, Date issuedAt, Date expiration) {
+        return new MockResponse()
+            .setHeader("Content-Type", "application/json")
+            .setBody(String.format("{\"access_token\":\"%s\",\"token_type\":\"bearer\",\"expires_in\":%d}", accessToken(id, issuedAt, expiration),
+                (expiration.getTime() - issuedAt.getTime()) / 1000));
+    }
+
+    private static final class TestRootProvider implements RootProvider {
+
+        private final String root;
+
+        private TestRootProvider(String root) {
+            this.root = root;
+        }
+
+        @Override
+        public Mono<String> getRoot(ConnectionContext connectionContext) {
+            return Mono.just(this.root);
+        }
+
+        @Override
+        public Mono<String> getRoot(String key, ConnectionContext connectionContext) {
+            return Mono.just(this.root);
+        }
+
+    }
+
+}
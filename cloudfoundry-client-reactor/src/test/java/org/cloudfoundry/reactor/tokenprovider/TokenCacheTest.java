@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.tokenprovider;
+
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class TokenCacheTest {
+
+    private TokenCache tokenCache = new TokenCache("test-token-cache", 10, Duration.ofMinutes(1));
+
+    @After
+    public void dispose() {
+        this.tokenCache.dispose();
+    }
+
+    @Test
+    public void eviction() {
+        this.tokenCache = new TokenCache("test-token-cache", 1, Duration.ofMinutes(1));
+
+        this.tokenCache.getAccessToken("test-key-1", () -> Mono.just("test-token-1"));
+        this.tokenCache.getAccessToken("test-key-2", () -> Mono.just("test-token-2"));
+
+        assertThat(this.tokenCache.contains("test-key-1")).isFalse();
+        assertThat(this.tokenCache.contains("test-key-2")).isTrue();
+        assertThat(this.tokenCache.getEvictions()).isEqualTo(1);
+        assertThat(this.tokenCache.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void expiration() {
+        this.tokenCache = new TokenCache("test-token-cache", 10, Duration.ZERO);
+
+        this.tokenCache.getAccessToken("test-key", () -> Mono.just("test-token"));
+
+        assertThat(this.tokenCache.contains("test-key")).isFalse();
+        assertThat(this.tokenCache.getExpirations()).isEqualTo(1);
+    }
+
+    @Test
+    public void getAccessToken() {
+        AtomicInteger negotiations = new AtomicInteger();
+
+        Mono<String> first = this.tokenCache.getAccessToken("test-key", () -> Mono.fromCallable(() -> "test-token-" + negotiations.incrementAndGet()).cache());
+        Mono<String> second = this.tokenCache.getAccessToken("test-key", () -> Mono.fromCallable(() -> "test-token-" + negotiations.incrementAndGet()).cache());
+
+        assertThat(first).isSameAs(second);
+        assertThat(second.block()).isEqualTo("test-token-1");
+        assertThat(negotiations).hasValue(1);
+        assertThat(this.tokenCache.getHits()).isEqualTo(1);
+        assertThat(this.tokenCache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void mBean() throws MalformedObjectNameException {
+        ObjectName name = ObjectName.getInstance("org.cloudfoundry.reactor:type=TokenCache,name=\"test-token-cache\"");
+
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isTrue();
+
+        this.tokenCache.dispose();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+    }
+
+    @Test
+    public void refreshToken() {
+
+        this.tokenCache.putRefreshToken("test-key", "test-refresh-token");
+        this.tokenCache.putAccessToken("test-key", Mono.just("test-token"));
+
+        assertThat(this.tokenCache.getRefreshToken("test-key")).isEqualTo("test-refresh-token");
+        assertThat(this.tokenCache.getRefreshToken("test-other-key")).isNull();
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.uaa;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolver;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import org.cloudfoundry.uaa.UaaException;
+import org.cloudfoundry.uaa.tokens.CheckTokenRequest;
+import org.cloudfoundry.uaa.tokens.CheckTokenResponse;
+import org.cloudfoundry.uaa.tokens.Tokens;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public final class LocallyVerifiedTokensTest {
+
+    private final Tokens delegate = mock(Tokens.class);
+
+    private final KeyPair keyPair = getKeyPair();
+
+    private final SigningKeyResolver signingKeyResolver = new SigningKeyResolverAdapter() {
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            if (!"test-key-id".equals(header.getKeyId())) {
+                throw new IllegalStateException(String.format("Unable to retrieve signing key %s", header.getKeyId()));
+            }
+
+            return LocallyVerifiedTokensTest.this.keyPair.getPublic();
+        }
+
+    };
+
+    private final LocallyVerifiedTokens tokens = new LocallyVerifiedTokens(this.delegate, this.signingKeyResolver, "test-issuer", Collections.singletonList("test-sensitive-scope"));
+
+    @Test
+    public void check() {
+        this.tokens
+            .check(CheckTokenRequest.builder()
+                .clientId("test-client-id")
+                .clientSecret("test-client-secret")
+                .scope("test-scope")
+                .token(getToken("test-key-id", Duration.ofHours(1), "test-scope"))
+                .build())
+            .map(CheckTokenResponse::getUserName)
+            .as(StepVerifier::create)
+            .expectNext("test-user-name")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        verifyNoMoreInteractions(this.delegate);
+    }
+
+    @Test
+    public void checkExpired() {
+        this.tokens
+            .check(CheckTokenRequest.builder()
+                .clientId("test-client-id")
+                .clientSecret("test-client-secret")
+                .token(getToken("test-key-id", Duration.ofHours(-1), "test-scope"))
+                .build())
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> assertThat(t).isInstanceOf(UaaException.class).hasMessage("invalid_token: Token has expired"))
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void checkInvalidSignature() {
+        this.tokens
+            .check(CheckTokenRequest.builder()
+                .clientId("test-client-id")
+                .clientSecret("test-client-secret")
+                .token(getToken(getKeyPair(), "test-key-id", Duration.ofHours(1), "test-scope"))
+                .build())
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> assertThat(t).isInstanceOf(UaaException.class).hasMessageStartingWith("invalid_token: "))
+            .verify(Duration.ofSeconds(5));
+
+        verifyNoMoreInteractions(this.delegate);
+    }
+
+    @Test
+    public void checkMissingClaim() {
+        CheckTokenRequest request = CheckTokenRequest.builder()
+            .clientId("test-client-id")
+            .clientSecret("test-client-secret")
+            .token(Jwts.builder()
+                .setHeaderParam("kid", "test-key-id")
+                .setExpiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+                .setIssuer("test-issuer")
+                .signWith(SignatureAlgorithm.RS256, this.keyPair.getPrivate())
+                .compact())
+            .build();
+
+        when(this.delegate.check(request)).thenReturn(Mono.empty());
+
+        this.tokens
+            .check(request)
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void checkMissingScope() {
+        this.tokens
+            .check(CheckTokenRequest.builder()
+                .clientId("test-client-id")
+                .clientSecret("test-client-secret")
+                .scope("test-other-scope")
+                .token(getToken("test-key-id", Duration.ofHours(1), "test-scope"))
+                .build())
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> assertThat(t).isInstanceOf(UaaException.class).hasMessage("invalid_scope: Some requested scopes are missing: test-other-scope"))
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void checkOpaqueToken() {
+        CheckTokenRequest request = CheckTokenRequest.builder()
+            .clientId("test-client-id")
+            .clientSecret("test-client-secret")
+            .token("0123456789abcdef0123456789abcdef")
+            .build();
+
+        when(this.delegate.check(request)).thenReturn(Mono.empty());
+
+        this.tokens
+            .check(request)
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void checkRevocationSensitiveScope() {
+        CheckTokenRequest request = CheckTokenRequest.builder()
+            .clientId("test-client-id")
+            .clientSecret("test-client-secret")
+            .token(getToken("test-key-id", Duration.ofHours(1), "test-sensitive-scope"))
+            .build();
+
+        when(this.delegate.check(request)).thenReturn(Mono.empty());
+
+        this.tokens
+            .check(request)
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void checkUnknownKey() {
+        CheckTokenRequest request = CheckTokenRequest.builder()
+            .clientId("test-client-id")
+            .clientSecret("test-client-secret")
+            .token(getToken("test-other-key-id", Duration.ofHours(1), "test-scope"))
+            .build();
+
+        when(this.delegate.check(request)).thenReturn(Mono.empty());
+
+        this.tokens
+            .check(request)
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    private static KeyPair getKeyPair() {
+        try {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(1024);
+            return keyPairGenerator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getToken(KeyPair keyPair, String keyId, Duration expiresIn, String... scopes) {
+        long now = System.currentTimeMillis();
+
+        return Jwts.builder()
+            .setHeaderParam("kid", keyId)
+            .setAudience("test-audience")
+            .setExpiration(new Date(now + expiresIn.toMillis()))
+            .setId("test-jwt-id")
+            .setIssuedAt(new Date(now - Duration.ofHours(2).toMillis()))
+            .setIssuer("test-issuer")
+            .setSubject("test-subject")
+            .claim("azp", "test-client-id")
+            .claim("cid", "test-client-id")
+            .claim("client_id", "test-client-id")
+            .claim("grant_type", "password")
+            .claim("rev_sig", "test-revocation-signature")
+            .claim("scope", Arrays.asList(scopes))
+            .claim("user_name", "test-user-name")
+            .claim("zid", "uaa")
+            .signWith(SignatureAlgorithm.RS256, keyPair.getPrivate())
+            .compact();
+    }
+
+    private String getToken(String keyId, Duration expiresIn, String... scopes) {
+        return getToken(this.keyPair, keyId, expiresIn, scopes);
+    }
+
+}
@@ -35,7 +35,10 @@ import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public final class UaaSigningKeyResolverTest {
@@ -72,6 +75,9 @@ public final class UaaSigningKeyResolverTest {
 
         this.signingKeyResolver.resolveSigningKey(header, claims);
         assertThat(this.signingKeyResolver.resolveSigningKey(header, claims)).isNotNull();
+
+        verify(this.tokens, times(1)).listKeys(ListTokenKeysRequest.builder()
+            .build());
     }
 
     @Test
@@ -101,6 +107,26 @@ public final class UaaSigningKeyResolverTest {
         assertThat(this.signingKeyResolver.resolveSigningKey(header, claims)).isNotNull();
     }
 
+    @Test
+    public void resolveUnknownKeyCached() {
+        when(
+            this.tokens.listKeys(ListTokenKeysRequest.builder()
+                .build())
+        ).thenReturn(
+            Mono.just(ListTokenKeysResponse.builder()
+                .build())
+        );
+
+        JwsHeader<?> header = new DefaultJwsHeader().setKeyId("test-key-id");
+        Claims claims = new DefaultClaims();
+
+        assertThatThrownBy(() -> this.signingKeyResolver.resolveSigningKey(header, claims)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> this.signingKeyResolver.resolveSigningKey(header, claims)).isInstanceOf(IllegalStateException.class);
+
+        verify(this.tokens, times(1)).listKeys(ListTokenKeysRequest.builder()
+            .build());
+    }
+
     @Test(expected = IllegalStateException.class)
     public void resolveUnknownKey() {
         when(
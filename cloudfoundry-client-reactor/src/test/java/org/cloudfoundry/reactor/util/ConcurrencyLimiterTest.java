@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class ConcurrencyLimiterTest {
+
+    @Test(expected = IllegalStateException.class)
+    public void configurationInvalid() {
+        ConcurrencyLimiterConfiguration.builder()
+            .initialLimit(10)
+            .maximumLimit(5)
+            .build();
+    }
+
+    @Test
+    public void limit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimiterConfiguration.builder()
+            .initialLimit(1)
+            .maximumQueueSize(10)
+            .queueTimeout(Duration.ofSeconds(5))
+            .build());
+        Flux<String> source = Mono.just("test-value")
+            .delayElement(Duration.ofMillis(100))
+            .flux();
+
+        Flux.merge(limiter.limit(source), limiter.limit(source))
+            .as(StepVerifier::create)
+            .then(() -> {
+                assertThat(limiter.getInFlight()).isEqualTo(1);
+                assertThat(limiter.getQueued()).isEqualTo(1);
+            })
+            .expectNext("test-value", "test-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getQueued()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    public void parseRetryAfter() {
+        assertThat(ConcurrencyLimiter.parseRetryAfter("120")).hasValue(Duration.ofSeconds(120));
+        assertThat(ConcurrencyLimiter.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT")).hasValue(Duration.ZERO);
+        assertThat(ConcurrencyLimiter.parseRetryAfter("test-value")).isEmpty();
+        assertThat(ConcurrencyLimiter.parseRetryAfter(null)).isEmpty();
+    }
+
+    @Test
+    public void queueFull() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimiterConfiguration.builder()
+            .initialLimit(1)
+            .maximumQueueSize(0)
+            .queueTimeout(Duration.ofSeconds(5))
+            .build());
+        Flux<String> source = Mono.just("test-value")
+            .delayElement(Duration.ofMillis(100))
+            .flux();
+
+        Flux.merge(limiter.limit(source), limiter.limit(source))
+            .as(StepVerifier::create)
+            .expectError(RejectedExecutionException.class)
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(limiter.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    public void queueTimeout() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimiterConfiguration.builder()
+            .initialLimit(1)
+            .maximumQueueSize(10)
+            .queueTimeout(Duration.ofMillis(100))
+            .build());
+
+        Flux.merge(limiter.limit(Flux.never()), limiter.limit(Flux.just("test-value")))
+            .as(StepVerifier::create)
+            .expectError(RejectedExecutionException.class)
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(limiter.getRejected()).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    public void throttled() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimiterConfiguration.builder()
+            .initialLimit(8)
+            .maximumQueueSize(10)
+            .queueTimeout(Duration.ofSeconds(5))
+            .build());
+
+        limiter.throttled(Optional.of(Duration.ofMillis(200)));
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getThrottled()).isEqualTo(1);
+
+        StepVerifier.create(limiter.limit(Flux.just("test-value")))
+            .expectSubscription()
+            .expectNoEvent(Duration.ofMillis(100))
+            .expectNext("test-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void throttledOncePerWindow() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimiterConfiguration.builder()
+            .initialLimit(8)
+            .build());
+
+        Disposable first = limiter.limit(Flux.never()).subscribe();
+        Disposable second = limiter.limit(Flux.never()).subscribe();
+
+        limiter.throttled(Optional.empty());
+        limiter.throttled(Optional.empty());
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getThrottled()).isEqualTo(2);
+
+        first.dispose();
+        second.dispose();
+        limiter.throttled(Optional.empty());
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class DeadlineTest {
+
+    @Test
+    public void at() {
+        Instant deadline = Instant.now().plusSeconds(60);
+
+        Mono.subscriberContext()
+            .map(Deadline::get)
+            .subscriberContext(Deadline.at(deadline))
+            .as(StepVerifier::create)
+            .expectNext(Optional.of(deadline))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void earliest() {
+        Instant earlier = Instant.now().plusSeconds(60);
+        Instant later = earlier.plusSeconds(60);
+
+        Mono.subscriberContext()
+            .map(Deadline::get)
+            .subscriberContext(Deadline.at(later))
+            .subscriberContext(Deadline.at(earlier))
+            .as(StepVerifier::create)
+            .expectNext(Optional.of(earlier))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        Mono.subscriberContext()
+            .map(Deadline::get)
+            .subscriberContext(Deadline.at(earlier))
+            .subscriberContext(Deadline.at(later))
+            .as(StepVerifier::create)
+            .expectNext(Optional.of(earlier))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void none() {
+        Mono.subscriberContext()
+            .map(Deadline::get)
+            .as(StepVerifier::create)
+            .consumeNextWith(deadline -> assertThat(deadline).isEmpty())
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.cloudfoundry.client.v2.applications.ListApplicationsResponse;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import reactor.core.publisher.Flux;
+import reactor.netty.ByteBufFlux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class JsonCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void decodeStreaming() {
+        ByteBufFlux body = ByteBufFlux.fromString(Flux.just("{\"test-key-1\":\"test-", "value-1\",\"test-key-2\":", "[1,2,3]}"));
+
+        JsonCodec.decodeStreaming(this.objectMapper, body, Map.class)
+            .as(StepVerifier::create)
+            .consumeNextWith(payload -> assertThat(payload)
+                .containsEntry("test-key-1", "test-value-1")
+                .containsKey("test-key-2"))
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void decodeStreamingDirectBuffers() {
+        ByteBufFlux body = ByteBufFlux.fromInbound(Flux.just(directBuffer("{\"test-key-1\":\"test-value-1\","), directBuffer("\"test-key-2\":2}")));
+
+        JsonCodec.decodeStreaming(this.objectMapper, body, Map.class)
+            .as(StepVerifier::create)
+            .consumeNextWith(payload -> assertThat(payload)
+                .containsEntry("test-key-1", "test-value-1")
+                .containsEntry("test-key-2", 2))
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void decodeStreamingEmpty() {
+        ByteBufFlux body = ByteBufFlux.fromString(Flux.empty());
+
+        JsonCodec.decodeStreaming(this.objectMapper, body, Map.class)
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void decodeStreamingInvalid() {
+        ByteBufFlux body = ByteBufFlux.fromString(Flux.just("{\"test-key-1\":", "}"));
+
+        JsonCodec.decodeStreaming(this.objectMapper, body, Map.class)
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> assertThat(t).isInstanceOf(JsonParsingException.class)
+                .extracting("payload")
+                .containsExactly("{\"test-key-1\":}"))
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void decodeStreamingResources() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .registerModule(new Jdk8Module());
+
+        byte[] payload = Files.readAllBytes(new ClassPathResource("fixtures/client/v2/apps/GET_apps_response.json").getFile().toPath());
+        ByteBufFlux body = ByteBufFlux.fromInbound(Flux.range(0, (payload.length + 15) / 16)
+            .map(index -> Unpooled.wrappedBuffer(payload, index * 16, Math.min(16, payload.length - index * 16))));
+
+        JsonCodec.decodeStreaming(objectMapper, body, ListApplicationsResponse.class)
+            .as(StepVerifier::create)
+            .expectNext(objectMapper.readValue(payload, ListApplicationsResponse.class))
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void serialize() {
+        ByteBuf buffer = JsonCodec.serialize(this.objectMapper, Collections.singletonMap("test-key", "test-value"), UnpooledByteBufAllocator.DEFAULT);
+
+        try {
+            assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("{\"test-key\":\"test-value\"}");
+            assertThat(buffer.refCnt()).isEqualTo(1);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static ByteBuf directBuffer(String s) {
+        return Unpooled.directBuffer().writeBytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
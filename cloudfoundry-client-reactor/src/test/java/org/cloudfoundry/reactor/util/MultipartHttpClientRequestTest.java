@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import org.junit.Test;
+import reactor.netty.NettyOutbound;
+import reactor.netty.http.client.HttpClientForm;
+import reactor.netty.http.client.HttpClientRequest;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public final class MultipartHttpClientRequestTest {
+
+    private final UnpooledByteBufAllocator allocator = new UnpooledByteBufAllocator(false);
+
+    private final HttpClientForm form = mock(HttpClientForm.class);
+
+    private final HttpClientRequest request = mock(HttpClientRequest.class, withSettings().extraInterfaces(NettyOutbound.class));
+
+    @Test
+    public void payloadNotSerializedUntilDone() {
+        new MultipartHttpClientRequest(new ObjectMapper(), this.request, this.form)
+            .addPart(part -> part.setName("test-name").send(Collections.singletonMap("test-key", "test-value")));
+
+        verify(this.form, never()).file(any(String.class), any(InputStream.class), any(String.class));
+        assertThat(this.allocator.metric().usedHeapMemory()).isZero();
+    }
+
+    @Test
+    public void payloadReleased() {
+        AtomicReference<String> content = new AtomicReference<>();
+
+        when(((NettyOutbound) this.request).alloc()).thenReturn(this.allocator);
+        when(this.request.requestHeaders()).thenReturn(new DefaultHttpHeaders());
+        when(this.form.file(eq("test-name"), any(InputStream.class), eq("application/json"))).thenAnswer(invocation -> {
+            assertThat(this.allocator.metric().usedHeapMemory()).isPositive();
+
+            byte[] bytes = new byte[1024];
+            int length = invocation.<InputStream>getArgument(1).read(bytes);
+            content.set(new String(bytes, 0, length, StandardCharsets.UTF_8));
+
+            return this.form;
+        });
+
+        new MultipartHttpClientRequest(new ObjectMapper(), this.request, this.form)
+            .addPart(part -> part.setName("test-name").setContentType("application/json").send(Collections.singletonMap("test-key", "test-value")))
+            .done();
+
+        assertThat(content.get()).isEqualTo("{\"test-key\":\"test-value\"}");
+        assertThat(this.allocator.metric().usedHeapMemory()).isZero();
+    }
+
+}
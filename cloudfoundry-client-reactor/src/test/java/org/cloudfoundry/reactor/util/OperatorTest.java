@@ -0,0 +1,423 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.cloudfoundry.UnknownCloudFoundryException;
+import org.cloudfoundry.reactor.AbstractRestTest;
+import org.cloudfoundry.reactor.ConnectionPoolConfiguration;
+import org.cloudfoundry.reactor.DefaultConnectionContext;
+import org.cloudfoundry.reactor.Endpoint;
+import org.cloudfoundry.reactor.InteractionContext;
+import org.cloudfoundry.reactor.RetryConfiguration;
+import org.cloudfoundry.reactor.TestRequest;
+import org.cloudfoundry.reactor.TestResponse;
+import org.cloudfoundry.reactor.TokenProvider;
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.AUTHORIZATION;
+import static io.netty.handler.codec.http.HttpMethod.GET;
+import static io.netty.handler.codec.http.HttpMethod.POST;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class OperatorTest extends AbstractRestTest {
+
+    private static final RetryConfiguration RETRY_CONFIGURATION = RetryConfiguration.builder()
+        .maximumBackoff(Duration.ofMillis(10))
+        .minimumBackoff(Duration.ofMillis(10))
+        .build();
+
+    private final DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+        .apiHost(this.mockWebServer.getHostName())
+        .port(this.mockWebServer.getPort())
+        .retryConfiguration(RETRY_CONFIGURATION)
+        .secure(false)
+        .build();
+
+    @After
+    public void dispose() {
+        this.connectionContext.dispose();
+    }
+
+    @Test
+    public void deadlineExceeded() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .port(this.mockWebServer.getPort())
+            .secure(false)
+            .build();
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/test")
+                .build())
+            .response(TestResponse.builder()
+                .delay(Duration.ofSeconds(1))
+                .status(OK)
+                .build())
+            .build());
+
+        operator(connectionContext)
+            .flatMap(operator -> operator.get()
+                .uri(builder -> builder.pathSegment("test"))
+                .response()
+                .get())
+            .subscriberContext(Deadline.after(Duration.ofMillis(100)))
+            .as(StepVerifier::create)
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(5));
+
+        TimeoutCounter timeoutCounter = connectionContext.getTimeoutCounter().get();
+        assertThat(timeoutCounter.getDeadlinesExceeded()).isEqualTo(1);
+        assertThat(timeoutCounter.getResponseTimeouts()).isZero();
+
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void responseTimeout() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .connectionPool(Endpoint.CLOUD_CONTROLLER, ConnectionPoolConfiguration.builder()
+                .maximumConnections(1)
+                .pendingAcquireTimeout(Duration.ofSeconds(1))
+                .build())
+            .port(this.mockWebServer.getPort())
+            .responseTimeout(Endpoint.CLOUD_CONTROLLER, Duration.ofMillis(100))
+            .secure(false)
+            .build();
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/test")
+                .build())
+            .response(TestResponse.builder()
+                .delay(Duration.ofSeconds(1))
+                .status(OK)
+                .build())
+            .build());
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/test")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .build())
+            .build());
+
+        operator(connectionContext)
+            .flatMap(operator -> operator.get()
+                .uri(builder -> builder.pathSegment("test"))
+                .response()
+                .get())
+            .as(StepVerifier::create)
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(5));
+
+        operator(connectionContext)
+            .flatMap(operator -> operator.get()
+                .uri(builder -> builder.pathSegment("test"))
+                .response()
+                .get())
+            .map(response -> response.status().code())
+            .as(StepVerifier::create)
+            .expectNext(OK.code())
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(connectionContext.getTimeoutCounter().get().getResponseTimeouts()).isEqualTo(1);
+        assertThat(connectionContext.getResponseTimeout(Endpoint.UAA)).isEmpty();
+
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void responseTimeoutStreamed() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .port(this.mockWebServer.getPort())
+            .responseTimeout(Endpoint.CLOUD_CONTROLLER, Duration.ofMillis(100))
+            .secure(false)
+            .build();
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/test")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .build())
+            .build());
+
+        operator(connectionContext)
+            .flatMapMany(operator -> operator.get()
+                .uri(builder -> builder.pathSegment("test"))
+                .response()
+                .parseBodyToFlux(response -> response.getBody().aggregate()
+                    .thenMany(Flux.interval(Duration.ofMillis(50)).take(5))))
+            .as(StepVerifier::create)
+            .expectNextCount(5)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(connectionContext.getTimeoutCounter().get().getResponseTimeouts()).isZero();
+
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void retryBudgetExhausted() {
+        RetryBudget retryBudget = this.connectionContext.getRetryBudget().get();
+        for (int i = 0; i < 10; i++) {
+            retryBudget.withdraw();
+        }
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/test")
+                .build())
+            .response(TestResponse.builder()
+                .status(SERVICE_UNAVAILABLE)
+                .payload("fixtures/invalid_error_response.json")
+                .build())
+            .build());
+
+        operator(this.connectionContext)
+            .flatMap(operator -> operator.get()
+                .uri(builder -> builder.pathSegment("test"))
+                .response()
+                .get())
+            .as(StepVerifier::create)
+            .expectError(UnknownCloudFoundryException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(retryBudget.getSuppressed()).isEqualTo(1);
+    }
+
+    @Test
+    public void retryBudgetNotConfigured() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .build();
+
+        assertThat(connectionContext.getRetryBudget()).isEmpty();
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void retryNotIdempotent() {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(POST).path("/test")
+                .build())
+            .response(TestResponse.builder()
+                .status(SERVICE_UNAVAILABLE)
+                .payload("fixtures/invalid_error_response.json")
+                .build())
+            .build());
+
+        operator(this.connectionContext)
+            .flatMap(operator -> operator.post()
+                .uri(builder -> builder.pathSegment("test"))
+                .response()
+                .get())
+            .as(StepVerifier::create)
+            .expectError(UnknownCloudFoundryException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.connectionContext.getRetryBudget().get().getAttempted()).isZero();
+    }
+
+    @Test
+    public void retryTransientFailure() {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/test")
+                .build())
+            .response(TestResponse.builder()
+                .status(SERVICE_UNAVAILABLE)
+                .payload("fixtures/invalid_error_response.json")
+                .build())
+            .build());
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/test")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .build())
+            .build());
+
+        operator(this.connectionContext)
+            .flatMap(operator -> operator.get()
+                .uri(builder -> builder.pathSegment("test"))
+                .response()
+                .get())
+            .map(response -> response.status().code())
+            .as(StepVerifier::create)
+            .expectNext(OK.code())
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.connectionContext.getRetryBudget().get().getAttempted()).isEqualTo(1);
+    }
+
+    @Test
+    public void scheduledTokenFetch() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .connectionPool(Endpoint.CLOUD_CONTROLLER, ConnectionPoolConfiguration.builder()
+                .maximumConnections(1)
+                .build())
+            .port(this.mockWebServer.getPort())
+            .scheduledEndpoint(Endpoint.CLOUD_CONTROLLER)
+            .scheduledEndpoint(Endpoint.UAA)
+            .secure(false)
+            .build();
+
+        TokenProvider tokenProvider = context -> this.root
+            .map(root -> new Operator(OperatorContext.of(context, root), context.getHttpClient(Endpoint.UAA)))
+            .flatMap(operator -> operator.post()
+                .uri(builder -> builder.pathSegment("oauth", "token"))
+                .response()
+                .get())
+            .map(response -> "bearer test-access-token");
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(POST).path("/oauth/token")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .build())
+            .build());
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/test")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .build())
+            .build());
+
+        operator(connectionContext)
+            .map(operator -> operator.headersWhen(headers -> tokenProvider.getToken(connectionContext)
+                .map(token -> headers.set(AUTHORIZATION, token))))
+            .flatMap(operator -> operator.get()
+                .uri(builder -> builder.pathSegment("test"))
+                .response()
+                .get())
+            .map(response -> response.status().code())
+            .as(StepVerifier::create)
+            .expectNext(OK.code())
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(connectionContext.getRequestScheduler(Endpoint.CLOUD_CONTROLLER).get().getCapacity()).isEqualTo(1);
+        assertThat(connectionContext.getRequestScheduler(Endpoint.UAA).get().getCapacity()).isEqualTo(ConnectionProvider.DEFAULT_POOL_MAX_CONNECTIONS);
+        assertThat(connectionContext.getRequestScheduler(Endpoint.DOPPLER)).isEmpty();
+
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void scheduledWithConcurrencyLimiter() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .connectionPool(Endpoint.CLOUD_CONTROLLER, ConnectionPoolConfiguration.builder()
+                .maximumConnections(1)
+                .build())
+            .port(this.mockWebServer.getPort())
+            .scheduledEndpoint(Endpoint.CLOUD_CONTROLLER)
+            .secure(false)
+            .build();
+
+        ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(ConcurrencyLimiterConfiguration.builder()
+            .initialLimit(1)
+            .maximumLimit(1)
+            .build());
+
+        for (String path : Arrays.asList("normal", "high", "low")) {
+            mockRequest(InteractionContext.builder()
+                .request(TestRequest.builder()
+                    .method(GET).path("/" + path)
+                    .build())
+                .response(TestResponse.builder()
+                    .delay(Duration.ofMillis(100))
+                    .status(OK)
+                    .build())
+                .build());
+        }
+
+        Mono<Operator> operator = this.root
+            .map(root -> new Operator(OperatorContext.builder()
+                .concurrencyLimiter(concurrencyLimiter)
+                .connectionContext(connectionContext)
+                .requestScheduler(connectionContext.getRequestScheduler(Endpoint.CLOUD_CONTROLLER))
+                .root(root)
+                .build(), connectionContext.getHttpClient(Endpoint.CLOUD_CONTROLLER)));
+
+        Flux.merge(
+            request(operator, "normal").subscriberContext(Priority.NORMAL),
+            request(operator, "low").subscriberContext(Priority.LOW),
+            request(operator, "high").subscriberContext(Priority.HIGH))
+            .as(StepVerifier::create)
+            .expectNext(OK.code(), OK.code(), OK.code())
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        connectionContext.dispose();
+    }
+
+    @Test
+    public void timeoutCounterDefault() {
+        assertThat(this.connectionContext.getTimeoutCounter()).isPresent();
+    }
+
+    private static Mono<Integer> request(Mono<Operator> operator, String path) {
+        return operator
+            .flatMap(o -> o.get()
+                .uri(builder -> builder.pathSegment(path))
+                .response()
+                .get())
+            .map(response -> response.status().code());
+    }
+
+    private Mono<Operator> operator(DefaultConnectionContext connectionContext) {
+        return this.root
+            .map(root -> new Operator(OperatorContext.builder()
+                .connectionContext(connectionContext)
+                .requestScheduler(connectionContext.getRequestScheduler(Endpoint.CLOUD_CONTROLLER))
+                .responseTimeout(connectionContext.getResponseTimeout(Endpoint.CLOUD_CONTROLLER))
+                .retryConfiguration(connectionContext.getRetryConfiguration(Endpoint.CLOUD_CONTROLLER))
+                .root(root)
+                .build(), connectionContext.getHttpClient(Endpoint.CLOUD_CONTROLLER)));
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    @Test
+    public void coalesce() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> source = Mono.just("test-value")
+            .delayElement(Duration.ofMillis(100))
+            .doOnSubscribe(s -> subscriptions.incrementAndGet());
+        String key = "test-key";
+
+        Mono.zip(this.coalescer.coalesce(key, source), this.coalescer.coalesce(key, source))
+            .as(StepVerifier::create)
+            .consumeNextWith(tuple -> assertThat(tuple.getT1()).isEqualTo(tuple.getT2()))
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(subscriptions.get()).isEqualTo(1);
+        assertThat(this.coalescer.getHits()).isEqualTo(1);
+        assertThat(this.coalescer.getMisses()).isEqualTo(1);
+        assertThat(this.coalescer.getInFlight()).isZero();
+    }
+
+    @Test
+    public void cancelAll() {
+        AtomicInteger cancellations = new AtomicInteger();
+        Mono<String> source = Mono.<String>never()
+            .doOnCancel(cancellations::incrementAndGet);
+        String key = "test-key";
+
+        Disposable first = this.coalescer.coalesce(key, source).subscribe();
+        Disposable second = this.coalescer.coalesce(key, source).subscribe();
+
+        first.dispose();
+        assertThat(cancellations.get()).isZero();
+        assertThat(this.coalescer.getInFlight()).isEqualTo(1);
+
+        second.dispose();
+        assertThat(cancellations.get()).isEqualTo(1);
+        assertThat(this.coalescer.getInFlight()).isZero();
+    }
+
+    @Test
+    public void cancelFirst() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> source = Mono.just("test-value")
+            .delayElement(Duration.ofMillis(100))
+            .doOnSubscribe(s -> subscriptions.incrementAndGet());
+        String key = "test-key";
+
+        Disposable first = this.coalescer.coalesce(key, source).subscribe();
+
+        this.coalescer.coalesce(key, source)
+            .as(StepVerifier::create)
+            .then(first::dispose)
+            .expectNext("test-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(subscriptions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void differentDeadline() {
+        Context context = Context.empty();
+
+        assertThat(RequestCoalescer.key(HttpMethod.GET, "test-uri", "test-token", String.class, Deadline.at(Instant.ofEpochSecond(1)).apply(context)))
+            .isNotEqualTo(RequestCoalescer.key(HttpMethod.GET, "test-uri", "test-token", String.class, Deadline.at(Instant.ofEpochSecond(2)).apply(context)));
+    }
+
+    @Test
+    public void differentKey() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> source = Mono.just("test-value")
+            .delayElement(Duration.ofMillis(100))
+            .doOnSubscribe(s -> subscriptions.incrementAndGet());
+
+        Mono.zip(this.coalescer.coalesce("test-key-1", source),
+            this.coalescer.coalesce("test-key-2", source))
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(subscriptions.get()).isEqualTo(2);
+        assertThat(this.coalescer.getHits()).isZero();
+    }
+
+    @Test
+    public void differentPriority() {
+        Context context = Context.empty();
+
+        assertThat(RequestCoalescer.key(HttpMethod.GET, "test-uri", "test-token", String.class, Priority.HIGH.apply(context)))
+            .isNotEqualTo(RequestCoalescer.key(HttpMethod.GET, "test-uri", "test-token", String.class, Priority.LOW.apply(context)));
+    }
+
+    @Test
+    public void differentToken() {
+        Context context = Context.empty();
+
+        assertThat(RequestCoalescer.key(HttpMethod.GET, "test-uri", "test-token-1", String.class, context))
+            .isNotEqualTo(RequestCoalescer.key(HttpMethod.GET, "test-uri", "test-token-2", String.class, context));
+    }
+
+    @Test
+    public void joinAfterEmission() {
+        AtomicReference<String> late = new AtomicReference<>();
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> value = Mono.just("test-value")
+            .doOnSubscribe(s -> subscriptions.incrementAndGet());
+        String key = "test-key";
+
+        Mono<String> source = value
+            .doOnNext(v -> this.coalescer.coalesce(key, value).subscribe(late::set));
+
+        this.coalescer.coalesce(key, source)
+            .as(StepVerifier::create)
+            .expectNext("test-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(late.get()).isEqualTo("test-value");
+        assertThat(subscriptions.get()).isEqualTo(1);
+        assertThat(this.coalescer.getHits()).isEqualTo(1);
+        assertThat(this.coalescer.getInFlight()).isZero();
+    }
+
+    @Test
+    public void sameContext() {
+        Context context = Priority.LOW.apply(Context.empty());
+
+        assertThat(RequestCoalescer.key(HttpMethod.GET, "test-uri", "test-token", String.class, context))
+            .isEqualTo(RequestCoalescer.key(HttpMethod.GET, "test-uri", "test-token", String.class, Priority.LOW.apply(Context.empty())));
+    }
+
+    @Test
+    public void sequential() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> source = Mono.just("test-value")
+            .doOnSubscribe(s -> subscriptions.incrementAndGet());
+        String key = "test-key";
+
+        this.coalescer.coalesce(key, source)
+            .then(this.coalescer.coalesce(key, source))
+            .as(StepVerifier::create)
+            .expectNext("test-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(subscriptions.get()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class RequestHedgerTest {
+
+    @Test
+    public void getRoute() {
+        assertThat(RequestHedger.getRoute("https://api.run.pivotal.io/v2/apps/b2f3a4e6-6c1a-4d3e-9a8b-0c1d2e3f4a5b/stats?page=1"))
+            .isEqualTo("/v2/apps/{guid}/stats");
+    }
+
+    @Test
+    public void hedge() {
+        RequestHedger hedger = new RequestHedger(0.5, 1, 1);
+        String uri = "https://test-host/v2/apps";
+
+        hedger.hedge(uri, Mono.just("test-value").delayElement(Duration.ofMillis(50)))
+            .as(StepVerifier::create)
+            .expectNext("test-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> slow = Mono.defer(() -> subscriptions.incrementAndGet() == 1 ? Mono.just("slow-value").delayElement(Duration.ofSeconds(5)) : Mono.just("fast-value"));
+
+        hedger.hedge(uri, slow)
+            .as(StepVerifier::create)
+            .expectNext("fast-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(subscriptions.get()).isEqualTo(2);
+        assertThat(hedger.getHedged()).isEqualTo(1);
+        assertThat(hedger.getRequests()).isEqualTo(2);
+        assertThat(hedger.getWins()).isEqualTo(1);
+    }
+
+    @Test
+    public void hedgeCancelsPrimary() {
+        RequestHedger hedger = new RequestHedger(1, 1, 1);
+        String uri = "https://test-host/v2/apps";
+
+        hedger.hedge(uri, Mono.just("test-value").delayElement(Duration.ofMillis(50)))
+            .as(StepVerifier::create)
+            .expectNext("test-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        AtomicInteger subscriptions = new AtomicInteger();
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        Mono<String> slow = Mono.defer(() -> subscriptions.incrementAndGet() == 1 ?
+            Mono.just("slow-value").delayElement(Duration.ofSeconds(5)).doOnCancel(() -> primaryCancelled.set(true)) : Mono.just("fast-value").delayElement(Duration.ofMillis(250)));
+
+        hedger.hedge(uri, slow)
+            .as(StepVerifier::create)
+            .expectNext("fast-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(primaryCancelled).isTrue();
+
+        hedger.hedge(uri, Mono.just("test-value").delayElement(Duration.ofMillis(150)))
+            .as(StepVerifier::create)
+            .expectNext("test-value")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(hedger.getHedged())
+            .as("censored sample of the cancelled primary raises the hedge delay")
+            .isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class RequestSchedulerTest {
+
+    private final RequestScheduler scheduler = new RequestScheduler(1);
+
+    @Test
+    public void priority() {
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Flux.merge(
+            this.scheduler.schedule(Priority.NORMAL, request("normal", order)),
+            this.scheduler.schedule(Priority.LOW, request("low", order)),
+            this.scheduler.schedule(Priority.HIGH, request("high", order)))
+            .as(StepVerifier::create)
+            .expectNextCount(3)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(order).containsExactly("normal", "high", "low");
+        assertThat(this.scheduler.getPriorityClasses().get(Priority.LOW).getRequests()).isEqualTo(1);
+        assertThat(this.scheduler.getPriorityClasses().get(Priority.LOW).getMaximumQueueTime()).isGreaterThanOrEqualTo(100);
+        assertThat(this.scheduler.getPriorityClasses().get(Priority.LOW).getQueued()).isZero();
+    }
+
+    @Test
+    public void priorityFromContext() {
+        Mono.subscriberContext()
+            .map(Priority::get)
+            .subscriberContext(Priority.LOW)
+            .as(StepVerifier::create)
+            .expectNext(Priority.LOW)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void weighted() {
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Flux<String> requests = Flux.merge(
+            this.scheduler.schedule(Priority.NORMAL, request("first", order)),
+            Flux.range(0, 9).flatMap(i -> this.scheduler.schedule(Priority.HIGH, request("high", order))),
+            this.scheduler.schedule(Priority.LOW, request("low", order)));
+
+        requests
+            .as(StepVerifier::create)
+            .expectNextCount(11)
+            .expectComplete()
+            .verify(Duration.ofSeconds(10));
+
+        assertThat(order.indexOf("low")).isLessThan(order.size() - 1);
+    }
+
+    private static Flux<String> request(String name, List<String> order) {
+        return Mono.just(name)
+            .doOnSubscribe(subscription -> order.add(name))
+            .delayElement(Duration.ofMillis(100))
+            .flux();
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class ResponseCacheTest {
+
+    private final AtomicInteger subscriptions = new AtomicInteger();
+
+    private final Mono<String> source = Mono.fromCallable(() -> String.format("test-value-%d", this.subscriptions.incrementAndGet()));
+
+    @Test
+    public void evict() {
+        ResponseCache responseCache = new ResponseCache(1, Collections.singletonMap("stacks", Duration.ofMinutes(1)));
+
+        responseCache.get("stacks", "test-key-1", this.source)
+            .then(responseCache.get("stacks", "test-key-2", this.source))
+            .then(responseCache.get("stacks", "test-key-1", this.source))
+            .as(StepVerifier::create)
+            .expectNext("test-value-3")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(responseCache.getEvictions()).isEqualTo(2);
+        assertThat(responseCache.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void expire() {
+        ResponseCache responseCache = new ResponseCache(10, Collections.singletonMap("stacks", Duration.ZERO));
+
+        responseCache.get("stacks", "test-key", this.source)
+            .then(responseCache.get("stacks", "test-key", this.source))
+            .as(StepVerifier::create)
+            .expectNext("test-value-2")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(responseCache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void hit() {
+        ResponseCache responseCache = new ResponseCache(10, Collections.singletonMap("stacks", Duration.ofMinutes(1)));
+
+        responseCache.get("stacks", "test-key", this.source)
+            .then(responseCache.get("stacks", "test-key", this.source))
+            .as(StepVerifier::create)
+            .expectNext("test-value-1")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(responseCache.getHits()).isEqualTo(1);
+        assertThat(responseCache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidate() {
+        ResponseCache responseCache = new ResponseCache(10, Collections.singletonMap("stacks", Duration.ofMinutes(1)));
+
+        responseCache.get("stacks", "test-key", this.source)
+            .doOnNext(value -> responseCache.invalidate("stacks"))
+            .then(responseCache.get("stacks", "test-key", this.source))
+            .as(StepVerifier::create)
+            .expectNext("test-value-2")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(responseCache.getInvalidations()).isEqualTo(1);
+    }
+
+    @Test
+    public void keyDifferentScopes() {
+        assertThat(ResponseCache.key("test-uri", token("test-user-id", "test-jti", "cloud_controller.read"), String.class))
+            .isNotEqualTo(ResponseCache.key("test-uri", token("test-user-id", "test-jti", "cloud_controller.admin"), String.class));
+    }
+
+    @Test
+    public void keyOpaqueToken() {
+        Object key = ResponseCache.key("test-uri", "bearer test-opaque-token", String.class);
+
+        assertThat(key).isEqualTo(ResponseCache.key("test-uri", "bearer test-opaque-token", String.class));
+        assertThat(key.toString()).doesNotContain("test-opaque-token");
+    }
+
+    @Test
+    public void keyRefreshedToken() {
+        assertThat(ResponseCache.key("test-uri", token("test-user-id", "test-jti-1", "cloud_controller.read"), String.class))
+            .isEqualTo(ResponseCache.key("test-uri", token("test-user-id", "test-jti-2", "cloud_controller.read"), String.class));
+    }
+
+    @Test
+    public void uncachedType() {
+        ResponseCache responseCache = new ResponseCache(10, Collections.singletonMap("stacks", Duration.ofMinutes(1)));
+
+        responseCache.get("apps", "test-key", this.source)
+            .then(responseCache.get("apps", "test-key", this.source))
+            .as(StepVerifier::create)
+            .expectNext("test-value-2")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(responseCache.getSize()).isZero();
+    }
+
+    private static String token(String userId, String id, String scope) {
+        return String.format("bearer %s", Jwts.builder()
+            .setId(id)
+            .claim("user_id", userId)
+            .claim("client_id", "test-client-id")
+            .claim("scope", Arrays.asList(scope))
+            .compact());
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class RetryBudgetTest {
+
+    @Test
+    public void deposit() {
+        RetryBudget budget = new RetryBudget(0.5, 1);
+
+        assertThat(budget.withdraw()).isTrue();
+        assertThat(budget.withdraw()).isFalse();
+
+        budget.deposit();
+        budget.deposit();
+
+        assertThat(budget.withdraw()).isTrue();
+        assertThat(budget.getAttempted()).isEqualTo(2);
+        assertThat(budget.getSuppressed()).isEqualTo(1);
+    }
+
+    @Test
+    public void reserve() {
+        RetryBudget budget = new RetryBudget(0.1, 2);
+
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+
+        assertThat(budget.getBalance()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+/**
+ * The strategy applied to envelopes that arrive while the buffer of a slow consumer is full
+ */
+public enum OverflowStrategy {
+
+    /**
+     * Drop the newest envelope, keeping the buffered envelopes
+     */
+    DROP_NEWEST,
+
+    /**
+     * Drop the oldest buffered envelope to make room for the newest envelope
+     */
+    DROP_OLDEST,
+
+    /**
+     * Keep one in every {@code sampleRate} envelopes of each event type, dropping the oldest buffered envelope to make room for it, and drop the rest
+     */
+    SAMPLE
+
+}
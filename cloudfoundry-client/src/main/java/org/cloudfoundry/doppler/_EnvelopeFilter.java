@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+import org.immutables.value.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A filter applied to envelopes before they are decoded. Each populated criterion must match for an envelope to be accepted.
+ */
+@Value.Immutable
+abstract class _EnvelopeFilter {
+
+    /**
+     * The application ids to accept. Only {@link EventType#CONTAINER_METRIC}, {@link EventType#HTTP_START_STOP}, and {@link EventType#LOG_MESSAGE} envelopes carry an application id; all other
+     * envelopes are rejected when application ids are specified.
+     */
+    abstract List<String> getApplicationIds();
+
+    /**
+     * The event types to accept
+     */
+    abstract List<EventType> getEventTypes();
+
+    /**
+     * The origins to accept
+     */
+    abstract List<String> getOrigins();
+
+    /**
+     * The tags that must be present, each with the given value
+     */
+    abstract Map<String, String> getTags();
+
+}
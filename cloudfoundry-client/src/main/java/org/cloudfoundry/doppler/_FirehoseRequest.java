@@ -17,6 +17,7 @@
 package org.cloudfoundry.doppler;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.cloudfoundry.Nullable;
 import org.immutables.value.Value;
 
 /**
@@ -25,6 +26,34 @@ import org.immutables.value.Value;
 @Value.Immutable
 abstract class _FirehoseRequest {
 
+    /**
+     * The (optional) filter applied to envelopes before they are decoded
+     */
+    @JsonIgnore
+    @Nullable
+    abstract EnvelopeFilter getFilter();
+
+    /**
+     * The (optional) policy for buffering envelopes when the consumer is slower than the stream. Without a policy, the stream applies backpressure to the connection.
+     */
+    @JsonIgnore
+    @Nullable
+    abstract OverflowPolicy getOverflowPolicy();
+
+    /**
+     * The (optional) policy for keeping the stream alive and reconnecting it when the connection is lost. Without a policy, the stream terminates when the connection is lost, unless it is sharded, in which case each shard reconnects with the default policy.
+     */
+    @JsonIgnore
+    @Nullable
+    abstract ReconnectPolicy getReconnectPolicy();
+
+    /**
+     * The number of connections to open with the subscription id. Envelopes are distributed across all connections that share a subscription id.
+     */
+    @JsonIgnore
+    @Nullable
+    abstract Integer getShards();
+
     /**
      * The subscription id
      */
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+import org.immutables.value.Value;
+
+/**
+ * The policy for buffering envelopes when the consumer of a stream is slower than the stream
+ */
+@Value.Immutable
+abstract class _OverflowPolicy {
+
+    @Value.Check
+    void check() {
+        if (getBufferSize() < 1) {
+            throw new IllegalStateException("bufferSize must be greater than or equal to 1");
+        }
+
+        if (getSampleRate() < 1) {
+            throw new IllegalStateException("sampleRate must be greater than or equal to 1");
+        }
+    }
+
+    /**
+     * The maximum number of envelopes to buffer. Defaults to 1024.
+     */
+    @Value.Default
+    Integer getBufferSize() {
+        return 1024;
+    }
+
+    /**
+     * The proportion of envelopes of each event type kept by {@link OverflowStrategy#SAMPLE} while the buffer is full, as one in every {@code sampleRate}. Defaults to 10.
+     */
+    @Value.Default
+    Integer getSampleRate() {
+        return 10;
+    }
+
+    /**
+     * The strategy applied to envelopes that arrive while the buffer is full
+     */
+    abstract OverflowStrategy getStrategy();
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+import org.immutables.value.Value;
+
+import java.time.Duration;
+
+/**
+ * The policy for keeping a stream alive and reconnecting it when the connection is lost
+ */
+@Value.Immutable
+abstract class _ReconnectPolicy {
+
+    @Value.Check
+    void check() {
+        if (getKeepAliveInterval().compareTo(getIdleTimeout()) >= 0) {
+            throw new IllegalStateException("keepAliveInterval must be less than idleTimeout");
+        }
+
+        if (getMinimumBackoff().compareTo(getMaximumBackoff()) > 0) {
+            throw new IllegalStateException("minimumBackoff must be less than or equal to maximumBackoff");
+        }
+    }
+
+    /**
+     * The time without any inbound frame, including replies to keep-alive pings, after which the connection is considered dead and is replaced. Defaults to 60 seconds.
+     */
+    @Value.Default
+    Duration getIdleTimeout() {
+        return Duration.ofSeconds(60);
+    }
+
+    /**
+     * The interval between websocket pings sent to keep the connection alive. Defaults to 20 seconds.
+     */
+    @Value.Default
+    Duration getKeepAliveInterval() {
+        return Duration.ofSeconds(20);
+    }
+
+    /**
+     * The maximum delay between reconnects. Defaults to 30 seconds.
+     */
+    @Value.Default
+    Duration getMaximumBackoff() {
+        return Duration.ofSeconds(30);
+    }
+
+    /**
+     * The delay before the first reconnect, doubling for each consecutive failed reconnect, before jitter is applied. Defaults to 500 milliseconds.
+     */
+    @Value.Default
+    Duration getMinimumBackoff() {
+        return Duration.ofMillis(500);
+    }
+
+}
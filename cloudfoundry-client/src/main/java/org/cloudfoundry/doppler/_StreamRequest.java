@@ -17,6 +17,7 @@
 package org.cloudfoundry.doppler;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.cloudfoundry.Nullable;
 import org.immutables.value.Value;
 
 /**
@@ -31,4 +32,25 @@ abstract class _StreamRequest {
     @JsonIgnore
     abstract String getApplicationId();
 
+    /**
+     * The (optional) filter applied to envelopes before they are decoded
+     */
+    @JsonIgnore
+    @Nullable
+    abstract EnvelopeFilter getFilter();
+
+    /**
+     * The (optional) policy for buffering envelopes when the consumer is slower than the stream. Without a policy, the stream applies backpressure to the connection.
+     */
+    @JsonIgnore
+    @Nullable
+    abstract OverflowPolicy getOverflowPolicy();
+
+    /**
+     * The (optional) policy for keeping the stream alive and reconnecting it when the connection is lost. Without a policy, the stream terminates when the connection is lost.
+     */
+    @JsonIgnore
+    @Nullable
+    abstract ReconnectPolicy getReconnectPolicy();
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+import org.junit.Test;
+
+public final class OverflowPolicyTest {
+
+    @Test(expected = IllegalStateException.class)
+    public void invalidBufferSize() {
+        OverflowPolicy.builder()
+            .bufferSize(0)
+            .strategy(OverflowStrategy.DROP_OLDEST)
+            .build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void invalidSampleRate() {
+        OverflowPolicy.builder()
+            .sampleRate(0)
+            .strategy(OverflowStrategy.SAMPLE)
+            .build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void noStrategy() {
+        OverflowPolicy.builder()
+            .build();
+    }
+
+    @Test
+    public void valid() {
+        OverflowPolicy.builder()
+            .strategy(OverflowStrategy.DROP_OLDEST)
+            .build();
+    }
+
+}
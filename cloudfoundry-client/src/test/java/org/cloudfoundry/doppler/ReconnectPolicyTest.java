@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+public final class ReconnectPolicyTest {
+
+    @Test(expected = IllegalStateException.class)
+    public void invalidBackoff() {
+        ReconnectPolicy.builder()
+            .maximumBackoff(Duration.ofSeconds(1))
+            .minimumBackoff(Duration.ofSeconds(2))
+            .build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void invalidKeepAliveInterval() {
+        ReconnectPolicy.builder()
+            .idleTimeout(Duration.ofSeconds(10))
+            .keepAliveInterval(Duration.ofSeconds(10))
+            .build();
+    }
+
+    @Test
+    public void valid() {
+        ReconnectPolicy.builder()
+            .build();
+    }
+
+}
@@ -92,6 +92,7 @@ import org.cloudfoundry.client.v3.tasks.CreateTaskResponse;
 import org.cloudfoundry.client.v3.tasks.TaskResource;
 import org.cloudfoundry.doppler.DopplerClient;
 import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EnvelopeFilter;
 import org.cloudfoundry.doppler.EventType;
 import org.cloudfoundry.doppler.LogMessage;
 import org.cloudfoundry.doppler.RecentLogsRequest;
@@ -1468,6 +1469,9 @@ public final class DefaultApplications implements Applications {
             .flatMapMany(client -> client
                 .stream(StreamRequest.builder()
                     .applicationId(applicationId)
+                    .filter(EnvelopeFilter.builder()
+                        .eventType(EventType.LOG_MESSAGE)
+                        .build())
                     .build()));
     }
 
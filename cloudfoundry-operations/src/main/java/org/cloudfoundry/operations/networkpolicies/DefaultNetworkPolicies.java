@@ -28,6 +28,7 @@ import org.cloudfoundry.networking.v1.policies.ListPoliciesResponse;
 import org.cloudfoundry.networking.v1.policies.Ports;
 import org.cloudfoundry.networking.v1.policies.Source;
 import org.cloudfoundry.operations.util.OperationsLogging;
+import org.cloudfoundry.util.AdaptivePageSize;
 import org.cloudfoundry.util.PaginationUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -45,6 +46,8 @@ public final class DefaultNetworkPolicies implements NetworkPolicies {
 
     private static final String DEFAULT_PROTOCOL = "tcp";
 
+    private final AdaptivePageSize applicationsPageSize = new AdaptivePageSize();
+
     private final Mono<CloudFoundryClient> cloudFoundryClient;
 
     private final Mono<NetworkingClient> networkingClient;
@@ -63,7 +66,7 @@ public final class DefaultNetworkPolicies implements NetworkPolicies {
             .zip(this.cloudFoundryClient, this.networkingClient, this.spaceId)
             .flatMapMany(function((cloudFoundryClient, networkingClient, spaceId) -> Mono.zip(
                 Mono.just(networkingClient),
-                getApplicationsByName(cloudFoundryClient, spaceId)
+                getApplicationsByName(cloudFoundryClient, this.applicationsPageSize, spaceId)
             )))
             .flatMap(function((networkingClient, applications) -> requestAddPolicy(networkingClient, applications, request)))
             .transform(OperationsLogging.log("Add Network Policy"))
@@ -75,7 +78,7 @@ public final class DefaultNetworkPolicies implements NetworkPolicies {
         return Mono
             .zip(this.cloudFoundryClient, this.networkingClient, this.spaceId)
             .flatMapMany(function((cloudFoundryClient, networkingClient, spaceId) -> Mono.zip(
-                getApplicationsById(cloudFoundryClient, spaceId),
+                getApplicationsById(cloudFoundryClient, this.applicationsPageSize, spaceId),
                 getPolicies(networkingClient)
             )))
             .flatMap(function((applications, policies) -> toPolicy(applications, policies, request)))
@@ -89,21 +92,21 @@ public final class DefaultNetworkPolicies implements NetworkPolicies {
             .zip(this.cloudFoundryClient, this.networkingClient, this.spaceId)
             .flatMapMany(function((cloudFoundryClient, networkingClient, spaceId) -> Mono.zip(
                 Mono.just(networkingClient),
-                getApplicationsByName(cloudFoundryClient, spaceId)
+                getApplicationsByName(cloudFoundryClient, this.applicationsPageSize, spaceId)
             )))
             .flatMap(function((networkingClient, applications) -> requestRemovePolicy(networkingClient, applications, request)))
             .transform(OperationsLogging.log("Remove Network Policy"))
             .checkpoint();
     }
 
-    private static Mono<Map<String, String>> getApplicationsById(CloudFoundryClient cloudFoundryClient, String spaceId) {
-        return requestListApplications(cloudFoundryClient, spaceId)
+    private static Mono<Map<String, String>> getApplicationsById(CloudFoundryClient cloudFoundryClient, AdaptivePageSize adaptivePageSize, String spaceId) {
+        return requestListApplications(cloudFoundryClient, adaptivePageSize, spaceId)
             .map(resource -> Tuples.of(resource.getId(), resource.getName()))
             .collectMap(function((id, name) -> id), function((id, name) -> name));
     }
 
-    private static Mono<Map<String, String>> getApplicationsByName(CloudFoundryClient cloudFoundryClient, String spaceId) {
-        return requestListApplications(cloudFoundryClient, spaceId)
+    private static Mono<Map<String, String>> getApplicationsByName(CloudFoundryClient cloudFoundryClient, AdaptivePageSize adaptivePageSize, String spaceId) {
+        return requestListApplications(cloudFoundryClient, adaptivePageSize, spaceId)
             .map(resource -> Tuples.of(resource.getId(), resource.getName()))
             .collectMap(function((id, name) -> name), function((id, name) -> id));
     }
@@ -132,12 +135,13 @@ public final class DefaultNetworkPolicies implements NetworkPolicies {
                 .build());
     }
 
-    private static Flux<ApplicationResource> requestListApplications(CloudFoundryClient cloudFoundryClient, String spaceId) {
-        return PaginationUtils.requestClientV3Resources(page -> cloudFoundryClient.applicationsV3()
+    private static Flux<ApplicationResource> requestListApplications(CloudFoundryClient cloudFoundryClient, AdaptivePageSize adaptivePageSize, String spaceId) {
+        return PaginationUtils.requestClientV3Resources((page, perPage) -> cloudFoundryClient.applicationsV3()
             .list(ListApplicationsRequest.builder()
                 .page(page)
+                .perPage(perPage)
                 .spaceId(spaceId)
-                .build()));
+                .build()), adaptivePageSize);
     }
 
     private static Mono<ListPoliciesResponse> requestListNetworkPolicies(NetworkingClient networkingClient) {
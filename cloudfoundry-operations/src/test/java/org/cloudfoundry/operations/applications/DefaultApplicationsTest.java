@@ -116,6 +116,7 @@ import org.cloudfoundry.client.v3.tasks.CreateTaskResponse;
 import org.cloudfoundry.client.v3.tasks.TaskResource;
 import org.cloudfoundry.doppler.DopplerClient;
 import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EnvelopeFilter;
 import org.cloudfoundry.doppler.EventType;
 import org.cloudfoundry.doppler.LogMessage;
 import org.cloudfoundry.doppler.RecentLogsRequest;
@@ -3690,6 +3691,9 @@ public final class DefaultApplicationsTest extends AbstractOperationsTest {
         when(dopplerClient
             .stream(StreamRequest.builder()
                 .applicationId(applicationId)
+                .filter(EnvelopeFilter.builder()
+                    .eventType(EventType.LOG_MESSAGE)
+                    .build())
                 .build()))
             .thenReturn(Flux
                 .just(Envelope.builder()
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Tunes the page size of Cloud Foundry V3 listings based on the latency of previously received pages.  Full pages that return faster than the target latency grow the page size, pages that
+ * return slower shrink it.  The page size adapts between the pages of a listing, and a single instance is intended to be shared across listings of the same type so that later listings start
+ * from earlier observations.  Payload size is not
+ * considered, as responses have already been decoded when pages are observed; its cost shows up in the latency of a page instead.
+ */
+public final class AdaptivePageSize {
+
+    /**
+     * The maximum page size accepted by the Cloud Controller
+     */
+    public static final int MAXIMUM_PAGE_SIZE = 5000;
+
+    private static final int DEFAULT_INITIAL_PAGE_SIZE = 50;
+
+    private static final Duration DEFAULT_TARGET_LATENCY = Duration.ofSeconds(2);
+
+    private static final double MAXIMUM_GROWTH = 4.0;
+
+    private static final double MAXIMUM_SHRINK = 0.5;
+
+    private static final double SMOOTHING = 0.5;
+
+    private final int maximumPageSize;
+
+    private final Consumer<ListingStatistics> statisticsConsumer;
+
+    private final long targetLatency;
+
+    private double pageSize;
+
+    public AdaptivePageSize() {
+        this(DEFAULT_INITIAL_PAGE_SIZE, MAXIMUM_PAGE_SIZE, DEFAULT_TARGET_LATENCY, statistics -> {
+        });
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param initialPageSize    the page size to use before any pages have been observed
+     * @param maximumPageSize    the largest page size to request
+     * @param targetLatency      the latency that a single page should take to be received
+     * @param statisticsConsumer a consumer notified of the statistics of each completed listing
+     */
+    public AdaptivePageSize(int initialPageSize, int maximumPageSize, Duration targetLatency, Consumer<ListingStatistics> statisticsConsumer) {
+        if (initialPageSize < 1 || initialPageSize > maximumPageSize) {
+            throw new IllegalArgumentException(String.format("initialPageSize must be between 1 and %d", maximumPageSize));
+        }
+
+        this.maximumPageSize = maximumPageSize;
+        this.pageSize = initialPageSize;
+        this.statisticsConsumer = statisticsConsumer;
+        this.targetLatency = targetLatency.toNanos();
+    }
+
+    /**
+     * Returns the page size that the next page should use
+     */
+    public synchronized int getPageSize() {
+        return (int) Math.round(this.pageSize);
+    }
+
+    void complete(ListingStatistics statistics) {
+        this.statisticsConsumer.accept(statistics);
+    }
+
+    synchronized void record(int requestedPageSize, int resources, Duration latency) {
+        long nanos = Math.max(latency.toNanos(), 1);
+        if (resources < requestedPageSize && nanos <= this.targetLatency) {
+            return;
+        }
+
+        double ratio = Math.max(MAXIMUM_SHRINK, Math.min(MAXIMUM_GROWTH, (double) this.targetLatency / nanos));
+        double candidate = requestedPageSize * ratio;
+
+        this.pageSize = Math.max(1, Math.min(this.maximumPageSize, (SMOOTHING * candidate) + ((1 - SMOOTHING) * this.pageSize)));
+    }
+
+}
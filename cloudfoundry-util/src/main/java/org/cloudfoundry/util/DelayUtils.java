@@ -26,6 +26,7 @@ import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -36,6 +37,8 @@ public final class DelayUtils {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client.delay");
 
+    private static final long MAXIMUM_EXPONENT = 30;
+
     private DelayUtils() {
     }
 
@@ -65,6 +68,19 @@ public final class DelayUtils {
         return errors -> getDelay(minimum, maximum, finish, errors.zipWith(Flux.range(0, Integer.MAX_VALUE), (error, iteration) -> iteration.longValue()));
     }
 
+    /**
+     * Calculates an exponential backoff delay with full jitter: a random duration between zero and the exponential backoff delay for an iteration
+     *
+     * @param minimum   the minimum duration before jitter is applied
+     * @param maximum   the maximum duration
+     * @param iteration the zero-based iteration
+     * @return the jittered delay
+     */
+    public static Duration exponentialBackOffWithJitter(Duration minimum, Duration maximum, long iteration) {
+        Duration candidate = calculateDuration(minimum, maximum, Math.min(iteration, MAXIMUM_EXPONENT));
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(candidate.toNanos() + 1));
+    }
+
     /**
      * Implements an fixed delay for use with {@link Mono#repeatWhenEmpty(Function)}
      *
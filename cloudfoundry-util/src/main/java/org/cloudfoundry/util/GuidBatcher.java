@@ -0,0 +1,169 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batches individual requests for resources by id into a single listing filtered by those ids.  Requests made within {@code window} of each other, up to {@code maximumBatchSize} of them, are
+ * merged into a single call of the batch loader and the results demultiplexed back to each caller.  For example, to batch the retrieval of Cloud Foundry V3 applications:
+ *
+ * <pre>
+ * new GuidBatcher&lt;&gt;(ids -&gt; PaginationUtils.requestClientV3Resources(page -&gt; cloudFoundryClient.applicationsV3()
+ *     .list(ListApplicationsRequest.builder()
+ *         .applicationIds(ids)
+ *         .page(page)
+ *         .build())), ApplicationResource::getId, 50, Duration.ofMillis(10));
+ * </pre>
+ *
+ * @param <T> the type of resource
+ */
+public final class GuidBatcher<T> implements Disposable {
+
+    private final Function<List<String>, Flux<T>> batchLoader;
+
+    private final Function<T, String> idExtractor;
+
+    private final Set<MonoProcessor<T>> outstanding = ConcurrentHashMap.newKeySet();
+
+    private final FluxSink<Request<T>> requests;
+
+    private final Disposable subscription;
+
+    /**
+     * Creates a new instance
+     *
+     * @param batchLoader      a function from a list of ids to the resources with those ids
+     * @param idExtractor      a function from a resource to its id
+     * @param maximumBatchSize the maximum number of ids to request in a single batch
+     * @param window           the maximum duration to wait for additional requests before requesting a batch
+     */
+    public GuidBatcher(Function<List<String>, Flux<T>> batchLoader, Function<T, String> idExtractor, int maximumBatchSize, Duration window) {
+        EmitterProcessor<Request<T>> processor = EmitterProcessor.create(false);
+
+        this.batchLoader = batchLoader;
+        this.idExtractor = idExtractor;
+        this.requests = processor.sink();
+        this.subscription = processor
+            .bufferTimeout(maximumBatchSize, window)
+            .flatMap(this::load)
+            .subscribe();
+    }
+
+    /**
+     * Stops batching.  Requests that have not yet been resolved, including those in a batch that is loading, fail with an {@link IllegalStateException}.
+     */
+    @Override
+    public void dispose() {
+        this.subscription.dispose();
+        this.requests.complete();
+        this.outstanding.forEach(this::fail);
+    }
+
+    /**
+     * Requests the resource with a given id.  If no such resource exists, the returned {@link Mono} completes empty.  If the batcher has been disposed, the returned {@link Mono} fails with an
+     * {@link IllegalStateException}.
+     *
+     * @param id the id of the resource
+     * @return the resource with the given id
+     */
+    public Mono<T> get(String id) {
+        return Mono.defer(() -> {
+            if (isDisposed()) {
+                return Mono.error(new IllegalStateException("disposed"));
+            }
+
+            MonoProcessor<T> result = MonoProcessor.create();
+            this.outstanding.add(result);
+            this.requests.next(new Request<>(id, result));
+
+            if (isDisposed()) {
+                fail(result);
+            }
+
+            return result;
+        });
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return this.subscription.isDisposed();
+    }
+
+    private Mono<Void> load(List<Request<T>> batch) {
+        List<String> ids = batch.stream()
+            .map(request -> request.id)
+            .distinct()
+            .collect(Collectors.toList());
+
+        return Flux.defer(() -> this.batchLoader.apply(ids))
+            .collectMap(this.idExtractor)
+            .doOnNext(resources -> batch.forEach(request -> resolve(request, resources)))
+            .doOnError(t -> batch.stream()
+                .filter(request -> this.outstanding.remove(request.result))
+                .forEach(request -> request.result.onError(t)))
+            .onErrorResume(t -> Mono.empty())
+            .then();
+    }
+
+    private void fail(MonoProcessor<T> result) {
+        if (this.outstanding.remove(result)) {
+            result.onError(new IllegalStateException("disposed"));
+        }
+    }
+
+    private void resolve(Request<T> request, Map<String, T> resources) {
+        if (!this.outstanding.remove(request.result)) {
+            return;
+        }
+
+        T resource = resources.get(request.id);
+
+        if (resource != null) {
+            request.result.onNext(resource);
+        } else {
+            request.result.onComplete();
+        }
+    }
+
+    private static final class Request<T> {
+
+        private final String id;
+
+        private final MonoProcessor<T> result;
+
+        private Request(String id, MonoProcessor<T> result) {
+            this.id = id;
+            this.result = result;
+        }
+
+    }
+
+}
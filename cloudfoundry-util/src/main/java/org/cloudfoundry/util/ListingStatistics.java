@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import java.time.Duration;
+
+/**
+ * Statistics about a completed listing
+ */
+public final class ListingStatistics {
+
+    private final Duration elapsed;
+
+    private final int pageSize;
+
+    private final int pages;
+
+    private final long resources;
+
+    ListingStatistics(int pageSize, int pages, long resources, Duration elapsed) {
+        this.elapsed = elapsed;
+        this.pageSize = pageSize;
+        this.pages = pages;
+        this.resources = resources;
+    }
+
+    /**
+     * Returns the wall time taken by the listing
+     */
+    public Duration getElapsed() {
+        return this.elapsed;
+    }
+
+    /**
+     * Returns the largest page size requested by the listing
+     */
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    /**
+     * Returns the number of pages received by the listing
+     */
+    public int getPages() {
+        return this.pages;
+    }
+
+    /**
+     * Returns the number of resources received by the listing
+     */
+    public long getResources() {
+        return this.resources;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ListingStatistics{pageSize=%d, pages=%d, resources=%d, elapsed=%s}", this.pageSize, this.pages, this.resources, this.elapsed);
+    }
+
+}
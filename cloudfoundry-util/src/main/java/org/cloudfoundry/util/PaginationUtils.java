@@ -16,10 +16,19 @@
 
 package org.cloudfoundry.util;
 
+import org.cloudfoundry.client.v3.Link;
+import org.cloudfoundry.client.v3.Pagination;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
@@ -47,6 +56,26 @@ public final class PaginationUtils {
             .flatMap(ResourceUtils::getResources);
     }
 
+    /**
+     * Generate the stream of resources from a series of responses obtained from the page supplier.  Unlike {@link #requestClientV2Resources(Function)}, resources are emitted in page order as
+     * soon as their page arrives, with at most {@code concurrency} pages requested or held at any one time.
+     *
+     * @param pageSupplier a function from integers to {@link Mono}s of {@link org.cloudfoundry.client.v2.PaginatedResponse}s.
+     * @param concurrency  the maximum number of pages to request concurrently.
+     * @param prefetch     the number of pages to prefetch ahead of the downstream demand for resources.
+     * @param <T>          the type of resource in the list on each {@link org.cloudfoundry.client.v2.PaginatedResponse}.
+     * @param <U>          the type of {@link org.cloudfoundry.client.v2.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    public static <T extends org.cloudfoundry.client.v2.Resource<?>, U extends org.cloudfoundry.client.v2.PaginatedResponse<T>> Flux<T> requestClientV2Resources(
+        Function<Integer, Mono<U>> pageSupplier, int concurrency, int prefetch) {
+
+        return pageSupplier
+            .apply(1)
+            .flatMapMany(response -> streamAdditionalPages(response, pageNumbers(response.getTotalPages()), pageSupplier, concurrency))
+            .flatMapIterable(response -> response.getResources(), prefetch);
+    }
+
     /**
      * Generate the stream of resources accumulated from a series of responses obtained from the page supplier.
      *
@@ -63,6 +92,69 @@ public final class PaginationUtils {
             .flatMapIterable(org.cloudfoundry.client.v3.PaginatedResponse::getResources);
     }
 
+    /**
+     * Generate the stream of resources from a series of responses obtained from the page supplier.  Unlike {@link #requestClientV3Resources(Function)}, resources are emitted in page order as
+     * soon as their page arrives, with at most {@code concurrency} pages requested or held at any one time.
+     *
+     * @param pageSupplier a function from integers to {@link Mono}s of {@link org.cloudfoundry.client.v3.PaginatedResponse}s.
+     * @param concurrency  the maximum number of pages to request concurrently.
+     * @param prefetch     the number of pages to prefetch ahead of the downstream demand for resources.
+     * @param <T>          the type of resource in the list on each {@link org.cloudfoundry.client.v3.PaginatedResponse}.
+     * @param <U>          the type of {@link org.cloudfoundry.client.v3.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    public static <T, U extends org.cloudfoundry.client.v3.PaginatedResponse<T>> Flux<T> requestClientV3Resources(Function<Integer, Mono<U>> pageSupplier, int concurrency, int prefetch) {
+        return pageSupplier
+            .apply(1)
+            .flatMapMany(response -> streamAdditionalPages(response, pageNumbers(response.getPagination().getTotalPages()), pageSupplier, concurrency))
+            .flatMapIterable(response -> response.getResources(), prefetch);
+    }
+
+    /**
+     * Generate the stream of resources accumulated from a series of responses obtained from the page supplier.  Pages are requested sequentially for as long as each response has a {@code next}
+     * link, rather than by relying on the total number of pages.  The size of each page is chosen by, and reported back to, an {@link AdaptivePageSize}, so the page size changes within a listing.
+     * A new page size is only used when it evenly divides the number of resources already requested, so that page numbers at the new size continue exactly where the previous page ended.
+     *
+     * @param pageSupplier     a function from page numbers and page sizes to {@link Mono}s of {@link org.cloudfoundry.client.v3.PaginatedResponse}s.
+     * @param adaptivePageSize the {@link AdaptivePageSize} used to choose the page size of the listing.
+     * @param <T>              the type of resource in the list on each {@link org.cloudfoundry.client.v3.PaginatedResponse}.
+     * @param <U>              the type of {@link org.cloudfoundry.client.v3.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    public static <T, U extends org.cloudfoundry.client.v3.PaginatedResponse<T>> Flux<T> requestClientV3Resources(BiFunction<Integer, Integer, Mono<U>> pageSupplier,
+                                                                                                                AdaptivePageSize adaptivePageSize) {
+        return Flux.defer(() -> {
+            AtomicInteger maximumPageSize = new AtomicInteger(adaptivePageSize.getPageSize());
+            AtomicInteger offset = new AtomicInteger();
+            AtomicInteger pageSize = new AtomicInteger(maximumPageSize.get());
+            AtomicInteger pages = new AtomicInteger();
+            AtomicLong resources = new AtomicLong();
+            long start = System.nanoTime();
+
+            return requestClientV3Page(pageSupplier, 1, pageSize.get(), adaptivePageSize)
+                .expand(response -> {
+                    int page = offset.get() / pageSize.get() + 1;
+                    int requested = offset.addAndGet(pageSize.get());
+
+                    if (!getNextPage(response).filter(next -> next > page).isPresent()) {
+                        return Mono.empty();
+                    }
+
+                    int nextPageSize = getAlignedPageSize(requested, pageSize.get(), adaptivePageSize.getPageSize());
+                    pageSize.set(nextPageSize);
+                    maximumPageSize.accumulateAndGet(nextPageSize, Math::max);
+
+                    return requestClientV3Page(pageSupplier, requested / nextPageSize + 1, nextPageSize, adaptivePageSize);
+                })
+                .doOnNext(response -> {
+                    pages.incrementAndGet();
+                    resources.addAndGet(response.getResources().size());
+                })
+                .doOnComplete(() -> adaptivePageSize.complete(new ListingStatistics(maximumPageSize.get(), pages.get(), resources.get(), Duration.ofNanos(System.nanoTime() - start))))
+                .flatMapIterable(response -> response.getResources());
+        });
+    }
+
     /**
      * Generate the stream of resources accumulated from a series of responses obtained from the page supplier.
      *
@@ -79,6 +171,61 @@ public final class PaginationUtils {
             .flatMapIterable(org.cloudfoundry.uaa.PaginatedResponse::getResources);
     }
 
+    /**
+     * Generate the stream of resources from a series of responses obtained from the page supplier.  Unlike {@link #requestUaaResources(Function)}, resources are emitted in page order as soon
+     * as their page arrives, with at most {@code concurrency} pages requested or held at any one time.
+     *
+     * @param pageSupplier a function from integers to {@link Mono}s of {@link org.cloudfoundry.uaa.PaginatedResponse}s.
+     * @param concurrency  the maximum number of pages to request concurrently.
+     * @param prefetch     the number of pages to prefetch ahead of the downstream demand for resources.
+     * @param <T>          the type of resource in the list on each {@link org.cloudfoundry.uaa.PaginatedResponse}.
+     * @param <U>          the type of {@link org.cloudfoundry.uaa.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    public static <T, U extends org.cloudfoundry.uaa.PaginatedResponse<T>> Flux<T> requestUaaResources(Function<Integer, Mono<U>> pageSupplier, int concurrency, int prefetch) {
+        return pageSupplier
+            .apply(1)
+            .flatMapMany(response -> streamAdditionalPages(response, startIndices(response), pageSupplier, concurrency))
+            .flatMapIterable(response -> response.getResources(), prefetch);
+    }
+
+    /**
+     * Returns the largest page size, no larger than the desired page size, that evenly divides the number of resources already requested.  Falls back to the current page size, which always
+     * divides it, when no such size is at least half the desired page size.
+     */
+    private static int getAlignedPageSize(int requested, int currentPageSize, int desiredPageSize) {
+        for (int candidate = desiredPageSize; candidate * 2 >= desiredPageSize; candidate--) {
+            if (requested % candidate == 0) {
+                return candidate;
+            }
+        }
+
+        return currentPageSize;
+    }
+
+    private static Optional<Integer> getNextPage(org.cloudfoundry.client.v3.PaginatedResponse<?> response) {
+        return Optional.ofNullable(response.getPagination())
+            .map(Pagination::getNext)
+            .map(Link::getHref)
+            .flatMap(PaginationUtils::getPageParameter);
+    }
+
+    private static Optional<Integer> getPageParameter(String href) {
+        try {
+            return Optional.ofNullable(URI.create(href).getRawQuery())
+                .flatMap(query -> Arrays.stream(query.split("&"))
+                    .filter(parameter -> parameter.startsWith("page="))
+                    .map(parameter -> Integer.valueOf(parameter.substring("page=".length())))
+                    .findFirst());
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Flux<Integer> pageNumbers(Integer totalPages) {
+        return Flux.range(2, Optional.ofNullable(totalPages).orElse(1) - 1);
+    }
+
     private static <T> Function<T, Flux<T>> requestAdditionalPages(Function<Integer, Mono<T>> pageSupplier, Function<T, Integer> totalPagesSupplier) {
         return response -> {
             Integer totalPages = Optional.ofNullable(totalPagesSupplier.apply(response)).orElse(1);
@@ -100,6 +247,15 @@ public final class PaginationUtils {
         return requestAdditionalPages(pageSupplier, response -> response.getPagination().getTotalPages());
     }
 
+    private static <T, U extends org.cloudfoundry.client.v3.PaginatedResponse<T>> Mono<U> requestClientV3Page(BiFunction<Integer, Integer, Mono<U>> pageSupplier, int page, int pageSize,
+                                                                                                             AdaptivePageSize adaptivePageSize) {
+        return pageSupplier
+            .apply(page, pageSize)
+            .elapsed()
+            .doOnNext(tuple -> adaptivePageSize.record(pageSize, tuple.getT2().getResources().size(), Duration.ofMillis(tuple.getT1())))
+            .map(Tuple2::getT2);
+    }
+
     private static <T extends org.cloudfoundry.uaa.PaginatedResponse<?>> Function<T, Flux<T>> requestUaaAdditionalPages(Function<Integer, Mono<T>> pageSupplier) {
         return response -> {
             Integer totalPages = (response.getTotalResults() - 1) / response.getItemsPerPage() + 1;
@@ -114,4 +270,18 @@ public final class PaginationUtils {
         };
     }
 
+    private static Flux<Integer> startIndices(org.cloudfoundry.uaa.PaginatedResponse<?> response) {
+        Integer totalPages = (response.getTotalResults() - 1) / response.getItemsPerPage() + 1;
+
+        return Flux
+            .range(1, totalPages - 1)
+            .map(page -> 1 + (page * response.getItemsPerPage()));
+    }
+
+    private static <T> Flux<T> streamAdditionalPages(T response, Flux<Integer> additionalPages, Function<Integer, Mono<T>> pageSupplier, int concurrency) {
+        return additionalPages
+            .flatMapSequential(pageSupplier, concurrency)
+            .startWith(response);
+    }
+
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class AdaptivePageSizeTest {
+
+    @Test
+    public void grow() {
+        AdaptivePageSize adaptivePageSize = new AdaptivePageSize(100, 5000, Duration.ofSeconds(1), statistics -> {
+        });
+
+        adaptivePageSize.record(100, 100, Duration.ofMillis(100));
+
+        assertThat(adaptivePageSize.getPageSize()).isEqualTo(250);
+    }
+
+    @Test
+    public void ignorePartialPage() {
+        AdaptivePageSize adaptivePageSize = new AdaptivePageSize(100, 5000, Duration.ofSeconds(1), statistics -> {
+        });
+
+        adaptivePageSize.record(100, 10, Duration.ofMillis(100));
+
+        assertThat(adaptivePageSize.getPageSize()).isEqualTo(100);
+    }
+
+    @Test
+    public void maximum() {
+        AdaptivePageSize adaptivePageSize = new AdaptivePageSize(100, 150, Duration.ofSeconds(1), statistics -> {
+        });
+
+        adaptivePageSize.record(100, 100, Duration.ofMillis(1));
+
+        assertThat(adaptivePageSize.getPageSize()).isEqualTo(150);
+    }
+
+    @Test
+    public void shrink() {
+        AdaptivePageSize adaptivePageSize = new AdaptivePageSize(100, 5000, Duration.ofSeconds(1), statistics -> {
+        });
+
+        adaptivePageSize.record(100, 100, Duration.ofSeconds(10));
+
+        assertThat(adaptivePageSize.getPageSize()).isEqualTo(75);
+    }
+
+}
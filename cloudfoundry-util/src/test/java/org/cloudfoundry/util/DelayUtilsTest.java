@@ -25,6 +25,8 @@ import reactor.test.scheduler.VirtualTimeScheduler;
 
 import java.time.Duration;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 public final class DelayUtilsTest {
 
     @SuppressWarnings("unchecked")
@@ -105,6 +107,14 @@ public final class DelayUtilsTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void exponentialBackOffWithJitter() {
+        for (long iteration = 0; iteration < 100; iteration++) {
+            assertThat(DelayUtils.exponentialBackOffWithJitter(Duration.ofSeconds(1), Duration.ofSeconds(5), iteration))
+                .isBetween(Duration.ZERO, Duration.ofSeconds(Math.min(5, (long) Math.pow(2, Math.min(iteration, 30)))));
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void fixed() {
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class GuidBatcherTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    private final GuidBatcher<String> batcher = new GuidBatcher<>(ids -> {
+        this.batches.add(ids);
+        return Flux.fromIterable(ids)
+            .filter(id -> !id.startsWith("missing"));
+    }, id -> id, 3, Duration.ofMillis(100));
+
+    @After
+    public void dispose() {
+        this.batcher.dispose();
+    }
+
+    @Test
+    public void batch() {
+        Flux.merge(this.batcher.get("test-id-1"), this.batcher.get("test-id-2"), this.batcher.get("test-id-1"))
+            .collectList()
+            .as(StepVerifier::create)
+            .consumeNextWith(ids -> assertThat(ids).containsExactlyInAnyOrder("test-id-1", "test-id-2", "test-id-1"))
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(this.batches).hasSize(1);
+        assertThat(this.batches.get(0)).containsExactly("test-id-1", "test-id-2");
+    }
+
+    @Test
+    public void getAfterDispose() {
+        this.batcher.dispose();
+
+        this.batcher.get("test-id-1")
+            .as(StepVerifier::create)
+            .expectErrorMatches(t -> t instanceof IllegalStateException && "disposed".equals(t.getMessage()))
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(this.batches).isEmpty();
+    }
+
+    @Test
+    public void getBeforeDispose() {
+        GuidBatcher<String> batcher = new GuidBatcher<>(ids -> Flux.never(), id -> id, 3, Duration.ofMillis(100));
+
+        batcher.get("test-id-1")
+            .as(StepVerifier::create)
+            .then(batcher::dispose)
+            .expectErrorMatches(t -> t instanceof IllegalStateException && "disposed".equals(t.getMessage()))
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void maximumBatchSize() {
+        Flux.merge(this.batcher.get("test-id-1"), this.batcher.get("test-id-2"), this.batcher.get("test-id-3"), this.batcher.get("test-id-4"))
+            .as(StepVerifier::create)
+            .expectNextCount(4)
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(this.batches).hasSize(2);
+    }
+
+    @Test
+    public void missing() {
+        Mono.zip(this.batcher.get("test-id-1"), this.batcher.get("missing-id").defaultIfEmpty("test-default"))
+            .as(StepVerifier::create)
+            .consumeNextWith(tuple -> {
+                assertThat(tuple.getT1()).isEqualTo("test-id-1");
+                assertThat(tuple.getT2()).isEqualTo("test-default");
+            })
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
+}
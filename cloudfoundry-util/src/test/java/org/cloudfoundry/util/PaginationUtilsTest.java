@@ -21,6 +21,7 @@ import org.cloudfoundry.client.v2.spaces.ListSpacesResponse;
 import org.cloudfoundry.client.v2.spaces.SpaceEntity;
 import org.cloudfoundry.client.v2.spaces.SpaceResource;
 import org.cloudfoundry.client.v2.spaces.Spaces;
+import org.cloudfoundry.client.v3.Link;
 import org.cloudfoundry.client.v3.Pagination;
 import org.cloudfoundry.client.v3.packages.BitsData;
 import org.cloudfoundry.client.v3.packages.ListPackagesRequest;
@@ -40,9 +41,14 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.RETURNS_SMART_NULLS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -84,6 +90,25 @@ public final class PaginationUtilsTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void requestClientV2ResourcesStreaming() {
+        Spaces spaces = mock(Spaces.class, RETURNS_SMART_NULLS);
+
+        requestListSpaces(spaces, 1, 3);
+        requestListSpaces(spaces, 2, 3);
+        requestListSpaces(spaces, 3, 3);
+
+        PaginationUtils
+            .requestClientV2Resources(page -> spaces
+                .list(ListSpacesRequest.builder()
+                    .page(page)
+                    .build()), 2, 1)
+            .as(StepVerifier::create)
+            .expectNextCount(3)
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
     @Test
     public void requestClientV3Empty() {
         Packages packages = mock(Packages.class, RETURNS_SMART_NULLS);
@@ -119,6 +144,113 @@ public final class PaginationUtilsTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void requestClientV3ResourcesAdaptive() {
+        Packages packages = mock(Packages.class, RETURNS_SMART_NULLS);
+        List<ListingStatistics> statistics = new ArrayList<>();
+        AdaptivePageSize adaptivePageSize = new AdaptivePageSize(10, AdaptivePageSize.MAXIMUM_PAGE_SIZE, Duration.ofSeconds(1), statistics::add);
+
+        requestListPackagesNext(packages, 1, 10, 2);
+        requestListPackagesNext(packages, 2, 10, 3);
+        requestListPackagesNext(packages, 3, 10, null);
+
+        PaginationUtils
+            .requestClientV3Resources((page, perPage) -> packages
+                .list(ListPackagesRequest.builder()
+                    .page(page)
+                    .perPage(perPage)
+                    .build()), adaptivePageSize)
+            .map(PackageResource::getId)
+            .as(StepVerifier::create)
+            .expectNext("1", "2", "3")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(statistics).hasSize(1);
+        assertThat(statistics.get(0).getPages()).isEqualTo(3);
+        assertThat(statistics.get(0).getResources()).isEqualTo(3);
+    }
+
+    @Test
+    public void requestClientV3ResourcesAdaptiveMalformedNext() {
+        Packages packages = mock(Packages.class, RETURNS_SMART_NULLS);
+
+        when(packages
+            .list(ListPackagesRequest.builder()
+                .page(1)
+                .perPage(10)
+                .build()))
+            .thenReturn(Mono
+                .just(ListPackagesResponse.builder()
+                    .pagination(Pagination.builder()
+                        .next(Link.builder()
+                            .href("https://test-api/v3/packages?page=test-page&per_page=10")
+                            .build())
+                        .build())
+                    .build()));
+
+        PaginationUtils
+            .requestClientV3Resources((page, perPage) -> packages
+                .list(ListPackagesRequest.builder()
+                    .page(page)
+                    .perPage(perPage)
+                    .build()), new AdaptivePageSize(10, AdaptivePageSize.MAXIMUM_PAGE_SIZE, Duration.ofSeconds(1), statistics -> {
+            }))
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void requestClientV3ResourcesAdaptiveResize() {
+        Packages packages = mock(Packages.class, RETURNS_SMART_NULLS);
+        List<ListingStatistics> statistics = new ArrayList<>();
+        AdaptivePageSize adaptivePageSize = new AdaptivePageSize(10, AdaptivePageSize.MAXIMUM_PAGE_SIZE, Duration.ofSeconds(1), statistics::add);
+
+        requestListPackagesFull(packages, 1, 10, 2);
+        requestListPackagesFull(packages, 2, 10, 3);
+        requestListPackagesFull(packages, 2, 20, null);
+
+        PaginationUtils
+            .requestClientV3Resources((page, perPage) -> packages
+                .list(ListPackagesRequest.builder()
+                    .page(page)
+                    .perPage(perPage)
+                    .build()), adaptivePageSize)
+            .as(StepVerifier::create)
+            .expectNextCount(40)
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(statistics).hasSize(1);
+        assertThat(statistics.get(0).getPageSize()).isEqualTo(20);
+        assertThat(statistics.get(0).getPages()).isEqualTo(3);
+        assertThat(statistics.get(0).getResources()).isEqualTo(40);
+    }
+
+    @Test
+    public void requestClientV3ResourcesStreaming() {
+        Packages packages = mock(Packages.class, RETURNS_SMART_NULLS);
+
+        when(packages.list(ListPackagesRequest.builder().page(1).build()))
+            .thenReturn(listPackagesResponse(1, 3));
+        when(packages.list(ListPackagesRequest.builder().page(2).build()))
+            .thenReturn(listPackagesResponse(2, 3).delayElement(Duration.ofMillis(100)));
+        when(packages.list(ListPackagesRequest.builder().page(3).build()))
+            .thenReturn(listPackagesResponse(3, 3));
+
+        PaginationUtils
+            .requestClientV3Resources(page -> packages
+                .list(ListPackagesRequest.builder()
+                    .page(page)
+                    .build()), 2, 1)
+            .map(PackageResource::getId)
+            .as(StepVerifier::create)
+            .expectNext("1", "2", "3")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
     @Test
     public void requestUaaResources() {
         Users users = mock(Users.class, RETURNS_SMART_NULLS);
@@ -154,6 +286,43 @@ public final class PaginationUtilsTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void requestUaaResourcesStreaming() {
+        Users users = mock(Users.class, RETURNS_SMART_NULLS);
+
+        requestListUsers(users, 1, 100, 250);
+        requestListUsers(users, 101, 100, 250);
+        requestListUsers(users, 201, 100, 250);
+
+        PaginationUtils
+            .requestUaaResources(startIndex -> users
+                .list(ListUsersRequest.builder()
+                    .startIndex(startIndex)
+                    .build()), 2, 1)
+            .as(StepVerifier::create)
+            .expectNextCount(3)
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
+    private static Mono<ListPackagesResponse> listPackagesResponse(Integer page, Integer totalPages) {
+        return Mono
+            .just(ListPackagesResponse.builder()
+                .resource(PackageResource.builder()
+                    .id(page.toString())
+                    .createdAt("test-created-at")
+                    .updatedAt("test-updated-at")
+                    .type(PackageType.BITS)
+                    .data(BitsData.builder()
+                        .build())
+                    .state(PackageState.READY)
+                    .build())
+                .pagination(Pagination.builder()
+                    .totalPages(totalPages)
+                    .build())
+                .build());
+    }
+
     private static void requestListPackages(Packages packages, Integer page, Integer totalPages) {
         when(packages
             .list(ListPackagesRequest.builder()
@@ -176,6 +345,58 @@ public final class PaginationUtilsTest {
                     .build()));
     }
 
+    private static void requestListPackagesFull(Packages packages, Integer page, Integer perPage, Integer nextPage) {
+        when(packages
+            .list(ListPackagesRequest.builder()
+                .page(page)
+                .perPage(perPage)
+                .build()))
+            .thenReturn(Mono
+                .just(ListPackagesResponse.builder()
+                    .resources(IntStream.range(0, perPage)
+                        .mapToObj(index -> PackageResource.builder()
+                            .id(String.format("%d-%d", page, index))
+                            .createdAt("test-created-at")
+                            .updatedAt("test-updated-at")
+                            .type(PackageType.BITS)
+                            .data(BitsData.builder()
+                                .build())
+                            .state(PackageState.READY)
+                            .build())
+                        .collect(Collectors.toList()))
+                    .pagination(Pagination.builder()
+                        .next(nextPage == null ? null : Link.builder()
+                            .href(String.format("https://test-api/v3/packages?page=%d&per_page=%d", nextPage, perPage))
+                            .build())
+                        .build())
+                    .build()));
+    }
+
+    private static void requestListPackagesNext(Packages packages, Integer page, Integer perPage, Integer nextPage) {
+        when(packages
+            .list(ListPackagesRequest.builder()
+                .page(page)
+                .perPage(perPage)
+                .build()))
+            .thenReturn(Mono
+                .just(ListPackagesResponse.builder()
+                    .resource(PackageResource.builder()
+                        .id(page.toString())
+                        .createdAt("test-created-at")
+                        .updatedAt("test-updated-at")
+                        .type(PackageType.BITS)
+                        .data(BitsData.builder()
+                            .build())
+                        .state(PackageState.READY)
+                        .build())
+                    .pagination(Pagination.builder()
+                        .next(nextPage == null ? null : Link.builder()
+                            .href(String.format("https://test-api/v3/packages?page=%d&per_page=%d", nextPage, perPage))
+                            .build())
+                        .build())
+                    .build()));
+    }
+
     private static void requestListPackagesEmpty(Packages packages) {
         when(packages
             .list(ListPackagesRequest.builder()